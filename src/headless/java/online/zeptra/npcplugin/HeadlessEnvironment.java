@@ -0,0 +1,159 @@
+package online.zeptra.npcplugin;
+
+import online.zeptra.npcplugin.fake.FakePlugin;
+import online.zeptra.npcplugin.fake.FakeServer;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+
+import java.io.File;
+import java.io.IOException;
+
+// The plugin's managers wired as in NPCPlugin.initializeManagers, on top of the
+// fake server. Effects, skins, sell limits and the file watcher are switched off
+// in the headless config.yml so benchmarks and the load simulator measure the
+// plugin's own code, and NPCs are defined in memory (single-file storage, never
+// saved). The sell GUI listeners are registered through the profiler as in
+// NPCPlugin, so events fired on the fake server reach them timed.
+public class HeadlessEnvironment {
+    public static final String WORLD = "world";
+
+    private final FakeServer server;
+    private final FakePlugin plugin;
+    private final ConfigManager config;
+    private final DynamicPricing dynamicPricing;
+    private final PlayerDataManager playerDataManager;
+    private final LeaderboardManager leaderboardManager;
+    private final NPCManager npcManager;
+    private final BestPriceIndex bestPriceIndex;
+    private final SellService sellService;
+    private final TickProfiler profiler;
+    private final MetricsRegistry metrics;
+    private final SellGUI sellGUI;
+    private final NPCInteractListener npcInteractListener;
+    private final SellGUIListener sellGUIListener;
+
+    public HeadlessEnvironment() {
+        this.server = FakeServer.get();
+        this.plugin = FakePlugin.create();
+        server.newScheduler();
+        server.getEvents().clear();
+        server.setPlugin(plugin);
+        writeHeadlessConfig();
+
+        this.config = new ConfigManager(plugin);
+        config.parseConfigs();
+        config.getNPCsConfig().set("npcs", null);
+        config.compile();
+
+        this.profiler = new TickProfiler(plugin);
+        this.metrics = new MetricsRegistry();
+        this.playerDataManager = new PlayerDataManager(plugin, profiler);
+        this.leaderboardManager = new LeaderboardManager(plugin, playerDataManager);
+        SalesAnalyticsManager analytics = new SalesAnalyticsManager(plugin);
+        this.dynamicPricing = new DynamicPricing(config);
+        this.npcManager = new NPCManager(plugin, config, leaderboardManager, dynamicPricing, profiler);
+        this.bestPriceIndex = new BestPriceIndex(config, npcManager);
+        this.sellService = new SellService(config, playerDataManager, leaderboardManager,
+                analytics, dynamicPricing, bestPriceIndex, metrics);
+
+        PriceCatalog priceCatalog = new PriceCatalog(config, npcManager, bestPriceIndex, dynamicPricing);
+        this.sellGUI = new SellGUI(plugin, config, npcManager, playerDataManager, sellService,
+                bestPriceIndex, priceCatalog, profiler, metrics);
+        this.npcInteractListener = new NPCInteractListener(sellGUI, npcManager);
+        this.sellGUIListener = new SellGUIListener(sellGUI, config, npcManager);
+        profiler.registerEvents(npcInteractListener);
+        profiler.registerEvents(sellGUIListener);
+        profiler.start();
+    }
+
+    private void writeHeadlessConfig() {
+        plugin.saveDefaultConfig();
+        File file = new File(plugin.getDataFolder(), "config.yml");
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        yaml.set("plugin.watch-files", false);
+        yaml.set("npc.effects.particles", false);
+        yaml.set("npc.effects.sounds", false);
+        yaml.set("npc.effects.holograms", false);
+        yaml.set("npc-skins.enabled", false);
+        yaml.set("npc-storage.mode", "single");
+        yaml.set("sell-system.limits.enabled", false);
+        try {
+            yaml.save(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write the headless config.yml", e);
+        }
+    }
+
+    // Defines and spawns an NPC at x/z in the headless world
+    public TraderNPC spawnNPC(String id, double x, double z) {
+        FileConfiguration npcs = config.getNPCsConfig();
+        String path = "npcs." + id;
+        npcs.set(path + ".enabled", true);
+        npcs.set(path + ".name", "&e" + id);
+        npcs.set(path + ".entity-type", "VILLAGER");
+        npcs.set(path + ".location.world", WORLD);
+        npcs.set(path + ".location.x", x);
+        npcs.set(path + ".location.y", 64.0);
+        npcs.set(path + ".location.z", z);
+        if (!npcManager.loadNPC(id)) {
+            throw new IllegalStateException("NPC " + id + " did not spawn");
+        }
+        return npcManager.getNPC(id);
+    }
+
+    public Location location(double x, double z) {
+        return new Location(world(), x, 64.0, z);
+    }
+
+    public World world() {
+        return server.getWorld(WORLD);
+    }
+
+    public FakeServer getServer() {
+        return server;
+    }
+
+    public ConfigManager getConfig() {
+        return config;
+    }
+
+    public NPCManager getNPCManager() {
+        return npcManager;
+    }
+
+    public SellService getSellService() {
+        return sellService;
+    }
+
+    public SellGUI getSellGUI() {
+        return sellGUI;
+    }
+
+    public NPCInteractListener getNPCInteractListener() {
+        return npcInteractListener;
+    }
+
+    public SellGUIListener getSellGUIListener() {
+        return sellGUIListener;
+    }
+
+    public TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    // Removes the NPCs and players so the next trial starts empty
+    public void reset() {
+        npcManager.removeAllNPCs();
+        config.getNPCsConfig().set("npcs", null);
+        for (Player player : server.getPlayers()) {
+            server.removePlayer(player);
+        }
+    }
+}
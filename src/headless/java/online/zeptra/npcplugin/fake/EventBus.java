@@ -0,0 +1,75 @@
+package online.zeptra.npcplugin.fake;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// The fake PluginManager's event dispatch: executors registered with
+// registerEvent() are called by priority, skipping cancelled events for
+// handlers that ignore them, like the server's SimplePluginManager.
+public final class EventBus {
+    private final Logger logger;
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    public EventBus(Logger logger) {
+        this.logger = logger;
+    }
+
+    public void register(Class<? extends Event> eventClass, Listener listener, EventPriority priority,
+                         EventExecutor executor, boolean ignoreCancelled) {
+        List<Registration> sorted = new ArrayList<>(registrations);
+        sorted.add(new Registration(eventClass, listener, priority, executor, ignoreCancelled));
+        sorted.sort(Comparator.comparingInt(registration -> registration.priority.getSlot()));
+        registrations.clear();
+        registrations.addAll(sorted);
+    }
+
+    public void clear() {
+        registrations.clear();
+    }
+
+    public <T extends Event> T call(T event) {
+        for (Registration registration : registrations) {
+            if (!registration.eventClass.isInstance(event)) {
+                continue;
+            }
+            if (registration.ignoreCancelled && event instanceof Cancellable && ((Cancellable) event).isCancelled()) {
+                continue;
+            }
+            try {
+                registration.executor.execute(registration.listener, event);
+            } catch (EventException | RuntimeException e) {
+                logger.log(Level.SEVERE, "Could not pass " + event.getEventName() + " to "
+                        + registration.listener.getClass().getSimpleName(), e);
+            }
+        }
+        return event;
+    }
+
+    private static final class Registration {
+        private final Class<? extends Event> eventClass;
+        private final Listener listener;
+        private final EventPriority priority;
+        private final EventExecutor executor;
+        private final boolean ignoreCancelled;
+
+        private Registration(Class<? extends Event> eventClass, Listener listener, EventPriority priority,
+                             EventExecutor executor, boolean ignoreCancelled) {
+            this.eventClass = eventClass;
+            this.listener = listener;
+            this.priority = priority;
+            this.executor = executor;
+            this.ignoreCancelled = ignoreCancelled;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package online.zeptra.npcplugin.fake;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Bukkit interfaces implemented by a dynamic proxy. Only the methods a
+// scenario needs are answered (by name, so all overloads share an answer);
+// everything else returns null, zero or false. That keeps the fakes small and
+// lets them survive new methods in the API. equals/hashCode/toString are by
+// identity unless answered as "Object.equals" etc.
+public final class Fake<T> {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Class<T> type;
+    private final Map<String, Function<Object[], Object>> answers = new HashMap<>();
+
+    private Fake(Class<T> type) {
+        this.type = type;
+    }
+
+    public static <T> Fake<T> of(Class<T> type) {
+        return new Fake<>(type);
+    }
+
+    public Fake<T> on(String method, Function<Object[], Object> answer) {
+        answers.put(method, answer);
+        return this;
+    }
+
+    public Fake<T> returns(String method, Object value) {
+        return on(method, args -> value);
+    }
+
+    // Calls without arguments dispatch without allocating, as long as the answer
+    // returns an object. The JDK proxy boxes the arguments of every other call
+    // into a new Object[] and boxes primitive return values, so allocation
+    // benchmarks must keep those calls off the path they measure.
+    public T build() {
+        Map<String, Function<Object[], Object>> methods = new HashMap<>();
+        Map<String, Function<Object[], Object>> objectMethods = new HashMap<>();
+        for (Map.Entry<String, Function<Object[], Object>> entry : answers.entrySet()) {
+            if (entry.getKey().startsWith("Object.")) {
+                objectMethods.put(entry.getKey().substring("Object.".length()), entry.getValue());
+            } else {
+                methods.put(entry.getKey(), entry.getValue());
+            }
+        }
+        String name = "Fake" + type.getSimpleName();
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            Object[] arguments = args != null ? args : NO_ARGS;
+            if (method.getDeclaringClass() == Object.class) {
+                Function<Object[], Object> answer = objectMethods.get(method.getName());
+                if (answer != null) {
+                    return answer.apply(arguments);
+                }
+                switch (method.getName()) {
+                    case "equals":
+                        return self == arguments[0];
+                    case "hashCode":
+                        return System.identityHashCode(self);
+                    default:
+                        return name;
+                }
+            }
+
+            Function<Object[], Object> answer = methods.get(method.getName());
+            return answer != null ? answer.apply(arguments) : defaultValue(method);
+        });
+        return type.cast(proxy);
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (!returnType.isPrimitive() || returnType == void.class) {
+            return null;
+        }
+        if (returnType == boolean.class) {
+            return false;
+        }
+        if (returnType == char.class) {
+            return '\0';
+        }
+        if (returnType == long.class) {
+            return 0L;
+        }
+        if (returnType == float.class) {
+            return 0.0f;
+        }
+        if (returnType == double.class) {
+            return 0.0;
+        }
+        if (returnType == byte.class) {
+            return (byte) 0;
+        }
+        if (returnType == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,58 @@
+package online.zeptra.npcplugin.fake;
+
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+
+// An open inventory: the GUI on top, the player's own inventory below. Raw
+// slot numbering and conversion come from InventoryView itself.
+public class FakeInventoryView extends InventoryView {
+    private final Inventory top;
+    private final Inventory bottom;
+    private final HumanEntity player;
+    private final String originalTitle;
+    private String title;
+
+    public FakeInventoryView(Inventory top, Inventory bottom, HumanEntity player, String title) {
+        this.top = top;
+        this.bottom = bottom;
+        this.player = player;
+        this.originalTitle = title;
+        this.title = title;
+    }
+
+    @Override
+    public Inventory getTopInventory() {
+        return top;
+    }
+
+    @Override
+    public Inventory getBottomInventory() {
+        return bottom;
+    }
+
+    @Override
+    public HumanEntity getPlayer() {
+        return player;
+    }
+
+    @Override
+    public InventoryType getType() {
+        return top.getType();
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+
+    // Abstract in newer API versions; plain methods otherwise
+    public String getOriginalTitle() {
+        return originalTitle;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+}
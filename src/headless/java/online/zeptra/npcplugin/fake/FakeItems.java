@@ -0,0 +1,65 @@
+package online.zeptra.npcplugin.fake;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// ItemFactory and ItemMeta for real ItemStacks on the fake server. Metas keep a
+// display name and lore (what the plugin's GUI buttons use) and compare by value,
+// so stacks with equal metas are similar and hash alike; everything else about a
+// meta reads as absent.
+public final class FakeItems {
+
+    private FakeItems() {
+    }
+
+    public static ItemFactory factory() {
+        return Fake.of(ItemFactory.class)
+                .on("getItemMeta", args -> args[0] == Material.AIR ? null : meta(null, null))
+                .returns("isApplicable", true)
+                .on("asMetaFor", args -> args[0])
+                .on("updateMaterial", args -> args[1])
+                .on("equals", args -> isEmpty((ItemMeta) args[0]) ? isEmpty((ItemMeta) args[1])
+                        : args[0].equals(args[1]))
+                .build();
+    }
+
+    private static boolean isEmpty(ItemMeta meta) {
+        return meta == null || (!meta.hasDisplayName() && !meta.hasLore());
+    }
+
+    private static ItemMeta meta(String displayName, List<String> lore) {
+        String[] name = {displayName};
+        List<String> lines = lore != null ? new ArrayList<>(lore) : null;
+        List<List<String>> loreHolder = new ArrayList<>();
+        loreHolder.add(lines);
+        return Fake.of(ItemMeta.class)
+                .on("hasDisplayName", args -> name[0] != null)
+                .on("getDisplayName", args -> name[0] != null ? name[0] : "")
+                .on("setDisplayName", args -> {
+                    name[0] = (String) args[0];
+                    return null;
+                })
+                .on("hasLore", args -> loreHolder.get(0) != null && !loreHolder.get(0).isEmpty())
+                .on("getLore", args -> loreHolder.get(0) != null ? new ArrayList<>(loreHolder.get(0)) : null)
+                .on("setLore", args -> {
+                    loreHolder.set(0, args[0] != null ? new ArrayList<>((List<String>) args[0]) : null);
+                    return null;
+                })
+                .on("clone", args -> meta(name[0], loreHolder.get(0)))
+                .on("Object.equals", args -> args[0] instanceof ItemMeta
+                        && Objects.equals(name[0], displayName((ItemMeta) args[0]))
+                        && Objects.equals(loreHolder.get(0), ((ItemMeta) args[0]).getLore()))
+                .on("Object.hashCode", args -> Objects.hash(name[0], loreHolder.get(0)))
+                .on("Object.toString", args -> "FakeItemMeta{name=" + name[0] + ", lore=" + loreHolder.get(0) + "}")
+                .build();
+    }
+
+    private static String displayName(ItemMeta meta) {
+        return meta.hasDisplayName() ? meta.getDisplayName() : null;
+    }
+}
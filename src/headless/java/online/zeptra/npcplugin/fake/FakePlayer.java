@@ -0,0 +1,165 @@
+package online.zeptra.npcplugin.fake;
+
+import org.bukkit.Location;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// A connected player and the state the server keeps for it: location, the
+// 36 + 5 slot inventory, the item on the cursor and the open inventory view.
+// Opening or closing a GUI fires InventoryCloseEvent through the fake server's
+// event bus, as the server does; messages are only counted.
+public final class FakePlayer {
+    private final FakeServer server;
+    private final UUID id;
+    private final Player player;
+    private final ItemStack[] contents = new ItemStack[41];
+    private final PlayerInventory inventory;
+    private final InventoryView ownView;
+
+    private Location location;
+    private ItemStack cursor;
+    private InventoryView openView;
+    private boolean online = true;
+    private int messages;
+
+    FakePlayer(FakeServer server, String name, Location location) {
+        this.server = server;
+        this.id = UUID.nameUUIDFromBytes(("player:" + name).getBytes());
+        this.location = location.clone();
+        this.player = Fake.of(Player.class)
+                .returns("getName", name)
+                .returns("getDisplayName", name)
+                .returns("getUniqueId", id)
+                .returns("getType", EntityType.PLAYER)
+                .returns("getLocale", "en_us")
+                .returns("getScoreboardTags", Collections.emptySet())
+                .returns("hasPermission", true)
+                .on("isOnline", args -> online)
+                .on("isValid", args -> online)
+                .on("getWorld", args -> this.location.getWorld())
+                .on("getLocation", args -> this.location.clone())
+                .on("teleport", args -> {
+                    this.location = ((Location) args[0]).clone();
+                    return true;
+                })
+                .on("getInventory", args -> getInventory())
+                .on("getItemOnCursor", args -> cursor)
+                .on("setItemOnCursor", args -> {
+                    cursor = (ItemStack) args[0];
+                    return null;
+                })
+                .on("getOpenInventory", args -> currentView())
+                .on("openInventory", args -> open((Inventory) args[0]))
+                .on("closeInventory", args -> {
+                    close();
+                    return null;
+                })
+                .on("sendMessage", args -> {
+                    messages++;
+                    return null;
+                })
+                .build();
+        this.inventory = createInventory();
+        Inventory crafting = Fake.of(Inventory.class)
+                .returns("getSize", 5)
+                .returns("getType", InventoryType.CRAFTING)
+                .returns("getContents", new ItemStack[5])
+                .build();
+        this.ownView = new FakeInventoryView(crafting, inventory, player, "Crafting");
+    }
+
+    private PlayerInventory createInventory() {
+        return Fake.of(PlayerInventory.class)
+                .returns("getSize", contents.length)
+                .returns("getType", InventoryType.PLAYER)
+                .returns("getHolder", player)
+                .returns("getContents", contents)
+                .on("getStorageContents", args -> Arrays.copyOf(contents, 36))
+                .on("getItem", args -> contents[(Integer) args[0]])
+                .on("setItem", args -> {
+                    contents[(Integer) args[0]] = (ItemStack) args[1];
+                    return null;
+                })
+                .on("firstEmpty", args -> firstEmpty())
+                .on("addItem", args -> addItems((ItemStack[]) args[0]))
+                .on("clear", args -> {
+                    Arrays.fill(contents, null);
+                    return null;
+                })
+                .build();
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public PlayerInventory getInventory() {
+        return inventory;
+    }
+
+    // The open GUI, or null when the player only has their own inventory open
+    public InventoryView getOpenView() {
+        return openView;
+    }
+
+    public int getMessageCount() {
+        return messages;
+    }
+
+    void setOnline(boolean online) {
+        this.online = online;
+    }
+
+    private InventoryView currentView() {
+        return openView != null ? openView : ownView;
+    }
+
+    private InventoryView open(Inventory top) {
+        close();
+        openView = new FakeInventoryView(top, inventory, player, server.getTitle(top));
+        return openView;
+    }
+
+    private void close() {
+        if (openView == null) {
+            return;
+        }
+        server.getEvents().call(new InventoryCloseEvent(openView));
+        openView = null;
+    }
+
+    private int firstEmpty() {
+        for (int slot = 0; slot < 36; slot++) {
+            if (contents[slot] == null) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // Stacks go to the first free storage slot; the rest is returned like Inventory.addItem
+    private Map<Integer, ItemStack> addItems(ItemStack[] items) {
+        Map<Integer, ItemStack> leftover = new HashMap<>();
+        for (int i = 0; i < items.length; i++) {
+            int slot = firstEmpty();
+            if (slot < 0) {
+                leftover.put(i, items[i]);
+            } else {
+                contents[slot] = items[i];
+            }
+        }
+        return leftover;
+    }
+}
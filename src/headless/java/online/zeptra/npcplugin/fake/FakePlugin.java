@@ -0,0 +1,31 @@
+package online.zeptra.npcplugin.fake;
+
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+// A JavaPlugin outside a plugin class loader, built with the constructor Bukkit
+// keeps for tests. Its data folder is a fresh temp directory and resources come
+// from the class path, so saveDefaultConfig() and friends behave as on a server.
+public class FakePlugin extends JavaPlugin {
+
+    public FakePlugin(File dataFolder) {
+        super(new JavaPluginLoader(FakeServer.get().getServer()),
+                new PluginDescriptionFile("NPCPlugin", "bench", "online.zeptra.npcplugin.NPCPlugin"),
+                dataFolder, new File(dataFolder, "NPCPlugin.jar"));
+    }
+
+    public static FakePlugin create() {
+        try {
+            File dataFolder = Files.createTempDirectory("npcplugin-bench").toFile();
+            dataFolder.deleteOnExit();
+            return new FakePlugin(dataFolder);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create a data folder", e);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package online.zeptra.npcplugin.fake;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+// The Bukkit server seen by the plugin when it runs headless. Bukkit only
+// accepts one server per JVM, so this is a singleton installed on first use.
+// Worlds, players and entities created here are plain fakes: entities keep
+// their location, players keep their inventory, cursor and open view (see
+// FakePlayer), and items carry the minimal meta from FakeItems. Scheduled tasks
+// only run when the current TickScheduler is ticked; events go through the
+// EventBus. Console commands are counted, not executed.
+public final class FakeServer {
+    private static FakeServer instance;
+
+    private final Logger logger = Logger.getLogger("FakeServer");
+    private final Map<String, World> worlds = new ConcurrentHashMap<>();
+    private final List<Player> players = new CopyOnWriteArrayList<>();
+    private final Map<UUID, FakePlayer> fakePlayers = new ConcurrentHashMap<>();
+    private final Map<Inventory, String> titles = Collections.synchronizedMap(new WeakHashMap<>());
+    private final LongAdder dispatchedCommands = new LongAdder();
+    private final EventBus events = new EventBus(logger);
+    private final Server server;
+    private volatile TickScheduler scheduler = new TickScheduler();
+    private volatile Plugin plugin;
+
+    private FakeServer() {
+        ConsoleCommandSender console = Fake.of(ConsoleCommandSender.class)
+                .returns("getName", "CONSOLE")
+                .returns("hasPermission", true)
+                .returns("isOp", true)
+                .build();
+        PluginManager pluginManager = Fake.of(PluginManager.class)
+                .on("registerEvent", args -> {
+                    events.register(((Class<?>) args[0]).asSubclass(Event.class),
+                            (Listener) args[1], (EventPriority) args[2], (EventExecutor) args[3],
+                            args.length > 5 && (Boolean) args[5]);
+                    return null;
+                })
+                .on("callEvent", args -> events.call((Event) args[0]))
+                .on("getPlugin", args -> plugin != null && plugin.getName().equals(args[0]) ? plugin : null)
+                .on("isPluginEnabled", args -> plugin != null)
+                .build();
+
+        this.server = Fake.of(Server.class)
+                .returns("getLogger", logger)
+                .returns("getName", "FakeServer")
+                .returns("getVersion", "fake")
+                .returns("getBukkitVersion", "1.20.1-R0.1-SNAPSHOT")
+                .returns("getItemFactory", FakeItems.factory())
+                .returns("getPluginManager", pluginManager)
+                .returns("getConsoleSender", console)
+                .returns("isPrimaryThread", true)
+                .on("getScheduler", args -> scheduler.getScheduler())
+                .on("getOnlinePlayers", args -> players)
+                .on("getWorlds", args -> new ArrayList<>(worlds.values()))
+                .on("getWorld", args -> args[0] instanceof String ? worlds.get(args[0]) : findWorld((UUID) args[0]))
+                .on("getPlayer", args -> findPlayer(args[0]))
+                .on("getPlayerExact", args -> findPlayer(args[0]))
+                .on("createInventory", this::createInventory)
+                .on("dispatchCommand", args -> {
+                    dispatchedCommands.increment();
+                    return true;
+                })
+                .build();
+    }
+
+    public static synchronized FakeServer get() {
+        if (instance == null) {
+            instance = new FakeServer();
+            Bukkit.setServer(instance.server);
+        }
+        return instance;
+    }
+
+    public Server getServer() {
+        return server;
+    }
+
+    // Cancels everything still scheduled and starts again at tick 0
+    public TickScheduler newScheduler() {
+        scheduler.cancelAll();
+        scheduler = new TickScheduler();
+        return scheduler;
+    }
+
+    public TickScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public EventBus getEvents() {
+        return events;
+    }
+
+    // The plugin returned by PluginManager.getPlugin()
+    public void setPlugin(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public long getDispatchedCommands() {
+        return dispatchedCommands.sum();
+    }
+
+    // args: holder, then a size or an InventoryType, then an optional title
+    private Inventory createInventory(Object[] args) {
+        InventoryHolder holder = (InventoryHolder) args[0];
+        int size = args[1] instanceof Integer ? (Integer) args[1] : ((InventoryType) args[1]).getDefaultSize();
+        Inventory inventory = inventory(new ItemStack[size], holder, InventoryType.CHEST);
+        titles.put(inventory, args.length > 2 ? (String) args[2] : "Chest");
+        return inventory;
+    }
+
+    String getTitle(Inventory inventory) {
+        String title = titles.get(inventory);
+        return title != null ? title : "Chest";
+    }
+
+    public World getWorld(String name) {
+        return worlds.computeIfAbsent(name, this::createWorld);
+    }
+
+    private World createWorld(String name) {
+        UUID id = UUID.nameUUIDFromBytes(name.getBytes());
+        List<Player> worldPlayers = new CopyOnWriteArrayList<>();
+        return Fake.of(World.class)
+                .returns("getName", name)
+                .returns("getUID", id)
+                .returns("isChunkLoaded", true)
+                .on("getPlayers", args -> worldPlayers)
+                .on("spawnEntity", args -> createEntity((Location) args[0], (EntityType) args[1]))
+                .build();
+    }
+
+    private World findWorld(UUID id) {
+        for (World world : worlds.values()) {
+            if (world.getUID().equals(id)) {
+                return world;
+            }
+        }
+        return null;
+    }
+
+    // Entities remember where they were teleported and their scoreboard tags;
+    // remove() makes them invalid
+    public LivingEntity createEntity(Location location, EntityType type) {
+        UUID id = UUID.randomUUID();
+        Location[] position = {location.clone()};
+        boolean[] removed = {false};
+        Set<String> tags = new HashSet<>();
+        return Fake.of(LivingEntity.class)
+                .returns("getUniqueId", id)
+                .returns("getType", type)
+                .returns("getScoreboardTags", tags)
+                .on("addScoreboardTag", args -> tags.add((String) args[0]))
+                .on("removeScoreboardTag", args -> tags.remove((String) args[0]))
+                .on("getWorld", args -> position[0].getWorld())
+                .on("getLocation", args -> position[0].clone())
+                .on("teleport", args -> {
+                    position[0] = ((Location) args[0]).clone();
+                    return true;
+                })
+                .on("isValid", args -> !removed[0])
+                .on("remove", args -> {
+                    removed[0] = true;
+                    return null;
+                })
+                .build();
+    }
+
+    // Players are online in their world until removed
+    public FakePlayer addPlayer(String name, Location location) {
+        FakePlayer fake = new FakePlayer(this, name, location);
+        Player player = fake.getPlayer();
+        fakePlayers.put(player.getUniqueId(), fake);
+        players.add(player);
+        location.getWorld().getPlayers().add(player);
+        return fake;
+    }
+
+    public void removePlayer(Player player) {
+        FakePlayer fake = fakePlayers.remove(player.getUniqueId());
+        if (fake != null) {
+            fake.setOnline(false);
+        }
+        players.remove(player);
+        player.getWorld().getPlayers().remove(player);
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    // An inventory over the given array; getContents() returns the array itself
+    public static Inventory inventory(ItemStack[] contents) {
+        return inventory(contents, null, InventoryType.CHEST);
+    }
+
+    public static Inventory inventory(ItemStack[] contents, InventoryHolder holder, InventoryType type) {
+        return Fake.of(Inventory.class)
+                .returns("getSize", contents.length)
+                .returns("getType", type)
+                .returns("getHolder", holder)
+                .returns("getContents", contents)
+                .returns("getStorageContents", contents)
+                .on("getItem", args -> contents[(Integer) args[0]])
+                .on("setItem", args -> {
+                    contents[(Integer) args[0]] = (ItemStack) args[1];
+                    return null;
+                })
+                .on("clear", args -> {
+                    Arrays.fill(contents, null);
+                    return null;
+                })
+                .build();
+    }
+
+    private Player findPlayer(Object key) {
+        for (Player player : players) {
+            if (player.getUniqueId().equals(key) || player.getName().equals(key)) {
+                return player;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,183 @@
+package online.zeptra.npcplugin.fake;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// A BukkitScheduler driven by hand: nothing runs until tick() is called, and
+// then every sync task due in that tick runs on the calling thread, in the
+// order it was scheduled, just like the server's main thread. Async tasks go
+// to a daemon thread when they become due. Without tick() calls this is a
+// scheduler that accepts tasks and never runs them.
+public final class TickScheduler {
+    private final PriorityQueue<Task> queue = new PriorityQueue<>((a, b) -> a.due != b.due
+            ? Long.compare(a.due, b.due)
+            : Integer.compare(a.id, b.id));
+    private final Logger logger = Logger.getLogger("TickScheduler");
+    private final AtomicInteger ids = new AtomicInteger();
+    private final ExecutorService async = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TickScheduler-Async");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final BukkitScheduler scheduler;
+    private long currentTick;
+
+    public TickScheduler() {
+        this.scheduler = Fake.of(BukkitScheduler.class)
+                .on("runTask", args -> schedule(args, 0L, -1L, true))
+                .on("runTaskLater", args -> schedule(args, (Long) args[2], -1L, true))
+                .on("runTaskTimer", args -> schedule(args, (Long) args[2], (Long) args[3], true))
+                .on("runTaskAsynchronously", args -> schedule(args, 0L, -1L, false))
+                .on("runTaskLaterAsynchronously", args -> schedule(args, (Long) args[2], -1L, false))
+                .on("runTaskTimerAsynchronously", args -> schedule(args, (Long) args[2], (Long) args[3], false))
+                .on("cancelTask", args -> {
+                    cancel((Integer) args[0]);
+                    return null;
+                })
+                .on("cancelTasks", args -> {
+                    cancelAll();
+                    return null;
+                })
+                .build();
+    }
+
+    public BukkitScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public synchronized int getPendingCount() {
+        return queue.size();
+    }
+
+    // Advances one tick and runs what is due; returns the number of sync tasks run
+    public int tick() {
+        currentTick++;
+        int ran = 0;
+        while (true) {
+            Task task;
+            synchronized (this) {
+                task = queue.peek();
+                if (task == null || task.due > currentTick) {
+                    break;
+                }
+                queue.poll();
+            }
+            if (task.cancelled) {
+                continue;
+            }
+            if (task.period > 0) {
+                task.due = currentTick + task.period;
+                synchronized (this) {
+                    queue.add(task);
+                }
+            }
+            if (task.sync) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.log(Level.SEVERE, "Task " + task.id + " threw an exception", e);
+                }
+                ran++;
+            } else {
+                async.execute(task::run);
+            }
+        }
+        return ran;
+    }
+
+    public synchronized void cancelAll() {
+        for (Task task : queue) {
+            task.cancelled = true;
+        }
+        queue.clear();
+    }
+
+    private synchronized void cancel(int id) {
+        List<Task> matching = new ArrayList<>();
+        for (Task task : queue) {
+            if (task.id == id) {
+                matching.add(task);
+            }
+        }
+        for (Task task : matching) {
+            task.cancelled = true;
+            queue.remove(task);
+        }
+    }
+
+    // args: plugin, Runnable or Consumer<BukkitTask>, then delay and period where present
+    private synchronized BukkitTask schedule(Object[] args, long delay, long period, boolean sync) {
+        Task task = new Task(ids.incrementAndGet(), (Plugin) args[0], args[1], sync);
+        task.due = currentTick + Math.max(1L, delay);
+        task.period = period;
+        queue.add(task);
+        return task;
+    }
+
+    private final class Task implements BukkitTask {
+        private final int id;
+        private final Plugin owner;
+        private final Object body;
+        private final boolean sync;
+        private long due;
+        private long period;
+        private volatile boolean cancelled;
+
+        private Task(int id, Plugin owner, Object body, boolean sync) {
+            this.id = id;
+            this.owner = owner;
+            this.body = body;
+            this.sync = sync;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void run() {
+            if (body instanceof Runnable) {
+                ((Runnable) body).run();
+            } else {
+                ((Consumer<BukkitTask>) body).accept(this);
+            }
+        }
+
+        @Override
+        public int getTaskId() {
+            return id;
+        }
+
+        @Override
+        public Plugin getOwner() {
+            return owner;
+        }
+
+        @Override
+        public boolean isSync() {
+            return sync;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void cancel() {
+            TickScheduler.this.cancel(id);
+            cancelled = true;
+        }
+    }
+}
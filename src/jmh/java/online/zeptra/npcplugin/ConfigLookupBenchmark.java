@@ -0,0 +1,58 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Price and category lookups by item name, as the GUI, holograms and commands do them.
+// NOT_AN_ITEM covers the miss path of names that are no material.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigLookupBenchmark {
+
+    @Param({"DIAMOND", "COBBLESTONE", "NOT_AN_ITEM"})
+    public String item;
+
+    private ConfigManager config;
+    private Material material;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        config = new HeadlessEnvironment().getConfig();
+        material = Material.matchMaterial(item);
+        if (material == null) {
+            material = Material.STONE;
+        }
+    }
+
+    @Benchmark
+    public long getItemPriceByName() {
+        return config.getItemPrice(item);
+    }
+
+    @Benchmark
+    public long getItemPriceByMaterial() {
+        return config.getItemPrice(material);
+    }
+
+    @Benchmark
+    public String getItemCategoryName() {
+        return config.getItemCategoryName(item);
+    }
+}
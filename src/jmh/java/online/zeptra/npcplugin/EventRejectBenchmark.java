@@ -0,0 +1,122 @@
+package online.zeptra.npcplugin;
+
+import online.zeptra.npcplugin.fake.FakeInventoryView;
+import online.zeptra.npcplugin.fake.FakePlayer;
+import online.zeptra.npcplugin.fake.FakeServer;
+import org.bukkit.Material;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+// The listeners see every inventory and entity interaction on the server; the
+// ones that are not about this plugin (a chest, an animal) must be turned away
+// in constant time without allocating. Each benchmark hands a prebuilt event for
+// a plain chest or a cow to the listener, with sell GUIs open for other players.
+// Only zero-argument calls that return objects reach the fakes, which are the only
+// calls Fake dispatches without allocating: the inventory paths look the event's
+// inventory up by identity and call no fake, and the animal path calls only
+// getScoreboardTags(). Run with the GC profiler and check gc.alloc.rate.norm is 0 B/op:
+//   ./gradlew jmh -Pjmh.includes=EventRejectBenchmark -Pjmh.profilers=gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventRejectBenchmark {
+
+    // Players with a sell GUI open; the rejection must not depend on it
+    @Param({"0", "100"})
+    public int openMenus;
+
+    private HeadlessEnvironment env;
+    private SellGUIListener sellGUIListener;
+    private NPCInteractListener npcInteractListener;
+    private InventoryClickEvent click;
+    private InventoryDragEvent drag;
+    private InventoryCloseEvent close;
+    private PlayerInteractEntityEvent interact;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        env = new HeadlessEnvironment();
+        sellGUIListener = env.getSellGUIListener();
+        npcInteractListener = env.getNPCInteractListener();
+        for (int i = 0; i < 10; i++) {
+            env.spawnNPC("npc" + i, i * 4.0, 0);
+        }
+        TraderNPC npc = env.getNPCManager().getNPC("npc0");
+        for (int i = 0; i < openMenus; i++) {
+            FakePlayer seller = env.getServer().addPlayer("seller" + i, env.location(1, 1));
+            env.getSellGUI().openSellGUI(seller.getPlayer(), npc);
+        }
+        if (env.getSellGUI().getOpenSessionCount() != openMenus) {
+            throw new IllegalStateException("Expected " + openMenus + " open sell GUIs");
+        }
+
+        FakePlayer player = env.getServer().addPlayer("player", env.location(2, 2));
+        Inventory chest = FakeServer.inventory(new ItemStack[27], null, InventoryType.CHEST);
+        chest.setItem(3, new ItemStack(Material.COBBLESTONE, 16));
+        InventoryView view = new FakeInventoryView(chest, player.getInventory(), player.getPlayer(), "Chest");
+        click = new InventoryClickEvent(view, InventoryType.SlotType.CONTAINER, 3,
+                ClickType.LEFT, InventoryAction.PICKUP_ALL);
+        drag = new InventoryDragEvent(view, null, new ItemStack(Material.COBBLESTONE, 2), false,
+                Collections.singletonMap(5, new ItemStack(Material.COBBLESTONE, 2)));
+        close = new InventoryCloseEvent(view);
+        LivingEntity cow = env.getServer().createEntity(env.location(3, 3), EntityType.COW);
+        interact = new PlayerInteractEntityEvent(player.getPlayer(), cow);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        env.reset();
+    }
+
+    @Benchmark
+    public boolean chestClick() {
+        sellGUIListener.onInventoryClick(click);
+        return click.isCancelled();
+    }
+
+    @Benchmark
+    public boolean chestDrag() {
+        sellGUIListener.onInventoryDrag(drag);
+        return drag.isCancelled();
+    }
+
+    @Benchmark
+    public void chestClose() {
+        sellGUIListener.onInventoryClose(close);
+    }
+
+    @Benchmark
+    public boolean animalInteract() {
+        npcInteractListener.onPlayerInteractEntity(interact);
+        return interact.isCancelled();
+    }
+}
@@ -0,0 +1,65 @@
+package online.zeptra.npcplugin;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// One run of the look task: every NPC searches the players in its world for the
+// closest one and turns to it. NPCs stand on a line 4 blocks apart; players are
+// scattered over the same stretch, so some NPCs have someone in range and some not.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookTaskBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int npcs;
+
+    @Param({"1", "20", "100"})
+    public int players;
+
+    private HeadlessEnvironment env;
+    private NPCManager npcManager;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        env = new HeadlessEnvironment();
+        npcManager = env.getNPCManager();
+        for (int i = 0; i < npcs; i++) {
+            env.spawnNPC("npc" + i, i * 4.0, 0);
+        }
+
+        Random random = new Random(42);
+        double length = npcs * 4.0;
+        for (int i = 0; i < players; i++) {
+            env.getServer().addPlayer("player" + i,
+                    env.location(random.nextDouble() * length, random.nextDouble() * 20 - 10));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        env.reset();
+    }
+
+    @Benchmark
+    public void updateLookTargets() {
+        npcManager.updateLookTargets();
+    }
+}
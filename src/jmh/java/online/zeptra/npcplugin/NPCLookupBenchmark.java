@@ -0,0 +1,67 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// NPCManager.getNPCByEntity runs for every entity interaction on the server.
+// hit looks up the last NPC spawned, miss an entity that is no NPC at all
+// (the common case: players clicking animals and villagers), which the entity
+// tag check turns away before any map lookup.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NPCLookupBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int npcs;
+
+    private HeadlessEnvironment env;
+    private NPCManager npcManager;
+    private LivingEntity npcEntity;
+    private LivingEntity otherEntity;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        env = new HeadlessEnvironment();
+        npcManager = env.getNPCManager();
+        TraderNPC last = null;
+        for (int i = 0; i < npcs; i++) {
+            last = env.spawnNPC("npc" + i, i * 4.0, 0);
+        }
+        npcEntity = last.getEntity();
+        otherEntity = env.getServer().createEntity(env.location(0, 8), EntityType.COW);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        env.reset();
+    }
+
+    @Benchmark
+    public TraderNPC hit() {
+        return npcManager.getNPCByEntity(npcEntity);
+    }
+
+    @Benchmark
+    public TraderNPC miss() {
+        return npcManager.getNPCByEntity(otherEntity);
+    }
+}
@@ -0,0 +1,89 @@
+package online.zeptra.npcplugin;
+
+import online.zeptra.npcplugin.fake.FakeServer;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Pricing a full sell GUI: the 36 item slots SellGUI.updatePreview prices on
+// every click, one by one and as a single inventory quote.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SellPricingBenchmark {
+    private static final int SLOTS = 36;
+    private static final Material[] PRICED = {
+            Material.DIAMOND, Material.IRON_INGOT, Material.GOLD_INGOT, Material.COAL,
+            Material.WHEAT, Material.CARROT, Material.COBBLESTONE, Material.DIAMOND_SWORD
+    };
+    private static final Material[] UNPRICED = {
+            Material.OAK_LOG, Material.STICK, Material.AIR
+    };
+
+    // priced = every slot sells; mixed = a third of the slots are empty or unsellable
+    @Param({"priced", "mixed"})
+    public String fill;
+
+    private HeadlessEnvironment env;
+    private SellService sellService;
+    private TraderNPC npc;
+    private Player player;
+    private ItemStack[] contents;
+    private Inventory inventory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        env = new HeadlessEnvironment();
+        sellService = env.getSellService();
+        npc = env.spawnNPC("bench", 0, 0);
+        player = env.getServer().addPlayer("seller", env.location(1, 1)).getPlayer();
+
+        contents = new ItemStack[54];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            Material material = "mixed".equals(fill) && slot % 3 == 2
+                    ? UNPRICED[slot % UNPRICED.length]
+                    : PRICED[slot % PRICED.length];
+            contents[slot] = material == Material.AIR ? null : new ItemStack(material, 1 + slot % 64);
+        }
+        inventory = FakeServer.inventory(contents);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        env.reset();
+    }
+
+    @Benchmark
+    public long priceEachSlot() {
+        long total = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            total += sellService.priceItem(npc, contents[slot]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public void quoteInventory(Blackhole blackhole) {
+        blackhole.consume(sellService.quoteInventory(player, npc, inventory, 0, SLOTS));
+    }
+}
@@ -0,0 +1,250 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Container;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Containers (chests, hoppers, barrels...) linked to a TraderNPC and drained by
+// one scheduler task. Each run has a stack budget that is shared round-robin
+// between containers, with a separate cap per container, so a wall of full
+// chests is spread over several ticks. Sales are credited to the link owner
+// through SellService and count towards their daily limit; owners must be
+// online for their containers to be drained. Links live in autosell.yml.
+public class AutoSellManager {
+
+    public static class Link {
+        private final String world;
+        private final int x;
+        private final int y;
+        private final int z;
+        private final String npcId;
+        private final UUID owner;
+
+        public Link(String world, int x, int y, int z, String npcId, UUID owner) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.npcId = npcId;
+            this.owner = owner;
+        }
+
+        public String getWorld() { return world; }
+        public int getX() { return x; }
+        public int getY() { return y; }
+        public int getZ() { return z; }
+        public String getNpcId() { return npcId; }
+        public UUID getOwner() { return owner; }
+
+        private String key() {
+            return blockKey(world, x, y, z);
+        }
+    }
+
+    private final JavaPlugin plugin;
+    private final ConfigManager config;
+    private final NPCManager npcManager;
+    private final SellService sellService;
+    private final Runnable timedDrain;
+    private final File file;
+
+    private final Map<String, Link> links = new LinkedHashMap<>();
+    private List<Link> order = new ArrayList<>();
+    private int cursor;
+    private BukkitTask drainTask;
+
+    public AutoSellManager(JavaPlugin plugin, ConfigManager config, NPCManager npcManager, SellService sellService,
+                           TickProfiler profiler) {
+        this.plugin = plugin;
+        this.config = config;
+        this.npcManager = npcManager;
+        this.sellService = sellService;
+        this.timedDrain = profiler.wrap("autosell", this::drain);
+        this.file = new File(plugin.getDataFolder(), "autosell.yml");
+        load();
+    }
+
+    public void start() {
+        stop();
+        if (!config.isAutoSellEnabled()) {
+            return;
+        }
+
+        long interval = Math.max(1, config.getAutoSellIntervalTicks());
+        drainTask = Bukkit.getScheduler().runTaskTimer(plugin, timedDrain, interval, interval);
+    }
+
+    public void stop() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+    }
+
+    public boolean link(Block block, String npcId, UUID owner) {
+        if (!(block.getState() instanceof Container)) {
+            return false;
+        }
+
+        Link link = new Link(block.getWorld().getName(), block.getX(), block.getY(), block.getZ(), npcId, owner);
+        links.put(link.key(), link);
+        rebuildOrder();
+        save();
+        return true;
+    }
+
+    public boolean unlink(Block block) {
+        Link removed = links.remove(blockKey(block.getWorld().getName(), block.getX(), block.getY(), block.getZ()));
+        if (removed == null) {
+            return false;
+        }
+        rebuildOrder();
+        save();
+        return true;
+    }
+
+    public Link getLink(Block block) {
+        return links.get(blockKey(block.getWorld().getName(), block.getX(), block.getY(), block.getZ()));
+    }
+
+    public List<Link> getLinks() {
+        return Collections.unmodifiableList(order);
+    }
+
+    public void removeNPC(String npcId) {
+        if (links.values().removeIf(link -> link.npcId.equals(npcId))) {
+            rebuildOrder();
+            save();
+        }
+    }
+
+    // One drain pass: walks containers from where the previous pass stopped until the budget is spent
+    private void drain() {
+        if (order.isEmpty()) {
+            return;
+        }
+
+        int budget = config.getAutoSellMaxStacksPerRun();
+        int perContainer = config.getAutoSellMaxStacksPerContainer();
+        int visited = 0;
+        List<Link> broken = null;
+
+        while (budget > 0 && visited < order.size()) {
+            if (cursor >= order.size()) {
+                cursor = 0;
+            }
+            Link link = order.get(cursor++);
+            visited++;
+
+            Player owner = Bukkit.getPlayer(link.owner);
+            TraderNPC npc = npcManager.getNPC(link.npcId);
+            World world = Bukkit.getWorld(link.world);
+            if (owner == null || npc == null || world == null || !world.isChunkLoaded(link.x >> 4, link.z >> 4)) {
+                continue;
+            }
+
+            BlockState state = world.getBlockAt(link.x, link.y, link.z).getState();
+            if (!(state instanceof Container)) {
+                // Container was broken or replaced
+                if (broken == null) {
+                    broken = new ArrayList<>();
+                }
+                broken.add(link);
+                continue;
+            }
+
+            SellResult result = sellService.sellBatch(owner, npc, ((Container) state).getInventory(),
+                    Math.min(budget, perContainer));
+            if (result.isSuccess()) {
+                budget -= result.getSoldItems().size();
+                config.debugLog(() -> "Auto-sold " + result.getItemCount() + " items for " + owner.getName()
+                        + " ($" + Money.format(result.getTotalPrice()) + ") at " + link.key());
+            }
+        }
+
+        if (broken != null) {
+            for (Link link : broken) {
+                links.remove(link.key());
+                plugin.getLogger().info("Removed auto-sell link at " + link.key() + " (no longer a container)");
+            }
+            rebuildOrder();
+            save();
+        }
+    }
+
+    private void rebuildOrder() {
+        order = new ArrayList<>(links.values());
+        if (cursor >= order.size()) {
+            cursor = 0;
+        }
+    }
+
+    private static String blockKey(String world, int x, int y, int z) {
+        return world + "," + x + "," + y + "," + z;
+    }
+
+    // Persistence
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        ConfigurationSection section = yaml.getConfigurationSection("links");
+        if (section == null) {
+            return;
+        }
+
+        for (String id : section.getKeys(false)) {
+            ConfigurationSection linkSection = section.getConfigurationSection(id);
+            if (linkSection == null) {
+                continue;
+            }
+            try {
+                Link link = new Link(linkSection.getString("world"), linkSection.getInt("x"),
+                        linkSection.getInt("y"), linkSection.getInt("z"), linkSection.getString("npc"),
+                        UUID.fromString(linkSection.getString("owner", "")));
+                links.put(link.key(), link);
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Invalid auto-sell link '" + id + "' in autosell.yml");
+            }
+        }
+        rebuildOrder();
+    }
+
+    private void save() {
+        YamlConfiguration yaml = new YamlConfiguration();
+        int index = 0;
+        for (Link link : links.values()) {
+            String path = "links." + index++;
+            yaml.set(path + ".world", link.world);
+            yaml.set(path + ".x", link.x);
+            yaml.set(path + ".y", link.y);
+            yaml.set(path + ".z", link.z);
+            yaml.set(path + ".npc", link.npcId);
+            yaml.set(path + ".owner", link.owner.toString());
+        }
+
+        try {
+            yaml.save(file);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save autosell.yml: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Backups of config.yml, the NPC definitions and the messages files in backups/.
+// Each file is stored once as objects/<sha-256>.gz and every backup is a small
+// <yyyyMMdd-HHmmss>.manifest listing "file=hash", so a backup only writes the
+// files whose content changed, and nothing at all if none did. Hashing,
+// compressing and writing happen on an async thread; only the in-memory NPC
+// definitions are serialized on the main thread. Old manifests are pruned by
+// global-settings.backup.retention-days / max-backups in the NPC definitions,
+// then objects no manifest uses are deleted.
+public class BackupService {
+    private static final String MANIFEST = ".manifest";
+    private static final String NPCS_ENTRY = "npcs.yml";
+
+    private final JavaPlugin plugin;
+    private final ConfigManager config;
+    private final File folder;
+    private final File objects;
+    private final Executor async;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private BukkitTask task;
+
+    public BackupService(JavaPlugin plugin, ConfigManager config) {
+        this.plugin = plugin;
+        this.config = config;
+        this.folder = new File(plugin.getDataFolder(), "backups");
+        this.objects = new File(folder, "objects");
+        this.async = runnable -> Bukkit.getScheduler().runTaskAsynchronously(plugin, runnable);
+    }
+
+    // The main-thread part of each run (serializing the NPC definitions) is timed as "backup"
+    public void start(TickProfiler profiler) {
+        stop();
+        if (!config.isAutoBackupEnabled()) {
+            return;
+        }
+
+        Runnable run = profiler.wrap("backup", () -> backup().exceptionally(e -> {
+            plugin.getLogger().warning("Automatic backup failed: " + rootMessage(e));
+            return null;
+        }));
+        long interval = Math.max(60L, config.getBackupIntervalSeconds()) * 20L;
+        task = Bukkit.getScheduler().runTaskTimer(plugin, run, interval, interval);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    // Main thread. Completes with the new backup's timestamp, or null when nothing changed
+    // since the last backup (or another backup is still running)
+    public CompletableFuture<String> backup() {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Settings are read here; the async part does not touch any configuration
+        String npcs = config.getNPCsConfig().saveToString();
+        long cutoff = System.currentTimeMillis() - config.getBackupRetentionDays() * 24L * 60L * 60L * 1000L;
+        int maxBackups = Math.max(1, config.getMaxBackups());
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return write(npcs, cutoff, maxBackups);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } finally {
+                running.set(false);
+            }
+        }, async);
+    }
+
+    private String write(String npcs, long cutoff, int maxBackups) throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("config.yml", Files.readAllBytes(new File(plugin.getDataFolder(), "config.yml").toPath()));
+        files.put(NPCS_ENTRY, npcs.getBytes(StandardCharsets.UTF_8));
+        File[] messages = plugin.getDataFolder().listFiles((dir, name) ->
+                name.startsWith("messages_") && name.endsWith(".yml"));
+        if (messages != null) {
+            for (File file : messages) {
+                files.put(file.getName(), Files.readAllBytes(file.toPath()));
+            }
+        }
+
+        Map<String, String> hashes = new LinkedHashMap<>();
+        StringBuilder manifest = new StringBuilder();
+        for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+            String hash = sha256(entry.getValue());
+            hashes.put(entry.getKey(), hash);
+            manifest.append(entry.getKey()).append('=').append(hash).append('\n');
+        }
+
+        List<String> existing = list();
+        if (!existing.isEmpty() && manifest.toString().equals(readManifestText(existing.get(0)))) {
+            return null;
+        }
+
+        objects.mkdirs();
+        int written = 0;
+        for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+            File object = new File(objects, hashes.get(entry.getKey()) + ".gz");
+            if (object.exists()) {
+                continue;
+            }
+            File temp = new File(objects, object.getName() + ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp.toPath()))) {
+                out.write(entry.getValue());
+            }
+            Files.move(temp.toPath(), object.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            written++;
+        }
+
+        String id = new SimpleDateFormat("yyyyMMdd-HHmmss").format(System.currentTimeMillis());
+        File temp = new File(folder, id + MANIFEST + ".tmp");
+        Files.write(temp.toPath(), manifest.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), new File(folder, id + MANIFEST).toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        prune(cutoff, maxBackups);
+        plugin.getLogger().info("Backup " + id + " created (" + written + " of " + files.size() + " files changed)");
+        return id;
+    }
+
+    // Drops manifests past the retention window or the count limit (always keeping the newest),
+    // then the objects no remaining manifest refers to
+    private void prune(long cutoff, int maxBackups) throws IOException {
+        List<String> ids = list();
+
+        Set<String> referenced = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            if (i > 0 && (i >= maxBackups || parseTime(id) < cutoff)) {
+                Files.deleteIfExists(new File(folder, id + MANIFEST).toPath());
+            } else {
+                referenced.addAll(readManifest(id).values());
+            }
+        }
+
+        File[] stored = objects.listFiles((dir, name) -> name.endsWith(".gz"));
+        if (stored != null) {
+            for (File object : stored) {
+                if (!referenced.contains(object.getName().substring(0, object.getName().length() - 3))) {
+                    Files.deleteIfExists(object.toPath());
+                }
+            }
+        }
+    }
+
+    // Backup timestamps, newest first
+    public List<String> list() {
+        List<String> ids = new ArrayList<>();
+        File[] manifests = folder.listFiles((dir, name) -> name.endsWith(MANIFEST));
+        if (manifests != null) {
+            for (File manifest : manifests) {
+                ids.add(manifest.getName().substring(0, manifest.getName().length() - MANIFEST.length()));
+            }
+        }
+        ids.sort(Collections.reverseOrder());
+        return ids;
+    }
+
+    // The newest backup taken no later than the timestamp. A partial timestamp means
+    // the end of that period: "20240101" picks the last backup of that day, or the
+    // newest one before the day if none was taken on it
+    public String resolve(String timestamp) {
+        for (String id : list()) {
+            if (id.startsWith(timestamp) || id.compareTo(timestamp) <= 0) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    // Reads a backup's files off the main thread; completes with file name -> content
+    public CompletableFuture<Map<String, String>> read(String id) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Map<String, String> files = new LinkedHashMap<>();
+                for (Map.Entry<String, String> entry : readManifest(id).entrySet()) {
+                    File object = new File(objects, entry.getValue() + ".gz");
+                    try (InputStream in = new GZIPInputStream(Files.newInputStream(object.toPath()))) {
+                        files.put(entry.getKey(), new String(readAll(in), StandardCharsets.UTF_8));
+                    }
+                }
+                return files;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, async);
+    }
+
+    // Runs callback on the main thread once the future completes (error is null on success)
+    public <T> void whenDone(CompletableFuture<T> future, BiConsumer<T, Throwable> callback) {
+        future.whenComplete((result, error) -> Bukkit.getScheduler().runTask(plugin, () -> callback.accept(result, error)));
+    }
+
+    private Map<String, String> readManifest(String id) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        String text = readManifestText(id);
+        if (text == null) {
+            throw new IOException("Backup " + id + " not found");
+        }
+        for (String line : text.split("\n")) {
+            int separator = line.lastIndexOf('=');
+            if (separator > 0) {
+                entries.put(line.substring(0, separator), line.substring(separator + 1));
+            }
+        }
+        return entries;
+    }
+
+    private String readManifestText(String id) throws IOException {
+        File manifest = new File(folder, id + MANIFEST);
+        if (!manifest.exists()) {
+            return null;
+        }
+        return new String(Files.readAllBytes(manifest.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static long parseTime(String id) {
+        try {
+            return new SimpleDateFormat("yyyyMMdd-HHmmss").parse(id).getTime();
+        } catch (ParseException e) {
+            return Long.MAX_VALUE; // unknown names are never pruned by age
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String rootMessage(Throwable e) {
+        while (e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,146 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+// For every material, the NPCs that buy it sorted by price (best first).
+// Dynamic pricing, durability and meta rules scale all NPCs alike, so the
+// order only depends on configured prices and scheduled events. The index is
+// rebuilt lazily when the NPC set changes (NPCManager modification count), the
+// price config is recompiled (ConfigManager price version) or a scheduled event
+// starts or ends. Main thread only.
+public class BestPriceIndex {
+    private static final Material[] MATERIALS = Material.values();
+    private static final TraderNPC[] NO_BUYERS = new TraderNPC[0];
+
+    private final ConfigManager config;
+    private final NPCManager npcManager;
+
+    private TraderNPC[][] buyers = new TraderNPC[MATERIALS.length][];
+    private List<Material> materials = Collections.emptyList();
+    private int npcVersion = -1;
+    private int priceVersion = -1;
+    private long validUntil = Long.MIN_VALUE;
+    private int rebuilds;
+
+    public BestPriceIndex(ConfigManager config, NPCManager npcManager) {
+        this.config = config;
+        this.npcManager = npcManager;
+    }
+
+    // Enabled NPCs buying the material, best price first
+    public List<TraderNPC> getBuyers(Material material) {
+        TraderNPC[] sorted = lookup(material);
+        return sorted.length == 0 ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(sorted));
+    }
+
+    public TraderNPC getBestBuyer(Material material) {
+        TraderNPC[] sorted = lookup(material);
+        return sorted.length > 0 ? sorted[0] : null;
+    }
+
+    // Best-paying enabled NPC within range of the location, or null
+    public TraderNPC getBestBuyer(Material material, Location location, double range) {
+        double rangeSquared = range * range;
+        for (TraderNPC npc : lookup(material)) {
+            Location npcLocation = npc.getLocation();
+            if (npc.isEnabled() && npcLocation.getWorld() != null
+                    && npcLocation.getWorld().equals(location.getWorld())
+                    && npcLocation.distanceSquared(location) <= rangeSquared) {
+                return npc;
+            }
+        }
+        return null;
+    }
+
+    // Materials bought by at least one NPC, in Material order
+    public List<Material> getMaterials() {
+        refresh();
+        return materials;
+    }
+
+    public int getRebuildCount() {
+        return rebuilds;
+    }
+
+    private TraderNPC[] lookup(Material material) {
+        refresh();
+        TraderNPC[] sorted = buyers[material.ordinal()];
+        return sorted != null ? sorted : NO_BUYERS;
+    }
+
+    private void refresh() {
+        long now = System.currentTimeMillis();
+        if (npcVersion == npcManager.getModCount() && priceVersion == config.getPriceVersion() && now < validUntil) {
+            return;
+        }
+
+        npcVersion = npcManager.getModCount();
+        priceVersion = config.getPriceVersion();
+        validUntil = config.getPriceScheduleNextChange(now);
+        rebuild();
+    }
+
+    private void rebuild() {
+        List<TraderNPC> npcs = new ArrayList<>();
+        boolean[] candidates = new boolean[MATERIALS.length];
+        markAll(candidates, config.getItemPrices().getMaterials());
+        markAll(candidates, config.getPriceScheduleMaterials());
+        for (TraderNPC npc : npcManager.getNPCs()) {
+            if (npc.isEnabled()) {
+                npcs.add(npc);
+                markAll(candidates, npc.getCustomPriceMaterials());
+            }
+        }
+
+        TraderNPC[][] index = new TraderNPC[MATERIALS.length][];
+        List<Material> bought = new ArrayList<>();
+        long[] prices = new long[npcs.size()];
+        List<Integer> row = new ArrayList<>();
+        Comparator<Integer> bestFirst = Comparator.comparingLong((Integer i) -> prices[i]).reversed()
+                .thenComparing(i -> npcs.get(i).getId());
+
+        for (int ordinal = 0; ordinal < candidates.length; ordinal++) {
+            if (!candidates[ordinal]) {
+                continue;
+            }
+
+            Material material = MATERIALS[ordinal];
+            row.clear();
+            for (int i = 0; i < npcs.size(); i++) {
+                prices[i] = npcs.get(i).getBaseItemPrice(material);
+                if (prices[i] > 0) {
+                    row.add(i);
+                }
+            }
+            if (row.isEmpty()) {
+                continue;
+            }
+
+            row.sort(bestFirst);
+            TraderNPC[] sorted = new TraderNPC[row.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = npcs.get(row.get(i));
+            }
+            index[ordinal] = sorted;
+            bought.add(material);
+        }
+
+        buyers = index;
+        materials = Collections.unmodifiableList(bought);
+        rebuilds++;
+        config.debugLog("Rebuilt best price index: {} materials, {} NPCs", bought.size(), npcs.size());
+    }
+
+    private static void markAll(boolean[] candidates, List<Material> materials) {
+        for (Material material : materials) {
+            candidates[material.ordinal()] = true;
+        }
+    }
+}
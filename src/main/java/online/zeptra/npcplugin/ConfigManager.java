@@ -1,75 +1,181 @@
 package online.zeptra.npcplugin;
 
-import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class ConfigManager {
+    // messages_<language>.yml files shipped in the jar
+    private static final String[] BUNDLED_LANGUAGES = {"en", "th"};
+
     private final JavaPlugin plugin;
     private FileConfiguration config;
     private FileConfiguration npcsConfig;
-    private FileConfiguration messagesConfig;
-    private File npcsFile;
-    private File messagesFile;
+    private NPCStorage npcStorage;
+    private final BackupService backups;
+    // Parsed messages_<language>.yml files by language
+    private Map<String, YamlConfiguration> messageFiles = new HashMap<>();
+    // messages_<language>.yml as shipped in the jar; files extracted by an older
+    // version lack newer keys, so these sit below everything else
+    private Map<String, YamlConfiguration> bundledMessageFiles = new HashMap<>();
 
     // Caching for better performance
-    private final Map<String, Double> priceCache = new HashMap<>();
-    private final Map<String, String> messageCache = new HashMap<>();
+    private PriceTable itemPrices = PriceTable.empty();
+    private int priceVersion;
+    private PriceSchedule priceSchedule = PriceSchedule.empty();
+    private MetaPriceRules metaPriceRules = MetaPriceRules.disabled();
+    private EffectRegistry effects;
+    private MessageCatalog defaultMessages;
+    private Map<String, MessageCatalog> messageCatalogs = new HashMap<>();
+    // Client locale (e.g. "th_th") -> catalog; only locales that match a loaded
+    // messages file are kept, so clients cannot grow it with made-up locales
+    private final Map<String, MessageCatalog> localeCatalogs = new ConcurrentHashMap<>();
     private final Map<String, List<String>> categoryCache = new HashMap<>();
 
+    // plugin.debug and where debug output goes, read on every (re)load so that
+    // debugLog() calls only test a field
+    private volatile boolean debug;
+    private volatile boolean debugConsole;
+    private volatile DebugLog debugFile;
+    private String debugFileSettings;
+
+    // Call parseConfigs() and compile() (or loadConfigs()) before use
     public ConfigManager(JavaPlugin plugin) {
         this.plugin = plugin;
-        loadConfigs();
+        this.backups = new BackupService(plugin, this);
     }
 
     public void loadConfigs() {
+        parseConfigs();
+        compile();
+    }
+
+    // Parses config.yml, its bundled defaults, the NPC definitions and every messages
+    // file on worker threads. Only file work runs off the main thread (NPC storage
+    // may copy or migrate files); the results are joined before returning.
+    public void parseConfigs() {
         plugin.saveDefaultConfig();
-        plugin.reloadConfig();
-        config = plugin.getConfig();
-        loadNPCsConfig();
-        loadMessagesConfig();
+        extractBundledMessages();
+        File configFile = new File(plugin.getDataFolder(), "config.yml");
+
+        CompletableFuture<YamlConfiguration> configFuture =
+                CompletableFuture.supplyAsync(() -> YamlConfiguration.loadConfiguration(configFile));
+        CompletableFuture<YamlConfiguration> defaultsFuture =
+                CompletableFuture.supplyAsync(() -> loadBundledYaml("config.yml"));
+        // The storage layout is a config.yml setting, so NPC definitions follow config.yml
+        CompletableFuture<NPCStorage> storageFuture = configFuture.thenApply(parsed ->
+                new NPCStorage(plugin, parseStorageMode(parsed.getString("npc-storage.mode", "sharded"))));
+        CompletableFuture<YamlConfiguration> npcsFuture = storageFuture.thenApplyAsync(NPCStorage::load);
+        // All languages are loaded so each player can get their own
+        Map<String, CompletableFuture<YamlConfiguration>> messageFutures = new HashMap<>();
+        Map<String, CompletableFuture<YamlConfiguration>> bundledFutures = new HashMap<>();
+        for (String language : BUNDLED_LANGUAGES) {
+            bundledFutures.put(language, CompletableFuture.supplyAsync(() -> loadBundledYaml("messages_" + language + ".yml")));
+        }
+        File[] files = plugin.getDataFolder().listFiles((dir, name) ->
+                name.startsWith("messages_") && name.endsWith(".yml"));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                String language = name.substring("messages_".length(), name.length() - 4).toLowerCase();
+                messageFutures.put(language, CompletableFuture.supplyAsync(() -> YamlConfiguration.loadConfiguration(file)));
+            }
+        }
+
+        YamlConfiguration parsedConfig = configFuture.join();
+        YamlConfiguration defaults = defaultsFuture.join();
+        if (defaults != null) {
+            parsedConfig.setDefaults(defaults);
+        }
+        config = parsedConfig;
+        npcStorage = storageFuture.join();
+        npcsConfig = npcsFuture.join();
+
+        Map<String, YamlConfiguration> parsedMessages = new HashMap<>();
+        for (Map.Entry<String, CompletableFuture<YamlConfiguration>> entry : messageFutures.entrySet()) {
+            parsedMessages.put(entry.getKey(), entry.getValue().join());
+        }
+        if (parsedMessages.isEmpty()) {
+            parsedMessages.put("en", createDefaultMessagesFile());
+        }
+        messageFiles = parsedMessages;
+
+        Map<String, YamlConfiguration> parsedBundled = new HashMap<>();
+        for (Map.Entry<String, CompletableFuture<YamlConfiguration>> entry : bundledFutures.entrySet()) {
+            YamlConfiguration bundled = entry.getValue().join();
+            if (bundled != null) {
+                parsedBundled.put(entry.getKey(), bundled);
+            }
+        }
+        bundledMessageFiles = parsedBundled;
+    }
+
+    // Compiles price tables, schedules and rules from the parsed files
+    public void compile() {
         clearCaches();
         validateConfigFiles(); // เพิ่มการตรวจสอบไฟล์
         plugin.getLogger().info("Configuration files loaded successfully!");
     }
 
-    private void loadNPCsConfig() {
-        npcsFile = new File(plugin.getDataFolder(), "npcs.yml");
-        if (!npcsFile.exists()) {
-            plugin.saveResource("npcs.yml", false);
+    private NPCStorage.Mode parseStorageMode(String value) {
+        try {
+            return NPCStorage.Mode.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Unknown npc-storage.mode '" + value + "', using sharded");
+            return NPCStorage.Mode.SHARDED;
         }
-        npcsConfig = YamlConfiguration.loadConfiguration(npcsFile);
     }
 
-    private void loadMessagesConfig() {
-        String language = getLanguage();
-        String fileName = "messages_" + language + ".yml";
-        messagesFile = new File(plugin.getDataFolder(), fileName);
+    // A YAML resource from the jar, or null if it is missing or unreadable
+    private YamlConfiguration loadBundledYaml(String name) {
+        InputStream stream = plugin.getResource(name);
+        if (stream == null) {
+            return null;
+        }
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            return YamlConfiguration.loadConfiguration(reader);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not read default " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
 
-        if (!messagesFile.exists()) {
-            // Try to save from resources, fallback to english
-            try {
-                plugin.saveResource(fileName, false);
-            } catch (Exception e) {
-                fileName = "messages_en.yml";
-                messagesFile = new File(plugin.getDataFolder(), fileName);
-                if (!messagesFile.exists()) {
-                    createDefaultMessagesFile();
+    // Copies the languages shipped in the jar to the data folder if missing
+    private void extractBundledMessages() {
+        for (String language : BUNDLED_LANGUAGES) {
+            String fileName = "messages_" + language + ".yml";
+            if (!new File(plugin.getDataFolder(), fileName).exists()) {
+                try {
+                    plugin.saveResource(fileName, false);
+                } catch (Exception e) {
+                    plugin.getLogger().warning("Could not extract " + fileName + ": " + e.getMessage());
                 }
             }
         }
-        messagesConfig = YamlConfiguration.loadConfiguration(messagesFile);
     }
 
-    private void createDefaultMessagesFile() {
-        messagesConfig = new YamlConfiguration();
+    private YamlConfiguration createDefaultMessagesFile() {
+        YamlConfiguration messagesConfig = new YamlConfiguration();
         // Set default messages
         messagesConfig.set("sell-success", "&aYou sold items for &e${total_price}&a!");
         messagesConfig.set("sell-failed", "&cFailed to sell items!");
@@ -79,61 +185,69 @@ public class ConfigManager {
         messagesConfig.set("cooldown-active", "&cPlease wait {cooldown} seconds before selling again!");
 
         try {
-            messagesConfig.save(messagesFile);
+            messagesConfig.save(new File(plugin.getDataFolder(), "messages_en.yml"));
         } catch (IOException e) {
             plugin.getLogger().severe("Could not create default messages file: " + e.getMessage());
         }
+        return messagesConfig;
     }
 
     // **แก้ไข: ปรับปรุงเมธอด saveNPCsConfig**
     public void saveNPCsConfig() {
-        if (npcsFile == null || npcsConfig == null) {
+        if (npcStorage == null || npcsConfig == null) {
             plugin.getLogger().warning("NPCs config not initialized, cannot save");
             return;
         }
 
         try {
             // สร้าง parent directory ถ้าไม่มี
-            if (!npcsFile.getParentFile().exists()) {
-                npcsFile.getParentFile().mkdirs();
+            if (!plugin.getDataFolder().exists()) {
+                plugin.getDataFolder().mkdirs();
             }
 
-            npcsConfig.save(npcsFile);
-            debugLog("Saved NPCs config to: " + npcsFile.getAbsolutePath());
+            npcStorage.save(npcsConfig);
+            debugLog(() -> "Saved NPCs config to: " + npcStorage.getLocation().getAbsolutePath());
 
         } catch (IOException e) {
-            plugin.getLogger().severe("Could not save npcs.yml: " + e.getMessage());
+            plugin.getLogger().severe("Could not save NPC definitions: " + e.getMessage());
             e.printStackTrace();
 
-            // พยายาม backup และ save อีกครั้ง
-            try {
-                String backupName = "npcs_backup_" + System.currentTimeMillis() + ".yml";
-                File backupFile = new File(plugin.getDataFolder(), backupName);
-                npcsConfig.save(backupFile);
-                plugin.getLogger().info("Created backup at: " + backupName);
-            } catch (IOException backupError) {
-                plugin.getLogger().severe("Failed to create backup: " + backupError.getMessage());
-            }
+            // Keep the unsaved definitions in a backup until the next successful save
+            backups.backup().exceptionally(backupError -> {
+                plugin.getLogger().severe("Failed to create backup: " + BackupService.rootMessage(backupError));
+                return null;
+            });
+        }
+    }
+
+    // Saves one NPC's definition; with sharded storage only its own file is rewritten
+    public void saveNPC(String npcId) {
+        try {
+            npcStorage.save(npcsConfig, npcId);
+            debugLog("Saved NPC definition: {}", npcId);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save NPC '" + npcId + "': " + e.getMessage());
         }
     }
 
     // **เพิ่ม: เมธอดสำหรับตรวจสอบไฟล์**
     public void validateConfigFiles() {
         // ตรวจสอบไฟล์ npcs.yml
-        if (!npcsFile.exists()) {
-            plugin.getLogger().warning("npcs.yml does not exist, creating new file");
+        if (!npcStorage.exists()) {
+            plugin.getLogger().warning("NPC storage does not exist, creating new file");
             npcsConfig = new YamlConfiguration();
             npcsConfig.set("npcs", new HashMap<>());
             saveNPCsConfig();
         }
 
         // ตรวจสอบว่าไฟล์อ่านได้
-        if (!npcsFile.canRead()) {
-            plugin.getLogger().severe("Cannot read npcs.yml file!");
+        File npcsLocation = npcStorage.getLocation();
+        if (!npcsLocation.canRead()) {
+            plugin.getLogger().severe("Cannot read " + npcsLocation.getName() + "!");
         }
 
-        if (!npcsFile.canWrite()) {
-            plugin.getLogger().severe("Cannot write to npcs.yml file!");
+        if (!npcsLocation.canWrite()) {
+            plugin.getLogger().severe("Cannot write to " + npcsLocation.getName() + "!");
         }
 
         debugLog("Config files validation completed");
@@ -142,9 +256,9 @@ public class ConfigManager {
     // **เพิ่ม: เมธอดสำหรับ force reload**
     public void forceReloadNPCs() {
         try {
-            if (npcsFile.exists()) {
-                npcsConfig = YamlConfiguration.loadConfiguration(npcsFile);
-                plugin.getLogger().info("Force reloaded npcs.yml");
+            if (npcStorage.exists()) {
+                npcsConfig = npcStorage.load();
+                plugin.getLogger().info("Force reloaded NPC definitions");
             }
         } catch (Exception e) {
             plugin.getLogger().severe("Error force reloading NPCs config: " + e.getMessage());
@@ -152,34 +266,96 @@ public class ConfigManager {
     }
 
     public void reloadConfigs() {
-        plugin.reloadConfig();
-        config = plugin.getConfig();
-        npcsConfig = YamlConfiguration.loadConfiguration(npcsFile);
-        loadMessagesConfig();
+        parseConfigs();
         clearCaches();
         validateConfigFiles(); // เพิ่มการตรวจสอบ
         plugin.getLogger().info("Configuration reloaded!");
     }
 
     private void clearCaches() {
-        priceCache.clear();
-        messageCache.clear();
+        configureDebugLog();
+        compilePriceTable();
+        effects = EffectRegistry.compile(config.getConfigurationSection("sounds"),
+                config.getConfigurationSection("particles"), plugin.getLogger());
+        compileMessages();
         categoryCache.clear();
     }
 
+    // When the plugin itself last wrote npcs.yml (the file watcher ignores its own writes)
+    public long getLastNPCsSave() {
+        return npcStorage != null ? npcStorage.getLastWrite() : 0L;
+    }
+
+    public NPCStorage getNPCStorage() {
+        return npcStorage;
+    }
+
     // Plugin Settings
     public boolean isPluginEnabled() {
         return config.getBoolean("plugin.enabled", true);
     }
 
     public boolean isDebugMode() {
-        return config.getBoolean("plugin.debug", false);
+        return debug;
+    }
+
+    public boolean isDebugLogFileEnabled() {
+        return config.getBoolean("plugin.debug-log.file", true);
+    }
+
+    public boolean isDebugLogConsoleEnabled() {
+        return config.getBoolean("plugin.debug-log.console", false);
+    }
+
+    public int getDebugLogMaxSizeMb() {
+        return config.getInt("plugin.debug-log.max-size-mb", 10);
+    }
+
+    public int getDebugLogMaxFiles() {
+        return config.getInt("plugin.debug-log.max-files", 5);
+    }
+
+    public int getDebugLogBufferSize() {
+        return config.getInt("plugin.debug-log.buffer-size", 8192);
+    }
+
+    public boolean isFileWatcherEnabled() {
+        return config.getBoolean("plugin.watch-files", false);
+    }
+
+    public int getFileWatcherDelayTicks() {
+        return config.getInt("plugin.watch-delay-ticks", 20);
+    }
+
+    public boolean isMetricsEnabled() {
+        return config.getBoolean("metrics.enabled", true);
+    }
+
+    public int getMetricsIntervalSeconds() {
+        return config.getInt("metrics.interval-seconds", 15);
+    }
+
+    public boolean isMetricsFileEnabled() {
+        return config.getBoolean("metrics.file", true);
+    }
+
+    public boolean isMetricsHttpEnabled() {
+        return config.getBoolean("metrics.http.enabled", false);
+    }
+
+    public int getMetricsHttpPort() {
+        return config.getInt("metrics.http.port", 9464);
     }
 
     public String getLanguage() {
         return config.getString("plugin.language", "en");
     }
 
+    // Pick each player's messages by their client locale instead of plugin.language
+    public boolean isPerPlayerLocaleEnabled() {
+        return config.getBoolean("plugin.per-player-locale", true);
+    }
+
     // NPC Settings
     public boolean isNPCSystemEnabled() {
         return config.getBoolean("npc.enabled", true);
@@ -193,6 +369,18 @@ public class ConfigManager {
         return config.getLong("npc.update-interval", 10);
     }
 
+    public int getSpawnQueuePerTick() {
+        return config.getInt("npc-spawn.per-tick", 5);
+    }
+
+    public long getSpawnQueueMaxMillis() {
+        return config.getLong("npc-spawn.max-millis-per-tick", 5);
+    }
+
+    public int getTransferBatchSize() {
+        return config.getInt("npc-transfer.batch-size", 200);
+    }
+
     // Effects Settings
     public boolean areParticlesEnabled() {
         return config.getBoolean("npc.effects.particles", true);
@@ -228,14 +416,61 @@ public class ConfigManager {
         return config.getBoolean("sell-system.limits.enabled", false);
     }
 
-    public double getDailyLimit() {
-        return config.getDouble("sell-system.limits.daily-limit", 10000.0);
+    public long getDailyLimit() {
+        return Money.fromDouble(config.getDouble("sell-system.limits.daily-limit", 10000.0));
     }
 
     public int getSellCooldown() {
         return config.getInt("sell-system.limits.cooldown", 30);
     }
 
+    public CooldownService.Scope getSellCooldownScope() {
+        String scope = config.getString("sell-system.limits.cooldown-scope", "player");
+        return "npc".equalsIgnoreCase(scope) ? CooldownService.Scope.NPC : CooldownService.Scope.PLAYER;
+    }
+
+    public long getActionCooldownMillis(String action) {
+        return (long) (config.getDouble("sell-system.limits.action-cooldowns." + action, 0.0) * 1000L);
+    }
+
+    // Auto-Sell Containers
+    public boolean isAutoSellEnabled() {
+        return config.getBoolean("sell-system.auto-sell.enabled", true);
+    }
+
+    public int getAutoSellIntervalTicks() {
+        return config.getInt("sell-system.auto-sell.interval-ticks", 20);
+    }
+
+    public int getAutoSellMaxStacksPerRun() {
+        return config.getInt("sell-system.auto-sell.max-stacks-per-run", 64);
+    }
+
+    public int getAutoSellMaxStacksPerContainer() {
+        return config.getInt("sell-system.auto-sell.max-stacks-per-container", 9);
+    }
+
+    // Dynamic Pricing
+    public boolean isDynamicPricingEnabled() {
+        return config.getBoolean("dynamic-pricing.enabled", false);
+    }
+
+    public long getDynamicPricingHalfLifeMillis() {
+        return (long) (config.getDouble("dynamic-pricing.recovery-half-life", 3600.0) * 1000L);
+    }
+
+    public int getDynamicPricingVolumePerStep() {
+        return config.getInt("dynamic-pricing.volume-per-step", 64);
+    }
+
+    public double getDynamicPricingDropPerStep() {
+        return config.getDouble("dynamic-pricing.drop-per-step", 0.05);
+    }
+
+    public double getDynamicPricingMinMultiplier() {
+        return config.getDouble("dynamic-pricing.min-multiplier", 0.25);
+    }
+
     public String getDailyResetTime() {
         return config.getString("sell-system.limits.reset-time", "00:00");
     }
@@ -274,60 +509,92 @@ public class ConfigManager {
         return config.getBoolean("sell-system.features.confirmation-dialog", true);
     }
 
+    public int getCatalogRefreshSeconds() {
+        return config.getInt("sell-system.gui.catalog-refresh-seconds", 30);
+    }
+
     public boolean isPriceComparisonEnabled() {
         return config.getBoolean("sell-system.features.price-comparison", true);
     }
 
     // Messages
-    public String getMessage(String path) {
-        String message = messageCache.get(path);
-        if (message != null) {
-            return message;
+    // Jar's English <- jar's default language <- built-in sell-system.messages
+    // <- default language <- every other language
+    private void compileMessages() {
+        String language = getLanguage().toLowerCase();
+        YamlConfiguration defaultFile = messageFiles.get(language);
+        if (defaultFile == null) {
+            plugin.getLogger().warning("No messages_" + language + ".yml found, using English messages");
+            language = "en";
+            defaultFile = messageFiles.get(language);
         }
 
-        // Try to get from messages file first
-        if (messagesConfig != null && messagesConfig.contains(path)) {
-            message = messagesConfig.getString(path);
-        } else {
-            // Fallback to main config
-            message = config.getString("sell-system.messages." + path, "Message not found: " + path);
+        MessageCatalog bundled = MessageCatalog.compile("en", bundledMessageFiles.get("en"), null);
+        if (!language.equals("en") && bundledMessageFiles.containsKey(language)) {
+            bundled = MessageCatalog.compile(language, bundledMessageFiles.get(language), bundled);
+        }
+        MessageCatalog base = MessageCatalog.compile("config", config.getConfigurationSection("sell-system.messages"), bundled);
+        MessageCatalog defaults = MessageCatalog.compile(language, defaultFile, base);
+
+        Map<String, MessageCatalog> catalogs = new HashMap<>();
+        catalogs.put(language, defaults);
+        for (Map.Entry<String, YamlConfiguration> entry : messageFiles.entrySet()) {
+            if (!catalogs.containsKey(entry.getKey())) {
+                catalogs.put(entry.getKey(), MessageCatalog.compile(entry.getKey(), entry.getValue(), defaults));
+            }
         }
 
-        message = ChatColor.translateAlternateColorCodes('&', message);
-        messageCache.put(path, message);
-        return message;
-    }
-
-    public String getSellSuccessMessage() {
-        return getMessage("sell-success");
-    }
-
-    public String getSellFailedMessage() {
-        return getMessage("sell-failed");
+        defaultMessages = defaults;
+        messageCatalogs = catalogs;
+        localeCatalogs.clear();
     }
 
-    public String getNoItemsMessage() {
-        return getMessage("no-items");
+    // Messages in plugin.language
+    public MessageCatalog getMessages() {
+        return defaultMessages;
     }
 
-    public String getNPCDisabledMessage() {
-        return getMessage("npc-disabled");
+    // Messages for the sender's client locale ("th_th" uses messages_th_th.yml, then messages_th.yml)
+    public MessageCatalog getMessages(CommandSender sender) {
+        if (!(sender instanceof Player) || !isPerPlayerLocaleEnabled()) {
+            return defaultMessages;
+        }
+        String locale = ((Player) sender).getLocale();
+        if (locale == null || locale.isEmpty()) {
+            return defaultMessages;
+        }
+        MessageCatalog catalog = localeCatalogs.get(locale);
+        if (catalog != null) {
+            return catalog;
+        }
+        catalog = resolveCatalog(locale);
+        if (catalog == null) {
+            return defaultMessages;
+        }
+        localeCatalogs.put(locale, catalog);
+        return catalog;
     }
 
-    public String getDailyLimitReachedMessage() {
-        return getMessage("daily-limit-reached");
+    // null when neither the locale nor its language has a messages file
+    private MessageCatalog resolveCatalog(String locale) {
+        String key = locale.toLowerCase();
+        MessageCatalog catalog = messageCatalogs.get(key);
+        if (catalog == null && key.indexOf('_') > 0) {
+            catalog = messageCatalogs.get(key.substring(0, key.indexOf('_')));
+        }
+        return catalog;
     }
 
-    public String getCooldownActiveMessage() {
-        return getMessage("cooldown-active");
+    public Set<String> getAvailableLanguages() {
+        return Collections.unmodifiableSet(messageCatalogs.keySet());
     }
 
-    public String getConfirmationRequiredMessage() {
-        return getMessage("confirmation-required");
+    public String getMessage(String path) {
+        return defaultMessages.get(path).getText();
     }
 
-    public String getCategorySoldMessage() {
-        return getMessage("category-sold");
+    public String getItemName(Material material) {
+        return defaultMessages.getItemName(material);
     }
 
     // Item Categories
@@ -352,20 +619,78 @@ public class ConfigManager {
         return "misc";
     }
 
-    // Item Prices
-    public double getItemPrice(String itemType) {
-        Double price = priceCache.get(itemType);
-        if (price != null) {
-            return price;
-        }
+    // Item Prices (Money minor units)
+    private void compilePriceTable() {
+        itemPrices = PriceTable.compile(config.getConfigurationSection("item-prices"),
+                plugin.getLogger(), "item-prices");
+        priceSchedule = PriceSchedule.compile(config.getConfigurationSection("price-schedule"),
+                this::getItemCategory, plugin.getLogger());
+        metaPriceRules = MetaPriceRules.compile(config.getConfigurationSection("item-pricing-rules"),
+                plugin.getLogger());
+        priceVersion++;
+    }
+
+    // Changes every time prices are recompiled
+    public int getPriceVersion() {
+        return priceVersion;
+    }
+
+    public long getItemPrice(String itemType) {
+        Material material = Material.getMaterial(itemType);
+        return material != null ? getItemPrice(material) : 0L;
+    }
+
+    // Scheduled events are applied on top of item-prices
+    public long getItemPrice(Material material) {
+        return getItemPrice(null, material);
+    }
+
+    public long getItemPrice(String npcId, Material material) {
+        return applyPriceSchedule(npcId, material, itemPrices.get(material));
+    }
 
-        price = config.getDouble("item-prices." + itemType, 0.0);
-        priceCache.put(itemType, price);
-        return price;
+    // For prices that do not come from item-prices, such as NPC custom prices
+    public long applyPriceSchedule(String npcId, Material material, long basePrice) {
+        return priceSchedule.apply(npcId, material, basePrice, System.currentTimeMillis());
+    }
+
+    public MetaPriceRules getMetaPriceRules() {
+        return metaPriceRules;
+    }
+
+    public boolean hasPriceSchedule() {
+        return !priceSchedule.isEmpty();
+    }
+
+    // When the set of active scheduled events next changes
+    public long getPriceScheduleNextChange(long now) {
+        return priceSchedule.getNextChange(now);
+    }
+
+    public List<Material> getPriceScheduleMaterials() {
+        return priceSchedule.getOverrideMaterials();
+    }
+
+    // Best-buyer routing
+    public boolean isBestBuyerRoutingEnabled() {
+        return config.getBoolean("sell-system.features.best-buyer-routing.enabled", false);
+    }
+
+    public double getBestBuyerRoutingRange() {
+        return config.getDouble("sell-system.features.best-buyer-routing.range", 32.0);
+    }
+
+    public List<String> getActivePriceEvents() {
+        return priceSchedule.getActiveEvents(System.currentTimeMillis());
     }
 
     public boolean hasItemPrice(String itemType) {
-        return config.contains("item-prices." + itemType);
+        Material material = Material.getMaterial(itemType);
+        return material != null && itemPrices.contains(material);
+    }
+
+    public PriceTable getItemPrices() {
+        return itemPrices;
     }
 
     // NPC Skin Support
@@ -381,26 +706,17 @@ public class ConfigManager {
         return config.getString("npc-skins.custom-skins." + npcId, getDefaultSkin());
     }
 
-    // Sound Effects
-    public String getSound(String soundType) {
-        return config.getString("sounds." + soundType, "UI_BUTTON_CLICK");
+    // Sound & Particle Effects (resolved once per load)
+    public EffectSpec getSound(String soundType) {
+        return effects.getSound(soundType);
     }
 
-    // Particle Effects
-    public String getParticleType(String particleType) {
-        return config.getString("particles." + particleType + ".type", "VILLAGER_HAPPY");
+    public EffectSpec getParticle(String particleType) {
+        return effects.getParticle(particleType);
     }
 
-    public int getParticleCount(String particleType) {
-        return config.getInt("particles." + particleType + ".count", 10);
-    }
-
-    public double getParticleOffset(String particleType) {
-        return config.getDouble("particles." + particleType + ".offset", 0.5);
-    }
-
-    public int getParticleInterval(String particleType) {
-        return config.getInt("particles." + particleType + ".interval", 100);
+    public EffectRegistry getEffects() {
+        return effects;
     }
 
     // Hologram Settings
@@ -457,91 +773,138 @@ public class ConfigManager {
         return npcsConfig.getBoolean("npcs." + npcId + ".settings.custom-prices", false);
     }
 
-    public double getNPCItemPrice(String npcId, String itemType) {
-        return npcsConfig.getDouble("npcs." + npcId + ".item-prices." + itemType, 0.0);
+    public PriceTable compileNPCPriceTable(String npcId) {
+        return PriceTable.compile(npcsConfig.getConfigurationSection("npcs." + npcId + ".item-prices"),
+                plugin.getLogger(), "item-prices of NPC " + npcId);
     }
 
     public List<String> getNPCCustomCommands(String npcId) {
         return npcsConfig.getStringList("npcs." + npcId + ".custom-commands");
     }
 
-    // **เพิ่ม: เมธอดสำหรับการ backup**
-    public boolean createBackup() {
-        try {
-            String backupName = "config_backup_" + System.currentTimeMillis() + ".yml";
-            File backupDir = new File(plugin.getDataFolder(), "backups");
+    // Backups (see BackupService)
+    public BackupService getBackups() {
+        return backups;
+    }
 
-            if (!backupDir.exists()) {
-                backupDir.mkdirs();
-            }
+    public boolean isAutoBackupEnabled() {
+        return npcsConfig.getBoolean("global-settings.backup.auto-backup", true);
+    }
 
-            File configBackup = new File(backupDir, "config_" + backupName);
-            File npcsBackup = new File(backupDir, "npcs_" + backupName);
+    public long getBackupIntervalSeconds() {
+        return npcsConfig.getLong("global-settings.backup.backup-interval", 3600);
+    }
 
-            config.save(configBackup);
-            npcsConfig.save(npcsBackup);
+    public int getMaxBackups() {
+        return npcsConfig.getInt("global-settings.backup.max-backups", 5);
+    }
 
-            plugin.getLogger().info("Configuration backup created: " + backupName);
-            return true;
+    public int getBackupRetentionDays() {
+        return npcsConfig.getInt("global-settings.backup.retention-days", 7);
+    }
+
+    public CompletableFuture<String> createBackup() {
+        return backups.backup();
+    }
 
+    // Writes the files read from a backup back to disk; the caller reloads afterwards
+    // Only writes the files; the loaded config is left alone so that the following
+    // NPCManager.reloadNPCs() still diffs the restored definitions against the old ones
+    public boolean restoreFromBackup(Map<String, String> files) {
+        try {
+            for (Map.Entry<String, String> entry : files.entrySet()) {
+                if (entry.getKey().equals("npcs.yml")) {
+                    YamlConfiguration restored = new YamlConfiguration();
+                    restored.loadFromString(entry.getValue());
+                    npcStorage.save(restored);
+                } else {
+                    File target = new File(plugin.getDataFolder(), entry.getKey());
+                    Files.write(target.toPath(), entry.getValue().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return true;
         } catch (Exception e) {
-            plugin.getLogger().severe("Failed to create backup: " + e.getMessage());
+            plugin.getLogger().severe("Failed to restore from backup: " + e.getMessage());
             return false;
         }
     }
 
-    // **เพิ่ม: เมธอดสำหรับการ restore**
-    public boolean restoreFromBackup(String backupName) {
-        try {
-            File backupDir = new File(plugin.getDataFolder(), "backups");
-            File configBackup = new File(backupDir, "config_" + backupName);
-            File npcsBackup = new File(backupDir, "npcs_" + backupName);
+    public List<String> getAvailableBackups() {
+        return backups.list();
+    }
 
-            if (!configBackup.exists() || !npcsBackup.exists()) {
-                plugin.getLogger().warning("Backup files not found: " + backupName);
-                return false;
-            }
+    // Utility Methods
+    // The {} overloads and the supplier build nothing unless debug is on; prefer
+    // them to concatenation on hot paths. Arguments are formatted later on the
+    // debug log thread, so pass values (names, ids, numbers), not live objects.
+    public void debugLog(String message) {
+        if (debug) {
+            writeDebug(message, null, null, null, 0);
+        }
+    }
 
-            // Load from backup
-            config = YamlConfiguration.loadConfiguration(configBackup);
-            npcsConfig = YamlConfiguration.loadConfiguration(npcsBackup);
+    public void debugLog(String pattern, Object a) {
+        if (debug) {
+            writeDebug(pattern, a, null, null, 1);
+        }
+    }
 
-            // Save as current config
-            config.save(new File(plugin.getDataFolder(), "config.yml"));
-            npcsConfig.save(npcsFile);
+    public void debugLog(String pattern, Object a, Object b) {
+        if (debug) {
+            writeDebug(pattern, a, b, null, 2);
+        }
+    }
 
-            clearCaches();
-            plugin.getLogger().info("Configuration restored from backup: " + backupName);
-            return true;
+    public void debugLog(String pattern, Object a, Object b, Object c) {
+        if (debug) {
+            writeDebug(pattern, a, b, c, 3);
+        }
+    }
 
-        } catch (Exception e) {
-            plugin.getLogger().severe("Failed to restore from backup: " + e.getMessage());
-            return false;
+    public void debugLog(Supplier<String> message) {
+        if (debug) {
+            writeDebug(message.get(), null, null, null, 0);
         }
     }
 
-    // **เพิ่ม: เมธอดสำหรับรายการ backup**
-    public List<String> getAvailableBackups() {
-        File backupDir = new File(plugin.getDataFolder(), "backups");
-        List<String> backups = new java.util.ArrayList<>();
+    private void writeDebug(String pattern, Object a, Object b, Object c, int argCount) {
+        DebugLog file = debugFile;
+        if (file != null) {
+            file.append(pattern, a, b, c, argCount);
+        }
+        if (file == null || debugConsole) {
+            plugin.getLogger().info("[DEBUG] " + DebugLog.format(pattern, a, b, c, argCount));
+        }
+    }
 
-        if (backupDir.exists() && backupDir.isDirectory()) {
-            for (File file : backupDir.listFiles()) {
-                String name = file.getName();
-                if (name.startsWith("config_") && name.endsWith(".yml")) {
-                    String backupName = name.substring(7, name.length() - 4);
-                    backups.add(backupName);
-                }
-            }
+    // The file appender is only restarted when its settings change
+    private void configureDebugLog() {
+        debug = config.getBoolean("plugin.debug", false);
+        debugConsole = isDebugLogConsoleEnabled();
+        String settings = debug && isDebugLogFileEnabled()
+                ? getDebugLogBufferSize() + ":" + getDebugLogMaxSizeMb() + ":" + getDebugLogMaxFiles()
+                : null;
+        if (Objects.equals(settings, debugFileSettings)) {
+            return;
         }
 
-        return backups;
+        closeDebugLog();
+        if (settings != null) {
+            DebugLog file = new DebugLog(plugin, getDebugLogBufferSize(),
+                    getDebugLogMaxSizeMb() * 1024L * 1024L, getDebugLogMaxFiles());
+            file.start();
+            debugFile = file;
+            debugFileSettings = settings;
+        }
     }
 
-    // Utility Methods
-    public void debugLog(String message) {
-        if (isDebugMode()) {
-            plugin.getLogger().info("[DEBUG] " + message);
+    // Flushes and closes logs/debug.log; on disable
+    public void closeDebugLog() {
+        DebugLog file = debugFile;
+        debugFile = null;
+        debugFileSettings = null;
+        if (file != null) {
+            file.close();
         }
     }
 
@@ -555,11 +918,11 @@ public class ConfigManager {
     }
 
     public void invalidatePriceCache() {
-        priceCache.clear();
+        compilePriceTable();
     }
 
     public void invalidateMessageCache() {
-        messageCache.clear();
+        compileMessages();
     }
 
     // **เพิ่ม: เมธอดสำหรับตรวจสอบ config integrity**
@@ -606,7 +969,7 @@ public class ConfigManager {
     // **เพิ่ม: เมธอดสำหรับ cleanup cache เก่า**
     public void cleanupOldCaches() {
         // ลบ cache entries ที่ไม่ได้ใช้
-        priceCache.entrySet().removeIf(entry -> !hasItemPrice(entry.getKey()));
+        compilePriceTable();
 
         debugLog("Cleaned up old cache entries");
     }
@@ -615,11 +978,13 @@ public class ConfigManager {
     public Map<String, Object> getConfigStats() {
         Map<String, Object> stats = new HashMap<>();
 
-        stats.put("cached_prices", priceCache.size());
-        stats.put("cached_messages", messageCache.size());
+        stats.put("cached_prices", itemPrices.size());
+        stats.put("cached_messages", defaultMessages.size());
+        stats.put("message_languages", messageCatalogs.size());
         stats.put("cached_categories", categoryCache.size());
         stats.put("config_file_size", new File(plugin.getDataFolder(), "config.yml").length());
-        stats.put("npcs_file_size", npcsFile.length());
+        stats.put("npc_storage", npcStorage.getMode().name().toLowerCase());
+        stats.put("npcs_file_size", npcStorage.getSize());
         stats.put("debug_mode", isDebugMode());
         stats.put("language", getLanguage());
 
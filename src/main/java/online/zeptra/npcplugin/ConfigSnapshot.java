@@ -0,0 +1,83 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Leaf values of a configuration section keyed by their full relative path,
+// used to work out what a reload actually changed.
+public final class ConfigSnapshot {
+    private final Map<String, Object> values;
+
+    private ConfigSnapshot(Map<String, Object> values) {
+        this.values = values;
+    }
+
+    public static ConfigSnapshot of(ConfigurationSection section) {
+        Map<String, Object> values = new HashMap<>();
+        if (section != null) {
+            for (String key : section.getKeys(true)) {
+                if (!section.isConfigurationSection(key)) {
+                    values.put(key, section.get(key));
+                }
+            }
+        }
+        return new ConfigSnapshot(values);
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    // Paths that were added, removed or changed between the two snapshots
+    public Set<String> diff(ConfigSnapshot other) {
+        if (other == null) {
+            return new HashSet<>(values.keySet());
+        }
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (!Objects.equals(entry.getValue(), other.values.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String key : other.values.keySet()) {
+            if (!values.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+        return changed;
+    }
+
+    // True if every path lies under one of the prefixes (also true for no paths)
+    public static boolean touchesOnly(Set<String> paths, String... prefixes) {
+        for (String path : paths) {
+            boolean matched = false;
+            for (String prefix : prefixes) {
+                if (path.equals(prefix) || path.startsWith(prefix + ".")) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // True if any path equals one of the prefixes or lies below it
+    public static boolean touches(Set<String> paths, String... prefixes) {
+        for (String path : paths) {
+            for (String prefix : prefixes) {
+                if (path.equals(prefix) || path.startsWith(prefix + ".")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
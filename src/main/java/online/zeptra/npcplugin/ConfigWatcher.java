@@ -0,0 +1,130 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+// Watches the data folder (plugin.watch-files) and runs the incremental reload
+// on the main thread once edits to config.yml, the NPC definitions or a messages
+// file have settled for watch-delay-ticks. The plugin's own NPC saves are ignored.
+public class ConfigWatcher {
+    private static final long SELF_WRITE_GRACE_MILLIS = 2000L;
+
+    private final JavaPlugin plugin;
+    private final ConfigManager config;
+    private final Runnable reload;
+
+    private WatchService watchService;
+    private Thread thread;
+    private BukkitTask pending;
+    private Path shardFolder;
+
+    public ConfigWatcher(JavaPlugin plugin, ConfigManager config, Runnable reload) {
+        this.plugin = plugin;
+        this.config = config;
+        this.reload = reload;
+    }
+
+    public void start() {
+        stop();
+        if (!config.isFileWatcherEnabled()) {
+            return;
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            plugin.getDataFolder().toPath().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            // Sharded NPC storage keeps its files in a sub folder
+            File npcFolder = config.getNPCStorage().getLocation();
+            if (npcFolder.isDirectory()) {
+                shardFolder = npcFolder.toPath();
+                shardFolder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not watch the plugin folder: " + e.getMessage());
+            return;
+        }
+
+        WatchService service = watchService;
+        thread = new Thread(() -> watch(service), "NPCPlugin-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        config.debugLog("Watching {} for config changes", plugin.getDataFolder());
+    }
+
+    public void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+            watchService = null;
+        }
+        thread = null;
+
+        synchronized (this) {
+            if (pending != null) {
+                pending.cancel();
+                pending = null;
+            }
+        }
+    }
+
+    private void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean relevant = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path
+                            && isWatched(key.watchable(), ((Path) event.context()).toString())) {
+                        relevant = true;
+                    }
+                }
+                key.reset();
+
+                if (relevant) {
+                    scheduleReload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    private boolean isWatched(Object folder, String fileName) {
+        boolean shard = folder.equals(shardFolder);
+        if (shard || fileName.equals("npcs.yml")) {
+            return fileName.endsWith(".yml")
+                    && System.currentTimeMillis() - config.getLastNPCsSave() > SELF_WRITE_GRACE_MILLIS;
+        }
+        return fileName.equals("config.yml") || (fileName.startsWith("messages_") && fileName.endsWith(".yml"));
+    }
+
+    // Editors often write a file several times; only the last write triggers the reload
+    private synchronized void scheduleReload() {
+        if (pending != null) {
+            pending.cancel();
+        }
+        pending = Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            synchronized (this) {
+                pending = null;
+            }
+            plugin.getLogger().info("Config files changed, reloading...");
+            reload.run();
+        }, Math.max(1, config.getFileWatcherDelayTicks()));
+    }
+}
@@ -0,0 +1,336 @@
+package online.zeptra.npcplugin;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Cooldowns kept in a hashed timing wheel with primitive storage.
+// Lookups go through an open-addressing index and never box or allocate;
+// tick() purges only the wheel slots that elapsed since the previous tick.
+// Main thread only.
+public class CooldownService {
+
+    public enum Scope {
+        PLAYER,  // one cooldown per player
+        NPC,     // one cooldown per player and NPC
+        ACTION   // one cooldown per player and action (button, command...)
+    }
+
+    private static final int WHEEL_SIZE = 512;         // must be a power of two
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final long SLOT_MILLIS = 50L;       // one server tick per slot
+    private static final int NONE = -1;
+
+    // Interned scope keys: scope key 0 is reserved for Scope.PLAYER
+    private final Map<String, Integer>[] scopeKeys;
+    private int nextScopeKey = 1;
+
+    // Entry storage (indexed by entry id)
+    private long[] keyMost;
+    private long[] keyLeast;
+    private int[] keyScope;
+    private long[] deadlines;
+    private int[] wheelNext;
+    private int[] wheelPrev;
+    private int freeHead = NONE;
+    private int highWater = 0;
+    private int size = 0;
+
+    // Open-addressing index: stores entry id + 1, 0 means empty
+    private int[] table;
+
+    // Timing wheel: head entry id for every slot
+    private final int[] buckets = new int[WHEEL_SIZE];
+    private long cursorMillis;
+    private long clock;
+
+    @SuppressWarnings("unchecked")
+    public CooldownService(int initialCapacity) {
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, initialCapacity - 1)) << 1);
+
+        this.scopeKeys = new Map[Scope.values().length];
+        for (int i = 0; i < scopeKeys.length; i++) {
+            scopeKeys[i] = new HashMap<>();
+        }
+
+        allocateEntries(capacity);
+        this.table = new int[capacity * 2];
+        Arrays.fill(buckets, NONE);
+
+        this.clock = System.currentTimeMillis();
+        this.cursorMillis = clock;
+    }
+
+    // Called once per server tick: refreshes the cached clock and purges passed slots
+    public void tick() {
+        clock = System.currentTimeMillis();
+
+        int processed = 0;
+        while (cursorMillis <= clock && processed < WHEEL_SIZE) {
+            expireSlot((int) ((cursorMillis / SLOT_MILLIS) & WHEEL_MASK));
+            cursorMillis += SLOT_MILLIS;
+            processed++;
+        }
+
+        // After a long stall one full revolution has covered every slot
+        if (cursorMillis <= clock) {
+            cursorMillis = clock + SLOT_MILLIS;
+        }
+    }
+
+    public boolean isActive(UUID player, Scope scope, String key) {
+        return getRemainingMillis(player, scope, key) > 0;
+    }
+
+    public long getRemainingMillis(UUID player, Scope scope, String key) {
+        int scopeKey = lookupScopeKey(scope, key);
+        if (scopeKey < 0) {
+            return 0;
+        }
+
+        int entry = find(player.getMostSignificantBits(), player.getLeastSignificantBits(), scopeKey);
+        if (entry == NONE) {
+            return 0;
+        }
+
+        return Math.max(0, deadlines[entry] - clock);
+    }
+
+    public void set(UUID player, Scope scope, String key, long durationMillis) {
+        if (durationMillis <= 0) {
+            clear(player, scope, key);
+            return;
+        }
+
+        int scopeKey = internScopeKey(scope, key);
+        long most = player.getMostSignificantBits();
+        long least = player.getLeastSignificantBits();
+        long deadline = clock + durationMillis;
+
+        int entry = find(most, least, scopeKey);
+        if (entry != NONE) {
+            unlinkFromWheel(entry);
+        } else {
+            entry = allocateEntry();
+            keyMost[entry] = most;
+            keyLeast[entry] = least;
+            keyScope[entry] = scopeKey;
+            insertIntoIndex(entry);
+            size++;
+        }
+
+        deadlines[entry] = deadline;
+        linkIntoWheel(entry);
+    }
+
+    public void clear(UUID player, Scope scope, String key) {
+        int scopeKey = lookupScopeKey(scope, key);
+        if (scopeKey < 0) {
+            return;
+        }
+
+        int entry = find(player.getMostSignificantBits(), player.getLeastSignificantBits(), scopeKey);
+        if (entry != NONE) {
+            release(entry);
+        }
+    }
+
+    // Removes every cooldown of a player regardless of scope
+    public void clearAll(UUID player) {
+        long most = player.getMostSignificantBits();
+        long least = player.getLeastSignificantBits();
+
+        for (int entry = 0; entry < highWater; entry++) {
+            if (deadlines[entry] != Long.MIN_VALUE && keyMost[entry] == most && keyLeast[entry] == least) {
+                release(entry);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(buckets, NONE);
+        Arrays.fill(deadlines, Long.MIN_VALUE);
+        freeHead = NONE;
+        highWater = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long currentTimeMillis() {
+        return clock;
+    }
+
+    // Scope keys
+    private int lookupScopeKey(Scope scope, String key) {
+        if (scope == Scope.PLAYER) {
+            return 0;
+        }
+        Integer id = scopeKeys[scope.ordinal()].get(key);
+        return id != null ? id : -1;
+    }
+
+    private int internScopeKey(Scope scope, String key) {
+        if (scope == Scope.PLAYER) {
+            return 0;
+        }
+        Integer id = scopeKeys[scope.ordinal()].get(key);
+        if (id == null) {
+            id = nextScopeKey++;
+            scopeKeys[scope.ordinal()].put(key, id);
+        }
+        return id;
+    }
+
+    // Index
+    private static int hash(long most, long least, int scopeKey) {
+        long h = most * 0x9E3779B97F4A7C15L ^ least ^ ((long) scopeKey << 32);
+        h ^= (h >>> 33);
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= (h >>> 33);
+        return (int) h;
+    }
+
+    private int find(long most, long least, int scopeKey) {
+        int mask = table.length - 1;
+        int slot = hash(most, least, scopeKey) & mask;
+
+        while (true) {
+            int stored = table[slot];
+            if (stored == 0) {
+                return NONE;
+            }
+            int entry = stored - 1;
+            if (keyMost[entry] == most && keyLeast[entry] == least && keyScope[entry] == scopeKey) {
+                return entry;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insertIntoIndex(int entry) {
+        int mask = table.length - 1;
+        int slot = hash(keyMost[entry], keyLeast[entry], keyScope[entry]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry + 1;
+    }
+
+    private void removeFromIndex(int entry) {
+        int mask = table.length - 1;
+        int slot = hash(keyMost[entry], keyLeast[entry], keyScope[entry]) & mask;
+        while (table[slot] != entry + 1) {
+            slot = (slot + 1) & mask;
+        }
+
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (table[next] != 0) {
+            int candidate = table[next] - 1;
+            int home = hash(keyMost[candidate], keyLeast[candidate], keyScope[candidate]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = 0;
+    }
+
+    // Entry pool
+    private void allocateEntries(int capacity) {
+        keyMost = new long[capacity];
+        keyLeast = new long[capacity];
+        keyScope = new int[capacity];
+        deadlines = new long[capacity];
+        wheelNext = new int[capacity];
+        wheelPrev = new int[capacity];
+        Arrays.fill(deadlines, Long.MIN_VALUE);
+    }
+
+    private int allocateEntry() {
+        if (freeHead != NONE) {
+            int entry = freeHead;
+            freeHead = wheelNext[entry];
+            return entry;
+        }
+
+        if (highWater == keyMost.length) {
+            grow();
+        }
+        return highWater++;
+    }
+
+    private void grow() {
+        int capacity = keyMost.length * 2;
+        keyMost = Arrays.copyOf(keyMost, capacity);
+        keyLeast = Arrays.copyOf(keyLeast, capacity);
+        keyScope = Arrays.copyOf(keyScope, capacity);
+        wheelNext = Arrays.copyOf(wheelNext, capacity);
+        wheelPrev = Arrays.copyOf(wheelPrev, capacity);
+
+        long[] grownDeadlines = Arrays.copyOf(deadlines, capacity);
+        Arrays.fill(grownDeadlines, deadlines.length, capacity, Long.MIN_VALUE);
+        deadlines = grownDeadlines;
+
+        table = new int[capacity * 2];
+        for (int entry = 0; entry < highWater; entry++) {
+            if (deadlines[entry] != Long.MIN_VALUE) {
+                insertIntoIndex(entry);
+            }
+        }
+    }
+
+    private void release(int entry) {
+        unlinkFromWheel(entry);
+        removeFromIndex(entry);
+        deadlines[entry] = Long.MIN_VALUE;
+        wheelNext[entry] = freeHead;
+        freeHead = entry;
+        size--;
+    }
+
+    // Timing wheel
+    private void linkIntoWheel(int entry) {
+        int slot = (int) ((deadlines[entry] / SLOT_MILLIS) & WHEEL_MASK);
+        int head = buckets[slot];
+        wheelPrev[entry] = NONE;
+        wheelNext[entry] = head;
+        if (head != NONE) {
+            wheelPrev[head] = entry;
+        }
+        buckets[slot] = entry;
+    }
+
+    private void unlinkFromWheel(int entry) {
+        int prev = wheelPrev[entry];
+        int next = wheelNext[entry];
+
+        if (prev != NONE) {
+            wheelNext[prev] = next;
+        } else {
+            buckets[(int) ((deadlines[entry] / SLOT_MILLIS) & WHEEL_MASK)] = next;
+        }
+        if (next != NONE) {
+            wheelPrev[next] = prev;
+        }
+    }
+
+    private void expireSlot(int slot) {
+        int entry = buckets[slot];
+        while (entry != NONE) {
+            int next = wheelNext[entry];
+            // Entries due in a later revolution stay in the bucket
+            if (deadlines[entry] <= clock) {
+                release(entry);
+            }
+            entry = next;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Debug output written off the main thread. Callers claim a slot in a fixed ring
+// with one CAS and leave the message unformatted; a daemon thread drains the
+// ring every DRAIN_MILLIS, formats each entry as one JSON line and appends it to
+// logs/debug.log, rolling the file over at max-size and keeping max-files old
+// ones (debug.log.1 is the newest). A full ring drops entries instead of making
+// the caller wait; the number dropped is written to the log when space returns.
+public class DebugLog {
+    private static final long DRAIN_MILLIS = 200L;
+
+    private final JavaPlugin plugin;
+    private final File file;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final AtomicReferenceArray<Entry> ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long head;
+    private volatile boolean running;
+
+    private Thread writerThread;
+    private BufferedWriter writer;
+    private long written;
+
+    // capacity is rounded up to a power of two
+    public DebugLog(JavaPlugin plugin, int capacity, long maxBytes, int maxFiles) {
+        this.plugin = plugin;
+        this.file = new File(new File(plugin.getDataFolder(), "logs"), "debug.log");
+        this.maxBytes = Math.max(1024L, maxBytes);
+        this.maxFiles = Math.max(0, maxFiles);
+        int size = Integer.highestOneBit(Math.max(64, capacity));
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::drainLoop, "NPCPlugin-DebugLog");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // Writes what is still queued and closes the file
+    public void close() {
+        running = false;
+        if (writerThread == null) {
+            return;
+        }
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(5000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    // Any thread; args are formatted on the writer thread, so pass values
+    // (names, ids, numbers), not live objects that may change meanwhile
+    public void append(String pattern, Object a, Object b, Object c, int argCount) {
+        Entry entry = new Entry(System.currentTimeMillis(), Thread.currentThread().getName(),
+                pattern, a, b, c, argCount);
+        while (true) {
+            long slot = tail.get();
+            if (slot - head >= ring.length()) {
+                dropped.increment();
+                return;
+            }
+            if (tail.compareAndSet(slot, slot + 1)) {
+                ring.lazySet((int) (slot & mask), entry);
+                return;
+            }
+        }
+    }
+
+    private void drainLoop() {
+        try {
+            open();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not open " + file + ": " + e.getMessage());
+            running = false;
+            return;
+        }
+
+        StringBuilder line = new StringBuilder(256);
+        while (true) {
+            boolean stopping = !running;
+            try {
+                drain(line);
+                writer.flush();
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not write the debug log: " + e.getMessage());
+            }
+            if (stopping) {
+                break;
+            }
+            LockSupport.parkNanos(DRAIN_MILLIS * 1_000_000L);
+        }
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not close the debug log: " + e.getMessage());
+        }
+    }
+
+    // Stops at a slot that was claimed but not yet filled; the next pass picks it up
+    private void drain(StringBuilder line) throws IOException {
+        long position = head;
+        while (true) {
+            int index = (int) (position & mask);
+            Entry entry = ring.get(index);
+            if (entry == null) {
+                break;
+            }
+            ring.lazySet(index, null);
+            position++;
+            head = position;
+            write(line, entry);
+        }
+
+        long lost = dropped.sumThenReset();
+        if (lost > 0) {
+            write(line, new Entry(System.currentTimeMillis(), "DebugLog",
+                    "Debug log buffer full, dropped {} entries", lost, null, null, 1));
+        }
+    }
+
+    private void write(StringBuilder line, Entry entry) throws IOException {
+        line.setLength(0);
+        line.append("{\"time\":\"").append(Instant.ofEpochMilli(entry.time)).append("\",\"thread\":\"");
+        escape(line, entry.thread);
+        line.append("\",\"message\":\"");
+        escape(line, format(entry.pattern, entry.a, entry.b, entry.c, entry.argCount));
+        line.append("\"}\n");
+
+        // max-size is in bytes; Thai text is three bytes per char in the file
+        int bytes = utf8Length(line);
+        if (written > 0 && written + bytes > maxBytes) {
+            rotate();
+        }
+        writer.append(line);
+        written += bytes;
+    }
+
+    private void open() throws IOException {
+        File directory = file.getParentFile();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        written = file.length();
+        writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                StandardCharsets.UTF_8));
+    }
+
+    // debug.log -> debug.log.1 -> ... -> debug.log.<max-files>, the oldest is deleted
+    private void rotate() throws IOException {
+        writer.close();
+        File directory = file.getParentFile();
+        if (maxFiles == 0) {
+            Files.deleteIfExists(file.toPath());
+        } else {
+            Files.deleteIfExists(new File(directory, file.getName() + "." + maxFiles).toPath());
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                File from = new File(directory, file.getName() + "." + i);
+                if (from.exists()) {
+                    Files.move(from.toPath(), new File(directory, file.getName() + "." + (i + 1)).toPath(),
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(file.toPath(), new File(directory, file.getName() + ".1").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        open();
+    }
+
+    // Replaces each {} in the pattern with the next argument
+    static String format(String pattern, Object a, Object b, Object c, int argCount) {
+        if (argCount == 0) {
+            return pattern;
+        }
+        StringBuilder out = new StringBuilder(pattern.length() + 32);
+        int arg = 0;
+        int from = 0;
+        int at;
+        while (arg < argCount && (at = pattern.indexOf("{}", from)) >= 0) {
+            out.append(pattern, from, at).append(arg == 0 ? a : arg == 1 ? b : c);
+            arg++;
+            from = at + 2;
+        }
+        return out.append(pattern, from, pattern.length()).toString();
+    }
+
+    // Encoded size of the text, counted without building the byte array
+    static int utf8Length(CharSequence text) {
+        int bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch < 0x80) {
+                bytes++;
+            } else if (ch < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(ch) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static void escape(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (ch < 0x20) {
+                        out.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        out.append(ch);
+                    }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final long time;
+        private final String thread;
+        private final String pattern;
+        private final Object a;
+        private final Object b;
+        private final Object c;
+        private final int argCount;
+
+        private Entry(long time, String thread, String pattern, Object a, Object b, Object c, int argCount) {
+            this.time = time;
+            this.thread = thread;
+            this.pattern = pattern;
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.argCount = argCount;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Material;
+
+import java.util.Arrays;
+
+// Supply/demand price multipliers per material.
+// Each material keeps a sell-pressure accumulator and the time it was last
+// touched; decay is applied lazily when the value is read or updated, so there
+// is no periodic pass over all materials. Main thread only.
+public class DynamicPricing {
+    private static final int MATERIAL_COUNT = Material.values().length;
+
+    private final ConfigManager config;
+    private final double[] pressure = new double[MATERIAL_COUNT];
+    private final long[] updatedAt = new long[MATERIAL_COUNT];
+
+    // Settings cached on reload
+    private boolean enabled;
+    private double decayPerMilli;
+    private double dropPerItem;
+    private double minMultiplier;
+
+    public DynamicPricing(ConfigManager config) {
+        this.config = config;
+        reload();
+    }
+
+    public void reload() {
+        this.enabled = config.isDynamicPricingEnabled();
+        this.decayPerMilli = Math.log(2) / Math.max(1L, config.getDynamicPricingHalfLifeMillis());
+        this.dropPerItem = config.getDynamicPricingDropPerStep() / Math.max(1, config.getDynamicPricingVolumePerStep());
+        this.minMultiplier = Math.min(1.0, Math.max(0.0, config.getDynamicPricingMinMultiplier()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void recordSale(Material material, int amount, long now) {
+        if (!enabled) {
+            return;
+        }
+
+        int ordinal = material.ordinal();
+        pressure[ordinal] = decayed(ordinal, now) + amount;
+        updatedAt[ordinal] = now;
+    }
+
+    public long apply(Material material, long basePrice, long now) {
+        if (!enabled || basePrice <= 0) {
+            return basePrice;
+        }
+        return Money.scale(basePrice, getMultiplier(material, now));
+    }
+
+    public double getMultiplier(Material material, long now) {
+        if (!enabled) {
+            return 1.0;
+        }
+
+        double current = decayed(material.ordinal(), now);
+        return Math.max(minMultiplier, 1.0 - current * dropPerItem);
+    }
+
+    public void clear() {
+        Arrays.fill(pressure, 0.0);
+        Arrays.fill(updatedAt, 0L);
+    }
+
+    private double decayed(int ordinal, long now) {
+        double value = pressure[ordinal];
+        if (value == 0.0) {
+            return 0.0;
+        }
+
+        long elapsed = now - updatedAt[ordinal];
+        if (elapsed <= 0) {
+            return value;
+        }
+
+        value *= Math.exp(-decayPerMilli * elapsed);
+        // Drop the tail so recovered materials skip the exp call next time
+        if (value < 0.01) {
+            pressure[ordinal] = 0.0;
+            return 0.0;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,114 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Particle;
+import org.bukkit.Sound;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.EntityType;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+// Sounds (sounds.*), particles (particles.*) and NPC entity types resolved from
+// their names once per config load. Invalid names are reported a single time
+// and resolve to EffectSpec.NONE (or VILLAGER for entity types).
+public class EffectRegistry {
+    private static final String DEFAULT_SOUND = "UI_BUTTON_CLICK";
+    private static final String DEFAULT_PARTICLE = "VILLAGER_HAPPY";
+
+    private final Logger logger;
+    private final Map<String, EffectSpec> sounds = new HashMap<>();
+    private final Map<String, EffectSpec> particles = new HashMap<>();
+    private final Map<String, EntityType> entityTypes = new HashMap<>();
+    private final Set<String> reported = new HashSet<>();
+    private final EffectSpec defaultSound;
+    private final EffectSpec defaultParticle;
+
+    private EffectRegistry(Logger logger) {
+        this.logger = logger;
+        this.defaultSound = resolveSound("default", DEFAULT_SOUND);
+        this.defaultParticle = resolveParticle("default", DEFAULT_PARTICLE, 10, 0.5, 100);
+    }
+
+    public static EffectRegistry compile(ConfigurationSection soundSection, ConfigurationSection particleSection,
+                                         Logger logger) {
+        EffectRegistry registry = new EffectRegistry(logger);
+
+        if (soundSection != null) {
+            for (String key : soundSection.getKeys(false)) {
+                registry.sounds.put(key, registry.resolveSound(key, soundSection.getString(key, DEFAULT_SOUND)));
+            }
+        }
+
+        if (particleSection != null) {
+            for (String key : particleSection.getKeys(false)) {
+                ConfigurationSection section = particleSection.getConfigurationSection(key);
+                if (section == null) {
+                    continue;
+                }
+                registry.particles.put(key, registry.resolveParticle(key,
+                        section.getString("type", DEFAULT_PARTICLE), section.getInt("count", 10),
+                        section.getDouble("offset", 0.5), section.getInt("interval", 100)));
+            }
+        }
+
+        return registry;
+    }
+
+    // Configured sound, or the default click for keys missing from config.yml
+    public EffectSpec getSound(String key) {
+        return sounds.getOrDefault(key, defaultSound);
+    }
+
+    public EffectSpec getParticle(String key) {
+        return particles.getOrDefault(key, defaultParticle);
+    }
+
+    // Entity types come from npcs.yml; each distinct name is resolved once
+    public EntityType getEntityType(String name) {
+        return entityTypes.computeIfAbsent(name.toUpperCase(Locale.ROOT), upper -> {
+            try {
+                return EntityType.valueOf(upper);
+            } catch (IllegalArgumentException e) {
+                report("Unknown entity type '" + name + "', using VILLAGER");
+                return EntityType.VILLAGER;
+            }
+        });
+    }
+
+    private EffectSpec resolveSound(String key, String name) {
+        try {
+            return EffectSpec.sound(key, Sound.valueOf(name.toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            report("Unknown sound '" + name + "' for sounds." + key + ", it will not play");
+            return EffectSpec.NONE;
+        }
+    }
+
+    private EffectSpec resolveParticle(String key, String name, int count, double offset, int interval) {
+        Particle particle;
+        try {
+            particle = Particle.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            report("Unknown particle '" + name + "' for particles." + key + ", it will not play");
+            return EffectSpec.NONE;
+        }
+
+        // Particles such as DUST need extra data and would fail on every spawn
+        if (particle.getDataType() != Void.class) {
+            report("Particle '" + name + "' for particles." + key + " needs extra data and is not supported");
+            return EffectSpec.NONE;
+        }
+
+        return EffectSpec.particle(key, particle, Math.max(0, count), Math.max(0.0, offset), Math.max(1, interval));
+    }
+
+    private void report(String message) {
+        if (reported.add(message)) {
+            logger.warning(message);
+        }
+    }
+}
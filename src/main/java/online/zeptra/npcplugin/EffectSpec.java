@@ -0,0 +1,72 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.Sound;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+// A sound or particle effect from config.yml, resolved once when the config is
+// compiled (see EffectRegistry). Playing an effect never parses names or throws;
+// an effect that failed to resolve simply does nothing.
+public final class EffectSpec {
+    public static final EffectSpec NONE = new EffectSpec("none", null, null, 0, 0.0, 0);
+
+    private final String name;
+    private final Sound sound;
+    private final Particle particle;
+    private final int count;
+    private final double offset;
+    private final int interval;
+
+    private EffectSpec(String name, Sound sound, Particle particle, int count, double offset, int interval) {
+        this.name = name;
+        this.sound = sound;
+        this.particle = particle;
+        this.count = count;
+        this.offset = offset;
+        this.interval = interval;
+    }
+
+    public static EffectSpec sound(String name, Sound sound) {
+        return new EffectSpec(name, sound, null, 0, 0.0, 0);
+    }
+
+    public static EffectSpec particle(String name, Particle particle, int count, double offset, int interval) {
+        return new EffectSpec(name, null, particle, count, offset, interval);
+    }
+
+    public String getName() { return name; }
+    public Sound getSound() { return sound; }
+    public Particle getParticle() { return particle; }
+    public int getCount() { return count; }
+    public double getOffset() { return offset; }
+    // Ticks between repeats, for repeating effects such as npc-idle
+    public int getInterval() { return interval; }
+
+    public boolean isEmpty() {
+        return sound == null && particle == null;
+    }
+
+    // Plays the sound to one player at their location
+    public void play(Player player, float volume, float pitch) {
+        if (sound != null) {
+            player.playSound(player.getLocation(), sound, volume, pitch);
+        }
+    }
+
+    // Plays the sound to everyone nearby
+    public void play(Location location, float volume, float pitch) {
+        World world = location.getWorld();
+        if (sound != null && world != null) {
+            world.playSound(location, sound, volume, pitch);
+        }
+    }
+
+    public void spawn(Location location) {
+        World world = location.getWorld();
+        if (particle != null && world != null) {
+            world.spawnParticle(particle, location, count, offset, offset, offset, 0);
+        }
+    }
+}
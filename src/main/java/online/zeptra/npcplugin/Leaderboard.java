@@ -0,0 +1,112 @@
+package online.zeptra.npcplugin;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Bounded top-K ranking. Only the best K keys are kept, so every update is
+// O(log K) no matter how many players or NPCs exist.
+// Scores must be cumulative: a key that fell off the board comes back with its
+// full total the next time it is updated. Main thread only.
+public class Leaderboard<K> {
+
+    public static final class Entry<K> {
+        private final K key;
+        private String name;
+        private long score;
+        private long sequence;
+
+        private Entry(K key) {
+            this.key = key;
+        }
+
+        public K getKey() { return key; }
+        public String getName() { return name; }
+        public long getScore() { return score; }
+    }
+
+    // Higher score first; on equal scores whoever got there first stays ahead
+    private static final Comparator<Entry<?>> ORDER = (a, b) -> {
+        int byScore = Long.compare(b.score, a.score);
+        return byScore != 0 ? byScore : Long.compare(a.sequence, b.sequence);
+    };
+
+    private final int capacity;
+    private final Map<K, Entry<K>> members = new HashMap<>();
+    private final TreeSet<Entry<K>> ranking = new TreeSet<>(ORDER);
+    private long nextSequence;
+
+    public Leaderboard(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    // Returns true if the key is on the board after the update
+    public boolean update(K key, String name, long score) {
+        Entry<K> entry = members.get(key);
+
+        if (entry != null) {
+            ranking.remove(entry);
+        } else {
+            if (score <= 0) {
+                return false;
+            }
+            if (members.size() >= capacity) {
+                Entry<K> last = ranking.last();
+                if (score <= last.score) {
+                    return false;
+                }
+                ranking.pollLast();
+                members.remove(last.key);
+            }
+            entry = new Entry<>(key);
+            members.put(key, entry);
+        }
+
+        entry.name = name;
+        entry.score = score;
+        entry.sequence = nextSequence++;
+        ranking.add(entry);
+        return true;
+    }
+
+    public void remove(K key) {
+        Entry<K> entry = members.remove(key);
+        if (entry != null) {
+            ranking.remove(entry);
+        }
+    }
+
+    public List<Entry<K>> getTop(int limit) {
+        List<Entry<K>> top = new ArrayList<>(Math.min(limit, ranking.size()));
+        Iterator<Entry<K>> iterator = ranking.iterator();
+        while (iterator.hasNext() && top.size() < limit) {
+            top.add(iterator.next());
+        }
+        return top;
+    }
+
+    public Entry<K> getFirst() {
+        return ranking.isEmpty() ? null : ranking.first();
+    }
+
+    public boolean contains(K key) {
+        return members.containsKey(key);
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void clear() {
+        members.clear();
+        ranking.clear();
+    }
+}
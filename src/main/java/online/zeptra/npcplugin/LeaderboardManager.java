@@ -0,0 +1,232 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Daily and all-time seller rankings, global and per NPC, plus the NPC ranking
+// that /npc stats shows. Boards are updated when a sale commits and read as-is,
+// so nothing here ever scans players or NPCs. Persisted to leaderboards.yml.
+public class LeaderboardManager {
+
+    public enum Period {
+        DAILY,
+        ALL_TIME
+    }
+
+    private final JavaPlugin plugin;
+    private final PlayerDataManager playerDataManager;
+    private final File file;
+    private final int size;
+
+    private final Leaderboard<UUID>[] sellers;
+    private final Leaderboard<String>[] npcs;
+    private final Map<String, Leaderboard<UUID>[]> npcSellers = new HashMap<>();
+
+    // NPC sale totals: index 0 = today, 1 = all time
+    private final Map<String, long[]> npcSoldAmounts = new HashMap<>();
+
+    private LocalDate day;
+    private boolean dirty;
+
+    public LeaderboardManager(JavaPlugin plugin, PlayerDataManager playerDataManager) {
+        this.plugin = plugin;
+        this.playerDataManager = playerDataManager;
+        this.file = new File(plugin.getDataFolder(), "leaderboards.yml");
+        this.size = Math.max(1, plugin.getConfig().getInt("leaderboards.size", 10));
+        this.sellers = newBoards();
+        this.npcs = newBoards();
+        this.day = LocalDate.now();
+        load();
+    }
+
+    // Called after the sale has been added to the player's data
+    public void recordSale(Player player, String npcId, long amount) {
+        checkDay();
+
+        UUID uuid = player.getUniqueId();
+        String name = player.getName();
+
+        long[] npcSold = npcSoldAmounts.computeIfAbsent(npcId, id -> new long[2]);
+        npcSold[0] += amount;
+        npcSold[1] += amount;
+
+        sellers[0].update(uuid, name, playerDataManager.getDailySoldAmount(player));
+        sellers[1].update(uuid, name, playerDataManager.getTotalSoldAmount(player));
+        npcs[0].update(npcId, npcId, npcSold[0]);
+        npcs[1].update(npcId, npcId, npcSold[1]);
+
+        Leaderboard<UUID>[] boards = getNPCBoards(npcId);
+        boards[0].update(uuid, name, playerDataManager.getNPCDailySoldAmount(player, npcId));
+        boards[1].update(uuid, name, playerDataManager.getNPCTotalSoldAmount(player, npcId));
+
+        dirty = true;
+    }
+
+    public List<Leaderboard.Entry<UUID>> getTopSellers(Period period, int limit) {
+        checkDay();
+        return sellers[period.ordinal()].getTop(limit);
+    }
+
+    public List<Leaderboard.Entry<UUID>> getTopSellers(String npcId, Period period, int limit) {
+        checkDay();
+        Leaderboard<UUID>[] boards = npcSellers.get(npcId);
+        return boards != null ? boards[period.ordinal()].getTop(limit) : List.of();
+    }
+
+    public Leaderboard.Entry<UUID> getTopSeller(String npcId, Period period) {
+        checkDay();
+        Leaderboard<UUID>[] boards = npcSellers.get(npcId);
+        return boards != null ? boards[period.ordinal()].getFirst() : null;
+    }
+
+    public List<Leaderboard.Entry<String>> getTopNPCs(Period period, int limit) {
+        checkDay();
+        return npcs[period.ordinal()].getTop(limit);
+    }
+
+    public long getNPCSoldAmount(String npcId, Period period) {
+        checkDay();
+        long[] npcSold = npcSoldAmounts.get(npcId);
+        return npcSold != null ? npcSold[period.ordinal()] : 0L;
+    }
+
+    public void removeNPC(String npcId) {
+        npcSellers.remove(npcId);
+        npcSoldAmounts.remove(npcId);
+        npcs[0].remove(npcId);
+        npcs[1].remove(npcId);
+        dirty = true;
+    }
+
+    public void resetDaily() {
+        this.day = LocalDate.now();
+        sellers[0].clear();
+        npcs[0].clear();
+        for (Leaderboard<UUID>[] boards : npcSellers.values()) {
+            boards[0].clear();
+        }
+        for (long[] npcSold : npcSoldAmounts.values()) {
+            npcSold[0] = 0L;
+        }
+        dirty = true;
+    }
+
+    private void checkDay() {
+        if (!day.equals(LocalDate.now())) {
+            resetDaily();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K> Leaderboard<K>[] newBoards() {
+        return new Leaderboard[] { new Leaderboard<K>(size), new Leaderboard<K>(size) };
+    }
+
+    private Leaderboard<UUID>[] getNPCBoards(String npcId) {
+        Leaderboard<UUID>[] boards = npcSellers.get(npcId);
+        if (boards == null) {
+            boards = newBoards();
+            npcSellers.put(npcId, boards);
+        }
+        return boards;
+    }
+
+    // Persistence
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        boolean today = yaml.getLong("day", -1L) == day.toEpochDay();
+
+        if (today) {
+            loadSellers(yaml.getConfigurationSection("sellers.daily"), sellers[0]);
+        }
+        loadSellers(yaml.getConfigurationSection("sellers.all-time"), sellers[1]);
+
+        ConfigurationSection npcSection = yaml.getConfigurationSection("npcs");
+        if (npcSection == null) {
+            return;
+        }
+
+        for (String npcId : npcSection.getKeys(false)) {
+            long[] npcSold = new long[] {
+                    today ? npcSection.getLong(npcId + ".daily-sold") : 0L,
+                    npcSection.getLong(npcId + ".total-sold")
+            };
+            npcSoldAmounts.put(npcId, npcSold);
+            npcs[0].update(npcId, npcId, npcSold[0]);
+            npcs[1].update(npcId, npcId, npcSold[1]);
+
+            Leaderboard<UUID>[] boards = getNPCBoards(npcId);
+            if (today) {
+                loadSellers(npcSection.getConfigurationSection(npcId + ".daily"), boards[0]);
+            }
+            loadSellers(npcSection.getConfigurationSection(npcId + ".all-time"), boards[1]);
+        }
+    }
+
+    private void loadSellers(ConfigurationSection section, Leaderboard<UUID> board) {
+        if (section == null) {
+            return;
+        }
+
+        for (String key : section.getKeys(false)) {
+            try {
+                UUID uuid = UUID.fromString(key);
+                board.update(uuid, section.getString(key + ".name", key), section.getLong(key + ".score"));
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Invalid UUID in leaderboards.yml: " + key);
+            }
+        }
+    }
+
+    public void save() {
+        if (!dirty) {
+            return;
+        }
+
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("day", day.toEpochDay());
+        saveSellers(yaml, "sellers.daily", sellers[0]);
+        saveSellers(yaml, "sellers.all-time", sellers[1]);
+
+        for (Map.Entry<String, long[]> entry : npcSoldAmounts.entrySet()) {
+            String path = "npcs." + entry.getKey();
+            yaml.set(path + ".daily-sold", entry.getValue()[0]);
+            yaml.set(path + ".total-sold", entry.getValue()[1]);
+
+            Leaderboard<UUID>[] boards = npcSellers.get(entry.getKey());
+            if (boards != null) {
+                saveSellers(yaml, path + ".daily", boards[0]);
+                saveSellers(yaml, path + ".all-time", boards[1]);
+            }
+        }
+
+        try {
+            yaml.save(file);
+            dirty = false;
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save leaderboards: " + e.getMessage());
+        }
+    }
+
+    private void saveSellers(YamlConfiguration yaml, String path, Leaderboard<UUID> board) {
+        for (Leaderboard.Entry<UUID> entry : board.getTop(board.size())) {
+            String entryPath = path + "." + entry.getKey();
+            yaml.set(entryPath + ".name", entry.getName());
+            yaml.set(entryPath + ".score", entry.getScore());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A message with its color codes already translated and its {placeholders}
+// split out at load time, so rendering is one pass over the parts.
+// Placeholders without a value are left as written.
+public final class Message {
+    // literals[i] comes before keys[i]; the last literal follows the last key
+    private final String[] literals;
+    private final String[] keys;
+    private final String text;
+
+    private Message(String[] literals, String[] keys, String text) {
+        this.literals = literals;
+        this.keys = keys;
+        this.text = text;
+    }
+
+    public static Message compile(String raw) {
+        String colored = ChatColor.translateAlternateColorCodes('&', raw);
+        List<String> literals = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+
+        int start = 0;
+        int open = colored.indexOf('{');
+        while (open >= 0) {
+            int close = colored.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+            String key = colored.substring(open + 1, close);
+            if (!isKey(key)) {
+                open = colored.indexOf('{', open + 1);
+                continue;
+            }
+            literals.add(colored.substring(start, open));
+            keys.add(key);
+            start = close + 1;
+            open = colored.indexOf('{', start);
+        }
+        literals.add(colored.substring(start));
+
+        return new Message(literals.toArray(new String[0]), keys.toArray(new String[0]), colored);
+    }
+
+    private static boolean isKey(String key) {
+        if (key.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The colored message with placeholders untouched
+    public String getText() {
+        return text;
+    }
+
+    public boolean hasPlaceholders() {
+        return keys.length > 0;
+    }
+
+    public String format(String key, Object value) {
+        return format(new Object[]{key, value});
+    }
+
+    // Placeholder values as name/value pairs: format("price", "1.00", "item", "Diamond")
+    public String format(Object... pairs) {
+        if (keys.length == 0) {
+            return text;
+        }
+
+        StringBuilder builder = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < keys.length; i++) {
+            builder.append(literals[i]);
+            Object value = find(keys[i], pairs);
+            if (value != null) {
+                builder.append(value);
+            } else {
+                builder.append('{').append(keys[i]).append('}');
+            }
+        }
+        return builder.append(literals[keys.length]).toString();
+    }
+
+    private static Object find(String key, Object[] pairs) {
+        for (int i = 0; i + 1 < pairs.length; i += 2) {
+            if (key.equals(pairs[i])) {
+                return pairs[i + 1];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,102 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// All messages of one messages_<language>.yml, compiled once per load. Keys the
+// file does not define are inherited from the fallback catalog (the default
+// language, which itself falls back to sell-system.messages in config.yml and
+// then to the messages files shipped in the jar).
+// Item display names are a table indexed by Material ordinal: title-cased enum
+// names, overridden by the file's item-names section (e.g. DIAMOND: "เพชร").
+public final class MessageCatalog {
+    private static volatile String[] defaultItemNames;
+
+    private final String language;
+    private final Map<String, Message> messages;
+    private final String[] itemNames;
+
+    private MessageCatalog(String language, Map<String, Message> messages, String[] itemNames) {
+        this.language = language;
+        this.messages = messages;
+        this.itemNames = itemNames;
+    }
+
+    public static MessageCatalog compile(String language, ConfigurationSection source, MessageCatalog fallback) {
+        Map<String, Message> messages = fallback != null ? new HashMap<>(fallback.messages) : new HashMap<>();
+        String[] itemNames = (fallback != null ? fallback.itemNames : getDefaultItemNames()).clone();
+
+        if (source != null) {
+            for (String key : source.getKeys(false)) {
+                if (source.isString(key)) {
+                    messages.put(key, Message.compile(source.getString(key)));
+                }
+            }
+
+            ConfigurationSection names = source.getConfigurationSection("item-names");
+            if (names != null) {
+                for (String name : names.getKeys(false)) {
+                    Material material = Material.getMaterial(name.toUpperCase());
+                    if (material != null && names.isString(name)) {
+                        itemNames[material.ordinal()] =
+                                ChatColor.translateAlternateColorCodes('&', names.getString(name));
+                    }
+                }
+            }
+        }
+
+        return new MessageCatalog(language, messages, itemNames);
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    // Never null; unknown keys render as "Message not found: <key>"
+    public Message get(String key) {
+        Message message = messages.get(key);
+        return message != null ? message : Message.compile("Message not found: " + key);
+    }
+
+    public String getItemName(Material material) {
+        return itemNames[material.ordinal()];
+    }
+
+    public int size() {
+        return messages.size();
+    }
+
+    private static String[] getDefaultItemNames() {
+        String[] names = defaultItemNames;
+        if (names == null) {
+            Material[] materials = Material.values();
+            names = new String[materials.length];
+            for (Material material : materials) {
+                names[material.ordinal()] = titleCase(material.name());
+            }
+            defaultItemNames = names;
+        }
+        return names;
+    }
+
+    // DIAMOND_SWORD -> Diamond Sword
+    private static String titleCase(String name) {
+        StringBuilder builder = new StringBuilder(name.length());
+        boolean upper = true;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '_') {
+                builder.append(' ');
+                upper = true;
+            } else {
+                builder.append(upper ? c : Character.toLowerCase(c));
+                upper = false;
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,151 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.ChatColor;
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.EnchantmentStorageMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+// Price multipliers from item meta (item-pricing-rules in config.yml):
+// enchantments, custom model data and display name. Results are not cached:
+// getItemMeta() clones the meta, so any key built from it costs about as much
+// as evaluating the rules. Instead, items without meta (and every item when no
+// rule is configured) return before the meta is fetched.
+public class MetaPriceRules {
+
+    private static final class NameRule {
+        private final String contains;
+        private final double multiplier;
+
+        private NameRule(String contains, double multiplier) {
+            this.contains = contains;
+            this.multiplier = multiplier;
+        }
+    }
+
+    private final boolean enabled;
+    private final double enchantmentPerLevel;
+    private final Map<Enchantment, Double> enchantmentBonuses;
+    private final Map<Integer, Double> customModelData;
+    private final List<NameRule> nameRules;
+
+    private MetaPriceRules(boolean enabled, double enchantmentPerLevel, Map<Enchantment, Double> enchantmentBonuses,
+                           Map<Integer, Double> customModelData, List<NameRule> nameRules) {
+        // Rules that can never change a price leave the feature off
+        this.enabled = enabled && (enchantmentPerLevel != 0.0 || !enchantmentBonuses.isEmpty()
+                || !customModelData.isEmpty() || !nameRules.isEmpty());
+        this.enchantmentPerLevel = enchantmentPerLevel;
+        this.enchantmentBonuses = enchantmentBonuses;
+        this.customModelData = customModelData;
+        this.nameRules = nameRules;
+    }
+
+    public static MetaPriceRules disabled() {
+        return new MetaPriceRules(false, 0.0, new HashMap<>(), new HashMap<>(), new ArrayList<>());
+    }
+
+    public static MetaPriceRules compile(ConfigurationSection section, Logger logger) {
+        if (section == null || !section.getBoolean("enabled", false)) {
+            return disabled();
+        }
+
+        double perLevel = section.getDouble("enchantments.per-level", 0.0);
+
+        Map<Enchantment, Double> bonuses = new HashMap<>();
+        ConfigurationSection specific = section.getConfigurationSection("enchantments.specific");
+        if (specific != null) {
+            for (String key : specific.getKeys(false)) {
+                Enchantment enchantment = Enchantment.getByKey(NamespacedKey.minecraft(key.toLowerCase(Locale.ROOT)));
+                if (enchantment == null) {
+                    logger.warning("Unknown enchantment '" + key + "' in item-pricing-rules, ignoring");
+                    continue;
+                }
+                bonuses.put(enchantment, specific.getDouble(key));
+            }
+        }
+
+        Map<Integer, Double> modelData = new HashMap<>();
+        ConfigurationSection modelSection = section.getConfigurationSection("custom-model-data");
+        if (modelSection != null) {
+            for (String key : modelSection.getKeys(false)) {
+                try {
+                    modelData.put(Integer.parseInt(key), modelSection.getDouble(key));
+                } catch (NumberFormatException e) {
+                    logger.warning("Invalid custom model data '" + key + "' in item-pricing-rules, ignoring");
+                }
+            }
+        }
+
+        List<NameRule> nameRules = new ArrayList<>();
+        ConfigurationSection nameSection = section.getConfigurationSection("display-names");
+        if (nameSection != null) {
+            for (String key : nameSection.getKeys(false)) {
+                nameRules.add(new NameRule(key.toLowerCase(Locale.ROOT), nameSection.getDouble(key)));
+            }
+        }
+
+        return new MetaPriceRules(true, perLevel, bonuses, modelData, nameRules);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getMultiplier(ItemStack item) {
+        if (!enabled || !item.hasItemMeta()) {
+            return 1.0;
+        }
+
+        return evaluate(item.getItemMeta());
+    }
+
+    private double evaluate(ItemMeta meta) {
+        double multiplier = 1.0;
+
+        // Enchantments add to the base price: 1 + sum(level * bonus)
+        double enchantBonus = 0.0;
+        if (meta.hasEnchants()) {
+            enchantBonus += enchantmentBonus(meta.getEnchants());
+        }
+        if (meta instanceof EnchantmentStorageMeta && ((EnchantmentStorageMeta) meta).hasStoredEnchants()) {
+            enchantBonus += enchantmentBonus(((EnchantmentStorageMeta) meta).getStoredEnchants());
+        }
+        multiplier *= 1.0 + enchantBonus;
+
+        if (meta.hasCustomModelData()) {
+            Double modelMultiplier = customModelData.get(meta.getCustomModelData());
+            if (modelMultiplier != null) {
+                multiplier *= modelMultiplier;
+            }
+        }
+
+        if (meta.hasDisplayName() && !nameRules.isEmpty()) {
+            String name = ChatColor.stripColor(meta.getDisplayName()).toLowerCase(Locale.ROOT);
+            for (NameRule rule : nameRules) {
+                if (name.contains(rule.contains)) {
+                    multiplier *= rule.multiplier;
+                }
+            }
+        }
+
+        return Math.max(0.0, multiplier);
+    }
+
+    private double enchantmentBonus(Map<Enchantment, Integer> enchants) {
+        double bonus = 0.0;
+        for (Map.Entry<Enchantment, Integer> entry : enchants.entrySet()) {
+            double perLevel = enchantmentBonuses.getOrDefault(entry.getKey(), enchantmentPerLevel);
+            bonus += perLevel * entry.getValue();
+        }
+        return bonus;
+    }
+}
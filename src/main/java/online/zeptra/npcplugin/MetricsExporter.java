@@ -0,0 +1,129 @@
+package online.zeptra.npcplugin;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Publishes the metrics registry for Prometheus. A main-thread task samples the
+// gauges every metrics.interval-seconds and the text is written to metrics.prom
+// off the main thread (for node_exporter's textfile collector or similar). The
+// optional HTTP endpoint listens on the loopback address only and serves
+// /metrics from its own thread.
+public class MetricsExporter {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final JavaPlugin plugin;
+    private final ConfigManager config;
+    private final MetricsRegistry registry;
+    private final File file;
+    private final TickProfiler profiler;
+
+    private BukkitTask task;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    public MetricsExporter(JavaPlugin plugin, ConfigManager config, MetricsRegistry registry, TickProfiler profiler) {
+        this.plugin = plugin;
+        this.config = config;
+        this.registry = registry;
+        this.profiler = profiler;
+        this.file = new File(plugin.getDataFolder(), "metrics.prom");
+    }
+
+    public void start() {
+        stop();
+        if (!config.isMetricsEnabled()) {
+            return;
+        }
+
+        boolean writeFile = config.isMetricsFileEnabled();
+        Runnable sample = profiler.wrap("metrics-sample", () -> {
+            registry.sample();
+            if (writeFile) {
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, this::writeFile);
+            }
+        });
+        long interval = Math.max(1, config.getMetricsIntervalSeconds()) * 20L;
+        task = Bukkit.getScheduler().runTaskTimer(plugin, sample, 0L, interval);
+
+        if (config.isMetricsHttpEnabled()) {
+            startServer(config.getMetricsHttpPort());
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (serverExecutor != null) {
+            serverExecutor.shutdownNow();
+            serverExecutor = null;
+        }
+    }
+
+    private void startServer(int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not start the metrics endpoint on port " + port + ": " + e.getMessage());
+            return;
+        }
+
+        serverExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NPCPlugin-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(serverExecutor);
+        server.createContext("/metrics", this::handle);
+        server.start();
+        plugin.getLogger().info("Metrics available at http://127.0.0.1:" + port + "/metrics");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Written next to the target and moved over it, so readers never see half a file
+    private void writeFile() {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            Files.write(temp.toPath(), registry.render().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            config.debugLog("Could not write metrics.prom: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package online.zeptra.npcplugin;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+// Counters, gauges and histograms rendered in the Prometheus text format.
+// Recording is lock-free (LongAdder / AtomicLongArray), so it is safe from any
+// thread and cheap on the main thread. Gauges are read from their supplier by
+// sample(), which runs on the main thread; render() only reads stored values and
+// may run anywhere (the metrics file writer, the HTTP endpoint).
+public class MetricsRegistry {
+    // Seconds; suits command dispatch and file saves alike
+    public static final double[] LATENCY_BUCKETS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5
+    };
+
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    public Counter counter(String name, String help) {
+        return (Counter) metrics.computeIfAbsent(name, key -> new Counter(key, help));
+    }
+
+    public Gauge gauge(String name, String help, DoubleSupplier supplier) {
+        return (Gauge) metrics.computeIfAbsent(name, key -> new Gauge(key, help, supplier));
+    }
+
+    public Histogram histogram(String name, String help, double[] buckets) {
+        return (Histogram) metrics.computeIfAbsent(name, key -> new Histogram(key, help, buckets));
+    }
+
+    // Main thread: refreshes every gauge from its supplier
+    public void sample() {
+        for (Metric metric : metrics.values()) {
+            if (metric instanceof Gauge) {
+                ((Gauge) metric).sample();
+            }
+        }
+    }
+
+    public String render() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Metric metric : new TreeMap<>(metrics).values()) {
+            out.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+            out.append("# TYPE ").append(metric.name).append(' ').append(metric.type()).append('\n');
+            metric.render(out);
+        }
+        return out.toString();
+    }
+
+    private static String number(double value) {
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private abstract static class Metric {
+        final String name;
+        final String help;
+
+        Metric(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        abstract String type();
+
+        abstract void render(StringBuilder out);
+    }
+
+    public static final class Counter extends Metric {
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name, String help) {
+            super(name, help);
+        }
+
+        public void inc() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        String type() {
+            return "counter";
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append(name).append(' ').append(value.sum()).append('\n');
+        }
+    }
+
+    public static final class Gauge extends Metric {
+        private final DoubleSupplier supplier;
+        private volatile double value;
+
+        private Gauge(String name, String help, DoubleSupplier supplier) {
+            super(name, help);
+            this.supplier = supplier;
+        }
+
+        private void sample() {
+            value = supplier.getAsDouble();
+        }
+
+        @Override
+        String type() {
+            return "gauge";
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append(name).append(' ').append(number(value)).append('\n');
+        }
+    }
+
+    // Durations in nanoseconds, exposed in seconds
+    public static final class Histogram extends Metric {
+        private final double[] bounds;
+        private final long[] boundNanos;
+        // One slot per bucket plus +Inf; not cumulative until rendered
+        private final AtomicLongArray counts;
+        private final LongAdder sumNanos = new LongAdder();
+
+        private Histogram(String name, String help, double[] bounds) {
+            super(name, help);
+            this.bounds = bounds.clone();
+            this.boundNanos = new long[bounds.length];
+            for (int i = 0; i < bounds.length; i++) {
+                boundNanos[i] = (long) (bounds[i] * 1_000_000_000L);
+            }
+            this.counts = new AtomicLongArray(bounds.length + 1);
+        }
+
+        // start is the System.nanoTime() taken when the work began
+        public void observeSince(long start) {
+            observeNanos(System.nanoTime() - start);
+        }
+
+        public void observeNanos(long nanos) {
+            int bucket = 0;
+            while (bucket < boundNanos.length && nanos > boundNanos[bucket]) {
+                bucket++;
+            }
+            counts.incrementAndGet(bucket);
+            sumNanos.add(nanos);
+        }
+
+        @Override
+        String type() {
+            return "histogram";
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            long cumulative = 0L;
+            for (int i = 0; i <= bounds.length; i++) {
+                cumulative += counts.get(i);
+                out.append(name).append("_bucket{le=\"")
+                        .append(i < bounds.length ? number(bounds[i]) : "+Inf")
+                        .append("\"} ").append(cumulative).append('\n');
+            }
+            out.append(name).append("_sum ").append(number(sumNanos.sum() / 1_000_000_000.0)).append('\n');
+            out.append(name).append("_count ").append(cumulative).append('\n');
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package online.zeptra.npcplugin;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fixed-point currency helpers. Amounts are plain longs holding minor units
+// (cents), so sums never drift and nothing needs boxing.
+public final class Money {
+    public static final int SCALE = 100; // minor units per major unit
+
+    private Money() {
+    }
+
+    public static long of(long major) {
+        return Math.multiplyExact(major, SCALE);
+    }
+
+    // Rounds half-up to the nearest minor unit; used for config values
+    public static long fromDouble(double amount) {
+        return Math.round(amount * SCALE);
+    }
+
+    public static double toDouble(long minor) {
+        return (double) minor / SCALE;
+    }
+
+    public static long times(long unitPrice, int amount) {
+        return Math.multiplyExact(unitPrice, (long) amount);
+    }
+
+    public static long scale(long minor, double factor) {
+        if (factor == 1.0) {
+            return minor;
+        }
+        return Math.round(minor * factor);
+    }
+
+    // Formats as "1234.50" without going through String.format
+    public static String format(long minor) {
+        char[] buffer = new char[21];
+        int position = writeDigits(buffer, minor);
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    public static StringBuilder append(StringBuilder builder, long minor) {
+        char[] buffer = new char[21];
+        int position = writeDigits(buffer, minor);
+        return builder.append(buffer, position, buffer.length - position);
+    }
+
+    private static int writeDigits(char[] buffer, long minor) {
+        int position = buffer.length;
+        boolean negative = minor < 0;
+        long value = negative ? -minor : minor;
+
+        long fraction = value % SCALE;
+        long units = value / SCALE;
+
+        buffer[--position] = (char) ('0' + fraction % 10);
+        buffer[--position] = (char) ('0' + fraction / 10);
+        buffer[--position] = '.';
+        do {
+            buffer[--position] = (char) ('0' + units % 10);
+            units /= 10;
+        } while (units != 0);
+
+        if (negative) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+
+    // Lock-free accumulation: totals use LongAdder, limited amounts use CAS
+    // Adds the amount only if the result stays within the limit (CAS loop)
+    public static boolean addWithinLimit(AtomicLong total, long minor, long limit) {
+        while (true) {
+            long current = total.get();
+            long updated = current + minor;
+            if (updated > limit) {
+                return false;
+            }
+            if (total.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    public static void max(AtomicLong record, long minor) {
+        long current;
+        while ((current = record.get()) < minor) {
+            if (record.compareAndSet(current, minor)) {
+                return;
+            }
+        }
+    }
+}
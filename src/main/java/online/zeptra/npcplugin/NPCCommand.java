@@ -1,12 +1,18 @@
 package online.zeptra.npcplugin;
 
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.block.Block;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 
+import java.io.File;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -14,11 +20,23 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
     private final NPCManager npcManager;
     private final ConfigManager config;
     private final PlayerDataManager playerDataManager;
-
-    public NPCCommand(NPCManager npcManager, ConfigManager config, PlayerDataManager playerDataManager) {
+    private final LeaderboardManager leaderboards;
+    private final SalesAnalyticsManager analytics;
+    private final AutoSellManager autoSell;
+    private final NPCTransfer transfer;
+    private final TickProfiler profiler;
+
+    public NPCCommand(NPCManager npcManager, ConfigManager config, PlayerDataManager playerDataManager,
+                      LeaderboardManager leaderboards, SalesAnalyticsManager analytics,
+                      AutoSellManager autoSell, NPCTransfer transfer, TickProfiler profiler) {
         this.npcManager = npcManager;
         this.config = config;
         this.playerDataManager = playerDataManager;
+        this.leaderboards = leaderboards;
+        this.analytics = analytics;
+        this.autoSell = autoSell;
+        this.transfer = transfer;
+        this.profiler = profiler;
     }
 
     @Override
@@ -86,13 +104,22 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
                 case "import":
                     handleImportCommand(sender, args);
                     break;
+                case "autosell":
+                    handleAutoSellCommand(sender, args);
+                    break;
+                case "backup":
+                    handleBackupCommand(sender, args);
+                    break;
+                case "perf":
+                    handlePerfCommand(sender, args);
+                    break;
                 default:
                     showHelp(sender);
                     break;
             }
         } catch (Exception e) {
             sender.sendMessage(ChatColor.RED + "An error occurred: " + e.getMessage());
-            config.debugLog("Command error: " + e.toString());
+            config.debugLog("Command error: {}", e);
         }
 
         return true;
@@ -111,7 +138,7 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
             List<String> subCommands = Arrays.asList(
                     "create", "remove", "delete", "list", "toggle", "reload", "info",
                     "validate", "check", "teleport", "tp", "stats", "edit", "hologram",
-                    "holo", "effects", "resetstats", "export", "import"
+                    "holo", "effects", "resetstats", "export", "import", "autosell", "backup", "perf"
             );
             completions.addAll(subCommands);
         }
@@ -131,13 +158,28 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
                 case "holo":
                 case "effects":
                 case "resetstats":
-                case "export":
                     // Add NPC IDs
                     completions.addAll(npcManager.getNPCIds());
                     break;
+                case "export":
+                    completions.add("all");
+                    completions.addAll(npcManager.getNPCIds());
+                    break;
+                case "import":
+                    completions.addAll(transfer.getExportNames());
+                    break;
+                case "backup":
+                    completions.addAll(Arrays.asList("create", "list", "restore"));
+                    break;
+                case "perf":
+                    completions.add("reset");
+                    break;
                 case "list":
                     completions.addAll(Arrays.asList("all", "enabled", "disabled", "online", "offline"));
                     break;
+                case "autosell":
+                    completions.addAll(Arrays.asList("link", "unlink", "list"));
+                    break;
             }
         }
         else if (args.length == 3) {
@@ -151,6 +193,19 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
                 case "holo":
                     completions.addAll(Arrays.asList("toggle", "update", "height", "lines"));
                     break;
+                case "autosell":
+                    if ("link".equals(args[1])) {
+                        completions.addAll(npcManager.getNPCIds());
+                    }
+                    break;
+                case "import":
+                    completions.add("overwrite");
+                    break;
+                case "backup":
+                    if ("restore".equals(args[1])) {
+                        completions.addAll(config.getAvailableBackups());
+                    }
+                    break;
                 case "effects":
                     if ("particles".equals(args[1])) {
                         completions.addAll(Arrays.asList("toggle", "type", "count"));
@@ -215,6 +270,8 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
         String npcId = args[1];
 
         if (npcManager.removeNPC(npcId)) {
+            analytics.removeNPC(npcId);
+            autoSell.removeNPC(npcId);
             sender.sendMessage(ChatColor.GREEN + "Successfully removed NPC '" + npcId + "'");
         } else {
             sender.sendMessage(ChatColor.RED + "NPC '" + npcId + "' not found!");
@@ -284,15 +341,16 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
 
         try {
             long startTime = System.currentTimeMillis();
-            npcManager.reloadNPCs();
+            NPCManager.ReloadSummary summary = npcManager.reloadNPCs();
             long duration = System.currentTimeMillis() - startTime;
 
             sender.sendMessage(ChatColor.GREEN + "NPC system reloaded successfully! (" + duration + "ms)");
+            sender.sendMessage(ChatColor.GRAY + "Changes: " + (summary.isEmpty() ? "none" : summary.toString()));
             sender.sendMessage(ChatColor.GRAY + "Loaded " + npcManager.getEnabledNPCCount() +
                     " enabled NPCs out of " + npcManager.getNPCCount() + " total");
         } catch (Exception e) {
             sender.sendMessage(ChatColor.RED + "Error reloading NPC system: " + e.getMessage());
-            config.debugLog("Reload error: " + e.toString());
+            config.debugLog("Reload error: {}", e);
         }
     }
 
@@ -491,12 +549,216 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
         }
     }
 
+    private void handleAutoSellCommand(CommandSender sender, String[] args) {
+        String action = args.length > 1 ? args[1].toLowerCase() : "";
+
+        if (action.equals("list")) {
+            List<AutoSellManager.Link> links = autoSell.getLinks();
+            sender.sendMessage(ChatColor.GOLD + "=== Auto-Sell Containers (" + links.size() + ") ===");
+            for (AutoSellManager.Link link : links) {
+                OfflinePlayer owner = Bukkit.getOfflinePlayer(link.getOwner());
+                sender.sendMessage(ChatColor.YELLOW + link.getWorld() + " " + link.getX() + ", " + link.getY() + ", " +
+                        link.getZ() + ChatColor.GRAY + " -> " + link.getNpcId() + " (owner: " +
+                        (owner.getName() != null ? owner.getName() : link.getOwner().toString()) + ")");
+            }
+            return;
+        }
+
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(ChatColor.RED + "Only players can link containers!");
+            return;
+        }
+
+        Player player = (Player) sender;
+        Block block = player.getTargetBlockExact(5);
+        if (block == null) {
+            player.sendMessage(ChatColor.RED + "Look at a container within 5 blocks!");
+            return;
+        }
+
+        switch (action) {
+            case "link": {
+                if (args.length < 3) {
+                    player.sendMessage(ChatColor.RED + "Usage: /npc autosell link <npc> [owner]");
+                    return;
+                }
+
+                TraderNPC npc = npcManager.getNPC(args[2]);
+                if (npc == null) {
+                    player.sendMessage(ChatColor.RED + "NPC '" + args[2] + "' not found!");
+                    return;
+                }
+
+                OfflinePlayer owner = player;
+                if (args.length > 3) {
+                    owner = Bukkit.getOfflinePlayer(args[3]);
+                    if (!owner.hasPlayedBefore() && !owner.isOnline()) {
+                        player.sendMessage(ChatColor.RED + "Player '" + args[3] + "' has never joined this server!");
+                        return;
+                    }
+                }
+
+                if (autoSell.link(block, npc.getId(), owner.getUniqueId())) {
+                    player.sendMessage(ChatColor.GREEN + "Linked container to NPC '" + npc.getId() + "' (owner: " +
+                            owner.getName() + ")");
+                } else {
+                    player.sendMessage(ChatColor.RED + "That block is not a container!");
+                }
+                break;
+            }
+            case "unlink":
+                if (autoSell.unlink(block)) {
+                    player.sendMessage(ChatColor.GREEN + "Container unlinked!");
+                } else {
+                    player.sendMessage(ChatColor.RED + "That container is not linked!");
+                }
+                break;
+            default:
+                player.sendMessage(ChatColor.RED + "Usage: /npc autosell <link|unlink|list>");
+                break;
+        }
+    }
+
     private void handleExportCommand(CommandSender sender, String[] args) {
-        sender.sendMessage(ChatColor.YELLOW + "Export functionality not implemented yet");
+        if (transfer.isRunning()) {
+            sender.sendMessage(ChatColor.RED + "An export or import is already running!");
+            return;
+        }
+
+        // Definitions, not spawned NPCs: disabled ones are exported too
+        ConfigurationSection npcsSection = config.getNPCsConfig().getConfigurationSection("npcs");
+        List<String> ids = new ArrayList<>(npcsSection != null ? npcsSection.getKeys(false) : Collections.emptySet());
+        String target = args.length >= 2 ? args[1] : "all";
+        if (!target.equalsIgnoreCase("all")) {
+            if (!ids.contains(target)) {
+                sender.sendMessage(ChatColor.RED + "NPC '" + target + "' not found!");
+                return;
+            }
+            ids = Collections.singletonList(target);
+        }
+
+        File file = transfer.resolveFile(args.length >= 3 ? args[2] : null);
+        if (file == null) {
+            sender.sendMessage(ChatColor.RED + "Invalid file name! Use only letters, numbers, - and _.");
+            return;
+        }
+
+        sender.sendMessage(ChatColor.YELLOW + "Exporting " + ids.size() + " NPCs to exports/" + file.getName() + "...");
+        transfer.export(sender, ids, file);
+    }
+
+    private void handleBackupCommand(CommandSender sender, String[] args) {
+        BackupService backups = config.getBackups();
+        String action = args.length >= 2 ? args[1].toLowerCase() : "list";
+
+        switch (action) {
+            case "create":
+                sender.sendMessage(ChatColor.YELLOW + "Creating backup...");
+                backups.whenDone(backups.backup(), (id, error) -> {
+                    if (error != null) {
+                        sender.sendMessage(ChatColor.RED + "Backup failed: " + BackupService.rootMessage(error));
+                    } else if (id == null) {
+                        sender.sendMessage(ChatColor.GRAY + "Nothing changed since the last backup");
+                    } else {
+                        sender.sendMessage(ChatColor.GREEN + "Backup " + id + " created");
+                    }
+                });
+                break;
+            case "list":
+                List<String> ids = backups.list();
+                if (ids.isEmpty()) {
+                    sender.sendMessage(ChatColor.YELLOW + "No backups found.");
+                    return;
+                }
+                sender.sendMessage(ChatColor.GOLD + "=== Backups (" + ids.size() + ", newest first) ===");
+                for (String id : ids) {
+                    sender.sendMessage(ChatColor.AQUA + "  " + id);
+                }
+                break;
+            case "restore":
+                if (args.length < 3) {
+                    sender.sendMessage(ChatColor.RED + "Usage: /npc backup restore <yyyyMMdd[-HHmmss]>"
+                            + " (a date alone restores that day's last backup)");
+                    return;
+                }
+                String id = backups.resolve(args[2]);
+                if (id == null) {
+                    sender.sendMessage(ChatColor.RED + "No backup found up to " + args[2]);
+                    return;
+                }
+                sender.sendMessage(ChatColor.YELLOW + "Restoring backup " + id + "...");
+                backups.whenDone(backups.read(id), (files, error) -> {
+                    if (error != null) {
+                        sender.sendMessage(ChatColor.RED + "Could not read backup " + id + ": " +
+                                BackupService.rootMessage(error));
+                        return;
+                    }
+                    if (!config.restoreFromBackup(files)) {
+                        sender.sendMessage(ChatColor.RED + "Restore failed, see console");
+                        return;
+                    }
+                    NPCManager.ReloadSummary summary = npcManager.reloadNPCs();
+                    sender.sendMessage(ChatColor.GREEN + "Restored backup " + id + " (" + files.size() + " files)");
+                    sender.sendMessage(ChatColor.GRAY + "Changes: " + (summary.isEmpty() ? "none" : summary.toString()));
+                });
+                break;
+            default:
+                sender.sendMessage(ChatColor.RED + "Usage: /npc backup <create|list|restore>");
+                break;
+        }
+    }
+
+    private void handlePerfCommand(CommandSender sender, String[] args) {
+        if (args.length >= 2 && "reset".equalsIgnoreCase(args[1])) {
+            profiler.reset();
+            sender.sendMessage(ChatColor.GREEN + "Tick profiler reset; timings now start from this tick");
+            return;
+        }
+
+        List<TickProfiler.Stats> stats = profiler.getStats();
+        int ticks = profiler.getWindowTicks();
+        sender.sendMessage(ChatColor.GOLD + "=== Tick time per component (last " + ticks / 20 + "s) ===");
+        if (stats.isEmpty()) {
+            sender.sendMessage(ChatColor.YELLOW + "Nothing has run yet.");
+            return;
+        }
+
+        double total = 0.0;
+        for (TickProfiler.Stats stat : stats) {
+            total += stat.getTotalMillis();
+            sender.sendMessage(ChatColor.AQUA + stat.getName() + ChatColor.GRAY + " (" + stat.getTicks() + " ticks): " +
+                    ChatColor.WHITE + "p50 " + formatMillis(stat.getP50Millis()) +
+                    " p99 " + formatMillis(stat.getP99Millis()) +
+                    " max " + formatMillis(stat.getMaxMillis()));
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Average: " + formatMillis(total / Math.max(1, ticks)) + " per tick");
+        sender.sendMessage(ChatColor.GRAY + "Percentiles cover the ticks a component ran in; /npc perf reset starts over");
+    }
+
+    private static String formatMillis(double millis) {
+        return String.format(Locale.ROOT, "%.3fms", millis);
     }
 
     private void handleImportCommand(CommandSender sender, String[] args) {
-        sender.sendMessage(ChatColor.YELLOW + "Import functionality not implemented yet");
+        if (args.length < 2) {
+            sender.sendMessage(ChatColor.RED + "Usage: /npc import <file> [overwrite]");
+            return;
+        }
+        if (transfer.isRunning()) {
+            sender.sendMessage(ChatColor.RED + "An export or import is already running!");
+            return;
+        }
+
+        File file = transfer.resolveFile(args[1]);
+        if (file == null || !file.exists()) {
+            sender.sendMessage(ChatColor.RED + "Export file '" + args[1] + "' not found in exports/");
+            return;
+        }
+
+        boolean overwrite = args.length >= 3 && args[2].equalsIgnoreCase("overwrite");
+        sender.sendMessage(ChatColor.YELLOW + "Importing NPCs from exports/" + file.getName() +
+                (overwrite ? " (overwriting existing NPCs)" : "") + "...");
+        transfer.importFile(sender, file, overwrite);
     }
 
     // Helper methods
@@ -513,6 +775,11 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(ChatColor.YELLOW + "/npc stats [id] - Show statistics");
         sender.sendMessage(ChatColor.YELLOW + "/npc edit <id> <property> <value> - Edit NPC");
         sender.sendMessage(ChatColor.YELLOW + "/npc effects <id> <type> - Test effects");
+        sender.sendMessage(ChatColor.YELLOW + "/npc autosell <link|unlink|list> - Link containers to NPCs");
+        sender.sendMessage(ChatColor.YELLOW + "/npc export [id|all] [file] - Export NPCs to exports/");
+        sender.sendMessage(ChatColor.YELLOW + "/npc import <file> [overwrite] - Import NPCs from exports/");
+        sender.sendMessage(ChatColor.YELLOW + "/npc backup <create|list|restore> - Manage backups");
+        sender.sendMessage(ChatColor.YELLOW + "/npc perf [reset] - Show tick time per component");
         sender.sendMessage(ChatColor.GRAY + "Use /sellnpc to trade with NPCs");
     }
 
@@ -528,7 +795,15 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
                 (config.areParticlesEnabled() ? ChatColor.GREEN + "Particles " : ChatColor.RED + "No Particles ") +
                 (config.areSoundsEnabled() ? ChatColor.GREEN + "Sounds " : ChatColor.RED + "No Sounds ") +
                 (config.areHologramsEnabled() ? ChatColor.GREEN + "Holograms" : ChatColor.RED + "No Holograms"));
-        sender.sendMessage(ChatColor.YELLOW + "Language: " + config.getLanguage().toUpperCase());
+        sender.sendMessage(ChatColor.YELLOW + "Language: " + config.getLanguage().toUpperCase() +
+                (config.isPerPlayerLocaleEnabled()
+                        ? ChatColor.GRAY + " (per player: " + String.join(", ", config.getAvailableLanguages()) + ")"
+                        : ""));
+
+        List<String> priceEvents = config.getActivePriceEvents();
+        if (!priceEvents.isEmpty()) {
+            sender.sendMessage(ChatColor.YELLOW + "Active Price Events: " + ChatColor.GREEN + String.join(", ", priceEvents));
+        }
     }
 
     private void showNPCInfo(CommandSender sender, TraderNPC npc) {
@@ -547,11 +822,12 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
 
         // Sample prices
         sender.sendMessage(ChatColor.YELLOW + "Sample Prices:");
-        String[] samples = {"IRON_ORE", "DIAMOND", "WHEAT", "COBBLESTONE"};
-        for (String item : samples) {
-            double price = npc.getItemPrice(item);
+        Material[] samples = {Material.IRON_ORE, Material.DIAMOND, Material.WHEAT, Material.COBBLESTONE};
+        MessageCatalog messages = config.getMessages(sender);
+        for (Material item : samples) {
+            long price = npc.getItemPrice(item);
             if (price > 0) {
-                sender.sendMessage(ChatColor.GRAY + "  " + formatItemName(item) + ": $" + String.format("%.2f", price));
+                sender.sendMessage(ChatColor.GRAY + "  " + messages.getItemName(item) + ": $" + Money.format(price));
             }
         }
     }
@@ -568,20 +844,32 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(ChatColor.YELLOW + "Active NPCs: " +
                 npcs.values().stream().mapToInt(npc -> npc.isValid() ? 1 : 0).sum());
 
-        // Top 3 NPCs by interactions
-        List<TraderNPC> topNPCs = npcs.values().stream()
-                .sorted((a, b) -> Integer.compare(b.getDailyInteractionCount(), a.getDailyInteractionCount()))
-                .limit(3)
-                .collect(Collectors.toList());
-
+        // Rankings are maintained as sales commit, so no sorting here
+        List<Leaderboard.Entry<String>> topNPCs = leaderboards.getTopNPCs(LeaderboardManager.Period.DAILY, 3);
         if (!topNPCs.isEmpty()) {
-            sender.sendMessage(ChatColor.YELLOW + "Most Active NPCs:");
+            sender.sendMessage(ChatColor.YELLOW + "Top NPCs Today:");
             for (int i = 0; i < topNPCs.size(); i++) {
-                TraderNPC npc = topNPCs.get(i);
-                sender.sendMessage(ChatColor.GRAY + "  " + (i + 1) + ". " + npc.getId() +
-                        " (" + npc.getDailyInteractionCount() + " interactions)");
+                Leaderboard.Entry<String> entry = topNPCs.get(i);
+                sender.sendMessage(ChatColor.GRAY + "  " + (i + 1) + ". " + entry.getKey() +
+                        " ($" + Money.format(entry.getScore()) + ")");
             }
         }
+
+        showTopSellers(sender, "Top Sellers Today:", leaderboards.getTopSellers(LeaderboardManager.Period.DAILY, 5));
+        showTopSellers(sender, "Top Sellers All Time:", leaderboards.getTopSellers(LeaderboardManager.Period.ALL_TIME, 5));
+    }
+
+    private void showTopSellers(CommandSender sender, String title, List<Leaderboard.Entry<UUID>> sellers) {
+        if (sellers.isEmpty()) {
+            return;
+        }
+
+        sender.sendMessage(ChatColor.YELLOW + title);
+        for (int i = 0; i < sellers.size(); i++) {
+            Leaderboard.Entry<UUID> entry = sellers.get(i);
+            sender.sendMessage(ChatColor.GRAY + "  " + (i + 1) + ". " + entry.getName() +
+                    " ($" + Money.format(entry.getScore()) + ")");
+        }
     }
 
     private void showNPCStats(CommandSender sender, TraderNPC npc) {
@@ -592,6 +880,42 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
                         formatTime(System.currentTimeMillis() - npc.getLastInteractionTime()) + " ago" :
                         "Never"));
         sender.sendMessage(ChatColor.YELLOW + "Status: " + getStatusText(npc));
+        sender.sendMessage(ChatColor.YELLOW + "Sold Today: $" +
+                Money.format(leaderboards.getNPCSoldAmount(npc.getId(), LeaderboardManager.Period.DAILY)));
+        sender.sendMessage(ChatColor.YELLOW + "Sold All Time: $" +
+                Money.format(leaderboards.getNPCSoldAmount(npc.getId(), LeaderboardManager.Period.ALL_TIME)));
+
+        showTopSellers(sender, "Top Sellers Today:",
+                leaderboards.getTopSellers(npc.getId(), LeaderboardManager.Period.DAILY, 5));
+        showTopSellers(sender, "Top Sellers All Time:",
+                leaderboards.getTopSellers(npc.getId(), LeaderboardManager.Period.ALL_TIME, 5));
+
+        // Rolling sales windows
+        SalesAnalytics npcAnalytics = analytics.getAnalytics(npc.getId());
+        long now = System.currentTimeMillis();
+        sender.sendMessage(ChatColor.YELLOW + "Sales:");
+        sendSalesWindow(sender, "Last Hour", npcAnalytics, SalesAnalytics.Window.MINUTE, now);
+        sendSalesWindow(sender, "Last 24 Hours", npcAnalytics, SalesAnalytics.Window.HOUR, now);
+        sendSalesWindow(sender, "Last 30 Days", npcAnalytics, SalesAnalytics.Window.DAY, now);
+
+        Material[] topMaterials = npcAnalytics.getTopMaterials(SalesAnalytics.Window.HOUR, now, 5);
+        if (topMaterials.length > 0) {
+            sender.sendMessage(ChatColor.YELLOW + "Top Items (24h):");
+            MessageCatalog messages = config.getMessages(sender);
+            for (int i = 0; i < topMaterials.length; i++) {
+                Material material = topMaterials[i];
+                sender.sendMessage(ChatColor.GRAY + "  " + (i + 1) + ". " + messages.getItemName(material) + ": " +
+                        npcAnalytics.getItems(material, SalesAnalytics.Window.HOUR, now) + " items, $" +
+                        Money.format(npcAnalytics.getRevenue(material, SalesAnalytics.Window.HOUR, now)));
+            }
+        }
+    }
+
+    private void sendSalesWindow(CommandSender sender, String label, SalesAnalytics npcAnalytics,
+                                 SalesAnalytics.Window window, long now) {
+        sender.sendMessage(ChatColor.GRAY + "  " + label + ": " +
+                npcAnalytics.getTotalItems(window, now) + " items, $" +
+                Money.format(npcAnalytics.getTotalRevenue(window, now)));
     }
 
     // Utility methods
@@ -641,7 +965,7 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
                 return false;
         }
 
-        config.saveNPCsConfig();
+        config.saveNPC(npcId);
         return true;
     }
 
@@ -653,13 +977,6 @@ public class NPCCommand implements CommandExecutor, TabCompleter {
                 location.getZ());
     }
 
-    private String formatItemName(String itemType) {
-        return Arrays.stream(itemType.toLowerCase().split("_"))
-                .map(word -> Character.toUpperCase(word.charAt(0)) + word.substring(1))
-                .reduce((a, b) -> a + " " + b)
-                .orElse(itemType);
-    }
-
     private String formatTime(long milliseconds) {
         long seconds = milliseconds / 1000;
         if (seconds < 60) {
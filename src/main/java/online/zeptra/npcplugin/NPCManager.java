@@ -7,22 +7,42 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 public class NPCManager {
     private final JavaPlugin plugin;
     private final ConfigManager config;
+    private final LeaderboardManager leaderboards;
+    private final DynamicPricing dynamicPricing;
+    private final TickProfiler profiler;
     private final Map<String, TraderNPC> npcs;
-    private BukkitRunnable lookTask;
-
-    public NPCManager(JavaPlugin plugin, ConfigManager config) {
+    // Entity UUID -> NPC for getNPCByEntity, maintained by TraderNPC.spawn/remove
+    private final Map<UUID, TraderNPC> npcsByEntity = new HashMap<>();
+    private final NPCSpawnQueue spawnQueue;
+    private BukkitTask lookTask;
+
+    // NPC definition paths that only affect prices
+    private static final String[] PRICE_PATHS = { "item-prices", "settings.custom-prices", "custom-commands" };
+    // Bumped whenever NPCs are added, removed or toggled (see BestPriceIndex)
+    private int modCount;
+
+    public NPCManager(JavaPlugin plugin, ConfigManager config, LeaderboardManager leaderboards,
+                      DynamicPricing dynamicPricing, TickProfiler profiler) {
         this.plugin = plugin;
         this.config = config;
+        this.leaderboards = leaderboards;
+        this.dynamicPricing = dynamicPricing;
+        this.profiler = profiler;
         this.npcs = new HashMap<>();
+        this.spawnQueue = new NPCSpawnQueue(plugin, config, this, profiler);
     }
 
     public void loadNPCs() {
@@ -51,7 +71,7 @@ public class NPCManager {
     public boolean loadNPC(String npcId) {
         try {
             if (!config.isNPCEnabled(npcId)) {
-                config.debugLog("NPC " + npcId + " is disabled, skipping");
+                config.debugLog("NPC {} is disabled, skipping", npcId);
                 return false;
             }
 
@@ -79,11 +99,13 @@ public class NPCManager {
             Location location = new Location(world, x, y, z, yaw, pitch);
 
             String name = config.getNPCName(npcId);
-            TraderNPC npc = new TraderNPC(npcId, name, location, true, config);
+            TraderNPC npc = new TraderNPC(npcId, name, location, true, config, leaderboards, dynamicPricing, profiler,
+                    npcsByEntity);
 
             if (npc.spawn()) {
                 npcs.put(npcId, npc);
-                config.debugLog("Loaded NPC: " + npcId);
+                modCount++;
+                config.debugLog("Loaded NPC: {}", npcId);
                 return true;
             } else {
                 plugin.getLogger().warning("Failed to spawn NPC: " + npcId);
@@ -119,7 +141,7 @@ public class NPCManager {
         config.getNPCsConfig().set(path + ".settings.custom-prices", false);
 
         // **แก้ไข: บังคับ save ทันที**
-        config.saveNPCsConfig();
+        config.saveNPC(npcId);
 
         // รอหน่อยก่อน load เพื่อให้ไฟล์ถูกเขียนเสร็จ
         try {
@@ -135,26 +157,61 @@ public class NPCManager {
         TraderNPC npc = npcs.remove(npcId);
         if (npc != null) {
             npc.remove();
+            modCount++;
 
             config.getNPCsConfig().set("npcs." + npcId, null);
             // **แก้ไข: บังคับ save ทันที**
-            config.saveNPCsConfig();
+            config.saveNPC(npcId);
+            leaderboards.removeNPC(npcId);
 
-            config.debugLog("Removed NPC: " + npcId);
+            config.debugLog("Removed NPC: {}", npcId);
             return true;
         }
         return false;
     }
 
+    // Spawns an NPC already in the definitions over the next ticks (see NPCSpawnQueue)
+    public void queueSpawn(String npcId) {
+        spawnQueue.add(npcId);
+    }
+
+    public int getPendingSpawns() {
+        return spawnQueue.size();
+    }
+
+    // Removes the entity but keeps the definition
+    public boolean despawnNPC(String npcId) {
+        TraderNPC npc = npcs.remove(npcId);
+        if (npc == null) {
+            return false;
+        }
+        npc.remove();
+        modCount++;
+        return true;
+    }
+
     public TraderNPC getNPC(String npcId) {
         return npcs.get(npcId);
     }
 
+    // Every right-click on an entity lands here, so entities without the NPC tag
+    // are turned away first; tagged ones are found by entity UUID.
     public TraderNPC getNPCByEntity(LivingEntity entity) {
-        for (TraderNPC npc : npcs.values()) {
-            if (npc.isThisEntity(entity)) {
-                return npc;
-            }
+        if (!entity.getScoreboardTags().contains(TraderNPC.ENTITY_TAG)) {
+            return null;
+        }
+
+        TraderNPC npc = npcsByEntity.get(entity.getUniqueId());
+        if (npc != null && npc.isThisEntity(entity)) {
+            return npc;
+        }
+
+        // A tagged entity no NPC owns: left behind by a crash, or in a chunk that
+        // was unloaded when its NPC was removed or respawned. NPC entities are
+        // persistent, so it would stay forever.
+        if (npc == null) {
+            config.debugLog("Removing orphaned NPC entity {}", entity.getUniqueId());
+            entity.remove();
         }
         return null;
     }
@@ -163,6 +220,15 @@ public class NPCManager {
         return npcs.keySet();
     }
 
+    // Live read-only view, no copy
+    public Collection<TraderNPC> getNPCs() {
+        return Collections.unmodifiableCollection(npcs.values());
+    }
+
+    public int getModCount() {
+        return modCount;
+    }
+
     public Map<String, TraderNPC> getAllNPCs() {
         return new HashMap<>(npcs);
     }
@@ -173,7 +239,7 @@ public class NPCManager {
             boolean newState = !config.isNPCEnabled(npcId);
             config.getNPCsConfig().set("npcs." + npcId + ".enabled", newState);
             // **แก้ไข: บังคับ save ทันที**
-            config.saveNPCsConfig();
+            config.saveNPC(npcId);
 
             if (newState) {
                 npc.spawn();
@@ -182,20 +248,126 @@ public class NPCManager {
             }
 
             npc.updateFromConfig();
+            modCount++;
             return true;
         }
         return false;
     }
 
-    public void reloadNPCs() {
-        removeAllNPCs();
+    // What an incremental reload did
+    public static class ReloadSummary {
+        private boolean full;
+        private int added;
+        private int removed;
+        private int respawned;
+        private int updated;
+        private int repriced;
+
+        public boolean isFull() { return full; }
+        public int getAdded() { return added; }
+        public int getRemoved() { return removed; }
+        public int getRespawned() { return respawned; }
+        public int getUpdated() { return updated; }
+        public int getRepriced() { return repriced; }
+
+        public boolean isEmpty() {
+            return !full && added + removed + respawned + updated + repriced == 0;
+        }
 
-        if (lookTask != null) {
-            lookTask.cancel();
+        @Override
+        public String toString() {
+            if (full) {
+                return "full respawn of " + respawned + " NPCs";
+            }
+            return added + " added, " + removed + " removed, " + respawned + " respawned, " +
+                    updated + " updated, " + repriced + " repriced";
         }
+    }
+
+    // Re-reads every file, then diffs the old and new settings and NPC definitions:
+    // NPCs are respawned only when their entity changes (type, location, skin...),
+    // re-rendered when their name, greeting or hologram settings change and re-priced
+    // when only prices change. Global spawn settings still trigger a full respawn.
+    public ReloadSummary reloadNPCs() {
+        ConfigSnapshot oldSettings = ConfigSnapshot.of(config.getConfig());
+        Map<String, ConfigSnapshot> oldDefinitions = snapshotDefinitions();
 
         config.reloadConfigs();
-        loadNPCs();
+        dynamicPricing.reload();
+
+        ReloadSummary summary = new ReloadSummary();
+        Set<String> changedSettings = oldSettings.diff(ConfigSnapshot.of(config.getConfig()));
+
+        if (ConfigSnapshot.touches(changedSettings, "plugin.enabled", "npc.enabled", "npc.look-distance",
+                "npc.update-interval", "npc-skins.enabled", "npc-skins.default-skin")) {
+            removeAllNPCs();
+            loadNPCs();
+            summary.full = true;
+            summary.respawned = npcs.size();
+            return summary;
+        }
+
+        boolean rerenderAll = ConfigSnapshot.touches(changedSettings, "npc.effects", "holograms", "particles");
+        boolean repriceAll = ConfigSnapshot.touches(changedSettings, "item-prices", "item-categories",
+                "price-schedule", "item-pricing-rules", "dynamic-pricing");
+        Map<String, ConfigSnapshot> newDefinitions = snapshotDefinitions();
+
+        for (String npcId : new ArrayList<>(npcs.keySet())) {
+            if (!newDefinitions.containsKey(npcId)) {
+                npcs.remove(npcId).remove();
+                modCount++;
+                summary.removed++;
+            }
+        }
+
+        for (Map.Entry<String, ConfigSnapshot> entry : newDefinitions.entrySet()) {
+            String npcId = entry.getKey();
+            TraderNPC npc = npcs.get(npcId);
+            if (npc == null) {
+                // New, or previously disabled / failed to load
+                if (loadNPC(npcId)) {
+                    summary.added++;
+                }
+                continue;
+            }
+
+            ConfigSnapshot before = oldDefinitions.get(npcId);
+            Set<String> changed = before != null ? before.diff(entry.getValue()) : entry.getValue().diff(before);
+
+            if (ConfigSnapshot.touches(changed, "enabled", "entity-type", "profession", "location")
+                    || ConfigSnapshot.touches(changedSettings, "npc-skins.custom-skins." + npcId)) {
+                npcs.remove(npcId);
+                npc.remove();
+                modCount++;
+                if (loadNPC(npcId)) {
+                    summary.respawned++;
+                } else {
+                    summary.removed++;
+                }
+            } else if (rerenderAll || !ConfigSnapshot.touchesOnly(changed, PRICE_PATHS)) {
+                npc.updateFromConfig();
+                modCount++;
+                summary.updated++;
+            } else if (repriceAll || !changed.isEmpty()) {
+                npc.reloadPrices();
+                modCount++;
+                summary.repriced++;
+            }
+        }
+
+        config.debugLog("Incremental reload: {}", summary);
+        return summary;
+    }
+
+    private Map<String, ConfigSnapshot> snapshotDefinitions() {
+        Map<String, ConfigSnapshot> definitions = new HashMap<>();
+        ConfigurationSection npcsSection = config.getNPCsConfig().getConfigurationSection("npcs");
+        if (npcsSection != null) {
+            for (String npcId : npcsSection.getKeys(false)) {
+                definitions.put(npcId, ConfigSnapshot.of(npcsSection.getConfigurationSection(npcId)));
+            }
+        }
+        return definitions;
     }
 
     public void removeAllNPCs() {
@@ -203,6 +375,8 @@ public class NPCManager {
             npc.remove();
         }
         npcs.clear();
+        spawnQueue.clear();
+        modCount++;
 
         if (lookTask != null) {
             lookTask.cancel();
@@ -227,25 +401,24 @@ public class NPCManager {
             lookTask.cancel();
         }
 
-        lookTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                for (TraderNPC npc : npcs.values()) {
-                    if (!npc.isValid() || !npc.isEnabled()) {
-                        continue;
-                    }
-
-                    Player closest = findClosestPlayer(npc);
-                    if (closest != null) {
-                        npc.lookAt(closest.getLocation());
-                    }
-                }
+        long interval = config.getNPCUpdateInterval();
+        lookTask = Bukkit.getScheduler().runTaskTimer(plugin,
+                profiler.wrap("npc-look", this::updateLookTargets), 0L, interval);
+        config.debugLog("Started NPC look task with interval: {}", interval);
+    }
+
+    // One run of the look task (package-private for the benchmarks)
+    void updateLookTargets() {
+        for (TraderNPC npc : npcs.values()) {
+            if (!npc.isValid() || !npc.isEnabled()) {
+                continue;
             }
-        };
 
-        long interval = config.getNPCUpdateInterval();
-        lookTask.runTaskTimer(plugin, 0L, interval);
-        config.debugLog("Started NPC look task with interval: " + interval);
+            Player closest = findClosestPlayer(npc);
+            if (closest != null) {
+                npc.lookAt(closest.getLocation());
+            }
+        }
     }
 
     private Player findClosestPlayer(TraderNPC npc) {
@@ -271,6 +444,16 @@ public class NPCManager {
         return npcs.size();
     }
 
+    public int getSpawnedNPCCount() {
+        int count = 0;
+        for (TraderNPC npc : npcs.values()) {
+            if (npc.isValid()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     public int getEnabledNPCCount() {
         int count = 0;
         for (TraderNPC npc : npcs.values()) {
@@ -3,15 +3,28 @@ package online.zeptra.npcplugin;
 import org.bukkit.Bukkit;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 
 public final class NPCPlugin extends JavaPlugin {
 
     private ConfigManager configManager;
+    private TickProfiler profiler;
+    private MetricsRegistry metrics;
+    private MetricsExporter metricsExporter;
+    private MetricsRegistry.Histogram saveDuration;
     private NPCManager npcManager;
     private PlayerDataManager playerDataManager;
+    private LeaderboardManager leaderboardManager;
+    private SalesAnalyticsManager salesAnalyticsManager;
+    private DynamicPricing dynamicPricing;
+    private SellService sellService;
+    private BestPriceIndex bestPriceIndex;
+    private AutoSellManager autoSellManager;
+    private NPCTransfer npcTransfer;
+    private ConfigWatcher configWatcher;
     private SellGUI sellGUI;
 
     // Command handlers
@@ -21,10 +34,11 @@ public final class NPCPlugin extends JavaPlugin {
     // Event listeners
     private NPCInteractListener npcInteractListener;
     private SellGUIListener sellGUIListener;
+    private PlayerDataListener playerDataListener;
 
     // System tasks
-    private BukkitRunnable dailyResetTask;
-    private BukkitRunnable saveTask;
+    private BukkitTask dailyResetTask;
+    private BukkitTask saveTask;
 
     @Override
     public void onEnable() {
@@ -34,27 +48,32 @@ public final class NPCPlugin extends JavaPlugin {
         getLogger().info("Version: " + getDescription().getVersion());
         getLogger().info("Author: " + getDescription().getAuthors());
 
+        StartupTimer timer = new StartupTimer();
+
         try {
             // Initialize core managers
-            initializeManagers();
+            initializeManagers(timer);
 
             // Setup commands
+            timer.begin("tasks");
             setupCommands();
 
             // Register event listeners
             registerEventListeners();
 
             // Load NPCs
+            timer.begin("spawn");
             loadNPCs();
 
             // Start system tasks
+            timer.begin("tasks");
             startSystemTasks();
 
             // Setup metrics (if available)
             setupMetrics();
 
             long duration = System.currentTimeMillis() - startTime;
-            getLogger().info("NPCPlugin enabled successfully! (" + duration + "ms)");
+            getLogger().info("NPCPlugin enabled successfully! (" + duration + "ms: " + timer.summary() + ")");
 
             // Display startup information
             displayStartupInfo();
@@ -85,40 +104,103 @@ public final class NPCPlugin extends JavaPlugin {
             // Cleanup player data
             cleanupPlayerData();
 
+            // Flush analytics snapshots
+            if (salesAnalyticsManager != null) {
+                salesAnalyticsManager.shutdown();
+            }
+
             // Unregister listeners
             HandlerList.unregisterAll(this);
 
             getLogger().info("NPCPlugin disabled successfully!");
 
+            if (configManager != null) {
+                configManager.closeDebugLog();
+            }
+
         } catch (Exception e) {
             getLogger().severe("Error during plugin shutdown: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private void initializeManagers() {
+    private void initializeManagers(StartupTimer timer) {
         getLogger().info("Initializing managers...");
 
-        // Initialize configuration manager
+        // Initialize configuration manager; config files are parsed in parallel
+        timer.begin("parse");
         this.configManager = new ConfigManager(this);
+        configManager.parseConfigs();
+
+        timer.begin("compile");
+        configManager.compile();
+
+        // Tick-time profiler, shared by every scheduled task and listener
+        this.profiler = new TickProfiler(this);
+
+        // Metrics registry, published by the exporter started with the system tasks
+        this.metrics = new MetricsRegistry();
+        this.metricsExporter = new MetricsExporter(this, configManager, metrics, profiler);
+        this.saveDuration = metrics.histogram("npcplugin_save_duration_seconds",
+                "Time spent saving NPCs, player data, leaderboards and analytics", MetricsRegistry.LATENCY_BUCKETS);
+
+        // Player data, leaderboards and analytics load their indexes from disk
+        timer.begin("index");
 
         // Initialize player data manager
-        this.playerDataManager = new PlayerDataManager(this);
+        this.playerDataManager = new PlayerDataManager(this, profiler);
+
+        // Initialize leaderboards
+        this.leaderboardManager = new LeaderboardManager(this, playerDataManager);
+
+        // Initialize sales analytics
+        this.salesAnalyticsManager = new SalesAnalyticsManager(this);
+
+        // Initialize dynamic pricing
+        this.dynamicPricing = new DynamicPricing(configManager);
 
         // Initialize NPC manager
-        this.npcManager = new NPCManager(this, configManager);
+        this.npcManager = new NPCManager(this, configManager, leaderboardManager, dynamicPricing, profiler);
+
+        // Initialize best price index
+        this.bestPriceIndex = new BestPriceIndex(configManager, npcManager);
+
+        // Initialize sell service
+        this.sellService = new SellService(configManager, playerDataManager, leaderboardManager,
+                salesAnalyticsManager, dynamicPricing, bestPriceIndex, metrics);
 
         // Initialize sell GUI
-        this.sellGUI = new SellGUI(this, configManager, npcManager);
+        PriceCatalog priceCatalog = new PriceCatalog(configManager, npcManager, bestPriceIndex, dynamicPricing);
+        this.sellGUI = new SellGUI(this, configManager, npcManager, playerDataManager, sellService,
+                bestPriceIndex, priceCatalog, profiler, metrics);
+
+        // Initialize auto-sell containers
+        this.autoSellManager = new AutoSellManager(this, configManager, npcManager, sellService, profiler);
+
+        // Initialize NPC export/import
+        this.npcTransfer = new NPCTransfer(this, configManager, npcManager, profiler);
+
+        // Initialize config file watcher
+        this.configWatcher = new ConfigWatcher(this, configManager, profiler.wrap("config-reload", () -> {
+            NPCManager.ReloadSummary summary = npcManager.reloadNPCs();
+            getLogger().info("Reload finished: " + (summary.isEmpty() ? "no changes" : summary.toString()));
+        }));
 
         getLogger().info("Managers initialized successfully!");
     }
 
+    // Settings are read from the file parsed by ConfigManager rather than a second copy
+    @Override
+    public FileConfiguration getConfig() {
+        return configManager != null ? configManager.getConfig() : super.getConfig();
+    }
+
     private void setupCommands() {
         getLogger().info("Setting up commands...");
 
         // Initialize command handlers
-        this.npcCommand = new NPCCommand(npcManager, configManager, playerDataManager);
+        this.npcCommand = new NPCCommand(npcManager, configManager, playerDataManager, leaderboardManager,
+                salesAnalyticsManager, autoSellManager, npcTransfer, profiler);
         this.sellCommand = new SellCommand(sellGUI, npcManager);
 
         // Register NPC command
@@ -147,10 +229,12 @@ public final class NPCPlugin extends JavaPlugin {
         // Initialize listeners
         this.npcInteractListener = new NPCInteractListener(sellGUI, npcManager);
         this.sellGUIListener = new SellGUIListener(sellGUI, configManager, npcManager);
+        this.playerDataListener = new PlayerDataListener(playerDataManager);
 
-        // Register listeners
-        getServer().getPluginManager().registerEvents(npcInteractListener, this);
-        getServer().getPluginManager().registerEvents(sellGUIListener, this);
+        // Register listeners; the profiler times each handler
+        profiler.registerEvents(npcInteractListener);
+        profiler.registerEvents(sellGUIListener);
+        profiler.registerEvents(playerDataListener);
 
         getLogger().info("Event listeners registered successfully!");
     }
@@ -165,6 +249,7 @@ public final class NPCPlugin extends JavaPlugin {
 
         try {
             npcManager.loadNPCs();
+            salesAnalyticsManager.preload(npcManager.getNPCIds());
             getLogger().info("NPCs loaded successfully!");
         } catch (Exception e) {
             getLogger().severe("Failed to load NPCs: " + e.getMessage());
@@ -175,6 +260,9 @@ public final class NPCPlugin extends JavaPlugin {
     private void startSystemTasks() {
         getLogger().info("Starting system tasks...");
 
+        // Tick counter for the profiler
+        profiler.start();
+
         // Daily reset task
         startDailyResetTask();
 
@@ -184,75 +272,85 @@ public final class NPCPlugin extends JavaPlugin {
         // NPC validation task
         startValidationTask();
 
+        // Auto-sell drain task
+        autoSellManager.start();
+
+        // Config file watcher
+        configWatcher.start();
+
+        // Automatic backups
+        configManager.getBackups().start(profiler);
+
+        // Metrics file and endpoint
+        metricsExporter.start();
+
         getLogger().info("System tasks started successfully!");
     }
 
     private void startDailyResetTask() {
-        dailyResetTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                try {
-                    // Reset daily statistics for all NPCs
-                    for (TraderNPC npc : npcManager.getAllNPCs().values()) {
-                        npc.resetDailyStats();
-                    }
-
-                    // Force daily reset for player data
-                    playerDataManager.forceReset();
-
-                    getLogger().info("Daily reset completed successfully!");
-
-                } catch (Exception e) {
-                    getLogger().severe("Error during daily reset: " + e.getMessage());
+        Runnable reset = profiler.wrap("daily-reset", () -> {
+            try {
+                // Reset daily statistics for all NPCs
+                for (TraderNPC npc : npcManager.getAllNPCs().values()) {
+                    npc.resetDailyStats();
                 }
+
+                // Force daily reset for player data
+                playerDataManager.forceReset();
+
+                getLogger().info("Daily reset completed successfully!");
+
+            } catch (Exception e) {
+                getLogger().severe("Error during daily reset: " + e.getMessage());
             }
-        };
+        });
 
         // Run every 6 hours (in case server misses midnight)
-        dailyResetTask.runTaskTimer(this, 0L, 20L * 60L * 60L * 6L);
+        dailyResetTask = Bukkit.getScheduler().runTaskTimer(this, reset, 0L, 20L * 60L * 60L * 6L);
     }
 
     private void startAutoSaveTask() {
-        saveTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                try {
-                    saveAllData();
-                    configManager.debugLog("Auto-save completed");
-                } catch (Exception e) {
-                    getLogger().warning("Auto-save failed: " + e.getMessage());
-                }
+        Runnable save = profiler.wrap("auto-save", () -> {
+            try {
+                saveAllData();
+                configManager.debugLog("Auto-save completed");
+            } catch (Exception e) {
+                getLogger().warning("Auto-save failed: " + e.getMessage());
             }
-        };
+        });
 
         // **แก้ไข: ลดเวลา auto-save เหลือ 1 นาที**
-        saveTask.runTaskTimer(this, 20L * 60L, 20L * 60L); // ทุก 1 นาที
+        saveTask = Bukkit.getScheduler().runTaskTimer(this, save, 20L * 60L, 20L * 60L); // ทุก 1 นาที
     }
 
     private void startValidationTask() {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                try {
-                    npcManager.validateNPCs();
-                    configManager.debugLog("NPC validation completed");
-                } catch (Exception e) {
-                    getLogger().warning("NPC validation failed: " + e.getMessage());
-                }
+        Runnable validate = profiler.wrap("npc-validation", () -> {
+            try {
+                npcManager.validateNPCs();
+                configManager.debugLog("NPC validation completed");
+            } catch (Exception e) {
+                getLogger().warning("NPC validation failed: " + e.getMessage());
             }
-        }.runTaskTimer(this, 20L * 60L, 20L * 60L * 5L); // ทุก 5 นาที
+        });
+        Bukkit.getScheduler().runTaskTimer(this, validate, 20L * 60L, 20L * 60L * 5L); // ทุก 5 นาที
     }
 
     private void setupMetrics() {
         try {
-            // bStats metrics (if available)
             getLogger().info("Setting up metrics...");
 
-            // Custom metrics could be added here
+            // Counters and histograms register themselves where they are recorded;
+            // gauges are sampled on the main thread by the exporter
+            metrics.gauge("npcplugin_sell_sessions", "Players with a sell GUI open", sellGUI::getOpenSessionCount);
+            metrics.gauge("npcplugin_npcs", "NPCs loaded", npcManager::getNPCCount);
+            metrics.gauge("npcplugin_npcs_spawned", "NPC entities currently in the world", npcManager::getSpawnedNPCCount);
+            metrics.gauge("npcplugin_npc_spawn_queue", "NPCs waiting to be spawned", npcManager::getPendingSpawns);
+            metrics.gauge("npcplugin_players_online", "Players online", () -> Bukkit.getOnlinePlayers().size());
+
             configManager.debugLog("Metrics setup completed");
 
         } catch (Exception e) {
-            configManager.debugLog("Metrics setup failed: " + e.getMessage());
+            configManager.debugLog("Metrics setup failed: {}", e.getMessage());
         }
     }
 
@@ -276,6 +374,10 @@ public final class NPCPlugin extends JavaPlugin {
     }
 
     private void stopSystemTasks() {
+        if (profiler != null) {
+            profiler.stop();
+        }
+
         if (dailyResetTask != null) {
             dailyResetTask.cancel();
             dailyResetTask = null;
@@ -285,20 +387,52 @@ public final class NPCPlugin extends JavaPlugin {
             saveTask.cancel();
             saveTask = null;
         }
+
+        if (autoSellManager != null) {
+            autoSellManager.stop();
+        }
+
+        if (npcTransfer != null) {
+            npcTransfer.cancel();
+        }
+
+        if (configWatcher != null) {
+            configWatcher.stop();
+        }
+
+        if (configManager != null) {
+            configManager.getBackups().stop();
+        }
+
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+        }
     }
 
     private void saveAllData() {
+        long start = System.nanoTime();
         try {
             // **แก้ไข: บังคับ save NPCs ก่อน**
             if (configManager != null) {
                 configManager.saveNPCsConfig();
             }
 
-            // Save player data (if implemented)
+            // Save player data
             if (playerDataManager != null) {
                 for (org.bukkit.entity.Player player : Bukkit.getOnlinePlayers()) {
                     playerDataManager.savePlayerData(player);
                 }
+                playerDataManager.demoteOfflinePlayers();
+            }
+
+            // Save leaderboards
+            if (leaderboardManager != null) {
+                leaderboardManager.save();
+            }
+
+            // Save sales analytics snapshots
+            if (salesAnalyticsManager != null) {
+                salesAnalyticsManager.save();
             }
 
             configManager.debugLog("All data saved successfully");
@@ -306,6 +440,10 @@ public final class NPCPlugin extends JavaPlugin {
         } catch (Exception e) {
             getLogger().warning("Failed to save data: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            if (saveDuration != null) {
+                saveDuration.observeSince(start);
+            }
         }
     }
 
@@ -335,10 +473,44 @@ public final class NPCPlugin extends JavaPlugin {
         return playerDataManager;
     }
 
+    public LeaderboardManager getLeaderboardManager() {
+        return leaderboardManager;
+    }
+
+    public SalesAnalyticsManager getSalesAnalyticsManager() {
+        return salesAnalyticsManager;
+    }
+
+    public DynamicPricing getDynamicPricing() {
+        return dynamicPricing;
+    }
+
+    // Batched selling for other plugins (auto-sell tools, custom menus)
+    public SellService getSellService() {
+        return sellService;
+    }
+
+    public BestPriceIndex getBestPriceIndex() {
+        return bestPriceIndex;
+    }
+
+    public AutoSellManager getAutoSellManager() {
+        return autoSellManager;
+    }
+
     public SellGUI getSellGUI() {
         return sellGUI;
     }
 
+    public TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    // Other plugins may add their own metrics; they are published with ours
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
     // Reload method for commands
     public boolean reloadPlugin() {
         try {
@@ -360,6 +532,7 @@ public final class NPCPlugin extends JavaPlugin {
 
             // Reload NPCs
             npcManager.loadNPCs();
+            salesAnalyticsManager.preload(npcManager.getNPCIds());
 
             // Restart tasks
             startSystemTasks();
@@ -457,7 +630,7 @@ public final class NPCPlugin extends JavaPlugin {
         }
 
         if (configManager.areLimitsEnabled() && configManager.getDailyLimit() <= 0) {
-            getLogger().warning("Invalid daily limit in config: " + configManager.getDailyLimit());
+            getLogger().warning("Invalid daily limit in config: " + Money.format(configManager.getDailyLimit()));
             valid = false;
         }
 
@@ -0,0 +1,93 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+// NPCs waiting to be spawned. A task drains the queue every tick with a budget
+// of npc-spawn.per-tick NPCs and npc-spawn.max-millis-per-tick milliseconds, so
+// adding thousands of NPCs (e.g. an import) does not freeze the server. The
+// task only runs while something is queued.
+public class NPCSpawnQueue {
+    private final JavaPlugin plugin;
+    private final ConfigManager config;
+    private final NPCManager npcManager;
+    private final Runnable timedDrain;
+
+    private final Deque<String> pending = new ArrayDeque<>();
+    private final Set<String> queued = new HashSet<>();
+    private BukkitTask task;
+    private int spawned;
+    private int failed;
+
+    public NPCSpawnQueue(JavaPlugin plugin, ConfigManager config, NPCManager npcManager, TickProfiler profiler) {
+        this.plugin = plugin;
+        this.config = config;
+        this.npcManager = npcManager;
+        this.timedDrain = profiler.wrap("npc-spawn-queue", this::drain);
+    }
+
+    public void add(String npcId) {
+        if (!queued.add(npcId)) {
+            return;
+        }
+        pending.add(npcId);
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, timedDrain, 1L, 1L);
+        }
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public void clear() {
+        pending.clear();
+        queued.clear();
+        stop();
+    }
+
+    private void drain() {
+        int budget = Math.max(1, config.getSpawnQueuePerTick());
+        long deadline = System.nanoTime() + config.getSpawnQueueMaxMillis() * 1_000_000L;
+
+        // At least one NPC per tick, whatever the time budget
+        do {
+            String npcId = pending.poll();
+            if (npcId == null) {
+                break;
+            }
+            queued.remove(npcId);
+
+            // Loaded meanwhile by a reload
+            if (npcManager.getNPC(npcId) != null) {
+                continue;
+            }
+            if (npcManager.loadNPC(npcId)) {
+                spawned++;
+            } else {
+                failed++;
+            }
+        } while (--budget > 0 && System.nanoTime() < deadline);
+
+        if (pending.isEmpty()) {
+            config.debugLog("Spawn queue drained: {} spawned, {} failed", spawned, failed);
+            spawned = 0;
+            failed = 0;
+            stop();
+        }
+    }
+
+    private void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Where NPC definitions are stored on disk (npc-storage.mode in config.yml).
+// SINGLE is the original npcs.yml. SHARDED keeps one npcs/<id>.yml per NPC plus
+// npcs/index.yml with the NPC order and global-settings; saving rewrites only
+// the shards whose content changed. Both layouts load into the same in-memory
+// configuration ("npcs.<id>..." + "global-settings"), so the rest of the plugin
+// does not care which one is used. If only the other layout exists on disk it
+// is migrated automatically and its entry file renamed to *.migrated.
+public class NPCStorage {
+
+    public enum Mode {
+        SINGLE,
+        SHARDED
+    }
+
+    private static final int INDEX_VERSION = 1;
+
+    private final JavaPlugin plugin;
+    private final Mode mode;
+    private final File singleFile;
+    private final File shardFolder;
+    private final File indexFile;
+
+    // Last content written per shard id, and for the index
+    private final Map<String, String> written = new HashMap<>();
+    private String writtenIndex;
+    private volatile long lastWrite;
+
+    public NPCStorage(JavaPlugin plugin, Mode mode) {
+        this.plugin = plugin;
+        this.mode = mode;
+        this.singleFile = new File(plugin.getDataFolder(), "npcs.yml");
+        this.shardFolder = new File(plugin.getDataFolder(), "npcs");
+        this.indexFile = new File(shardFolder, "index.yml");
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    // npcs.yml, or the shard folder
+    public File getLocation() {
+        return mode == Mode.SINGLE ? singleFile : shardFolder;
+    }
+
+    public boolean exists() {
+        return mode == Mode.SINGLE ? singleFile.exists() : indexFile.exists();
+    }
+
+    // Bytes on disk
+    public long getSize() {
+        if (mode == Mode.SINGLE) {
+            return singleFile.length();
+        }
+        long size = 0L;
+        File[] files = shardFolder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    public long getLastWrite() {
+        return lastWrite;
+    }
+
+    // Safe to call off the main thread: only files are touched
+    public YamlConfiguration load() {
+        if (mode == Mode.SINGLE) {
+            if (!singleFile.exists() && indexFile.exists()) {
+                YamlConfiguration migrated = loadShards();
+                migrate(migrated, indexFile);
+                return migrated;
+            }
+            if (!singleFile.exists()) {
+                plugin.saveResource("npcs.yml", false);
+            }
+            return YamlConfiguration.loadConfiguration(singleFile);
+        }
+
+        if (indexFile.exists()) {
+            return loadShards();
+        }
+
+        // First start in sharded mode: convert npcs.yml (or the bundled default)
+        if (!singleFile.exists()) {
+            plugin.saveResource("npcs.yml", false);
+        }
+        YamlConfiguration migrated = YamlConfiguration.loadConfiguration(singleFile);
+        migrate(migrated, singleFile);
+        return migrated;
+    }
+
+    private void migrate(YamlConfiguration npcsConfig, File oldEntry) {
+        try {
+            save(npcsConfig);
+        } catch (IOException e) {
+            // The old layout stays in place and is migrated again on the next start
+            plugin.getLogger().severe("Could not migrate NPC storage: " + e.getMessage());
+            return;
+        }
+
+        File archived = new File(oldEntry.getParentFile(), oldEntry.getName() + ".migrated");
+        if (!oldEntry.renameTo(archived)) {
+            plugin.getLogger().warning("Could not rename " + oldEntry.getName() + " after migrating NPC storage");
+        }
+
+        ConfigurationSection npcs = npcsConfig.getConfigurationSection("npcs");
+        plugin.getLogger().info("Migrated " + (npcs != null ? npcs.getKeys(false).size() : 0) +
+                " NPCs to " + mode.name().toLowerCase() + " storage (old file kept as " + archived.getName() + ")");
+    }
+
+    private YamlConfiguration loadShards() {
+        YamlConfiguration index = YamlConfiguration.loadConfiguration(indexFile);
+        List<String> ids = index.getStringList("npcs");
+
+        // Shards are independent, so they are parsed in parallel and merged in index order
+        List<YamlConfiguration> shards = ids.parallelStream()
+                .map(id -> YamlConfiguration.loadConfiguration(getShardFile(id)))
+                .collect(Collectors.toList());
+
+        YamlConfiguration npcsConfig = new YamlConfiguration();
+        npcsConfig.createSection("npcs");
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            if (!getShardFile(id).exists()) {
+                plugin.getLogger().warning("NPC '" + id + "' is listed in npcs/index.yml but has no shard file");
+                continue;
+            }
+            copyLeaves(shards.get(i), npcsConfig, "npcs." + id + ".");
+            written.put(id, shards.get(i).saveToString());
+        }
+
+        ConfigurationSection global = index.getConfigurationSection("global-settings");
+        if (global != null) {
+            copyLeaves(global, npcsConfig, "global-settings.");
+        }
+        writtenIndex = index.saveToString();
+
+        Set<String> listed = new HashSet<>(ids);
+        File[] files = shardFolder.listFiles((dir, name) -> name.endsWith(".yml") && !name.equals("index.yml"));
+        if (files != null) {
+            for (File file : files) {
+                String id = file.getName().substring(0, file.getName().length() - 4);
+                if (!listed.contains(id)) {
+                    plugin.getLogger().warning("Ignoring npcs/" + file.getName() + ": not listed in npcs/index.yml");
+                }
+            }
+        }
+        return npcsConfig;
+    }
+
+    // Writes everything that changed since the last save
+    public void save(FileConfiguration npcsConfig) throws IOException {
+        if (mode == Mode.SINGLE) {
+            npcsConfig.save(singleFile);
+            lastWrite = System.currentTimeMillis();
+            return;
+        }
+
+        ConfigurationSection npcs = npcsConfig.getConfigurationSection("npcs");
+        Set<String> ids = npcs != null ? npcs.getKeys(false) : new HashSet<>();
+        for (String id : ids) {
+            writeShard(id, npcs.getConfigurationSection(id));
+        }
+        for (String id : new ArrayList<>(written.keySet())) {
+            if (!ids.contains(id)) {
+                deleteShard(id);
+            }
+        }
+        writeIndex(npcsConfig, ids);
+    }
+
+    // Writes a single NPC's shard (deleting it if the NPC is gone) and the index if the NPC list changed
+    public void save(FileConfiguration npcsConfig, String npcId) throws IOException {
+        if (mode == Mode.SINGLE) {
+            save(npcsConfig);
+            return;
+        }
+
+        ConfigurationSection section = npcsConfig.getConfigurationSection("npcs." + npcId);
+        if (section != null) {
+            writeShard(npcId, section);
+        } else {
+            deleteShard(npcId);
+        }
+
+        ConfigurationSection npcs = npcsConfig.getConfigurationSection("npcs");
+        writeIndex(npcsConfig, npcs != null ? npcs.getKeys(false) : new HashSet<>());
+    }
+
+    private void writeShard(String id, ConfigurationSection section) throws IOException {
+        YamlConfiguration shard = new YamlConfiguration();
+        if (section != null) {
+            copyLeaves(section, shard, "");
+        }
+        String content = shard.saveToString();
+        if (!content.equals(written.get(id))) {
+            write(getShardFile(id), content);
+            written.put(id, content);
+        }
+    }
+
+    private void deleteShard(String id) throws IOException {
+        Files.deleteIfExists(getShardFile(id).toPath());
+        written.remove(id);
+        lastWrite = System.currentTimeMillis();
+    }
+
+    private void writeIndex(FileConfiguration npcsConfig, Set<String> ids) throws IOException {
+        YamlConfiguration index = new YamlConfiguration();
+        index.set("version", INDEX_VERSION);
+        index.set("npcs", new ArrayList<>(ids));
+        ConfigurationSection global = npcsConfig.getConfigurationSection("global-settings");
+        if (global != null) {
+            copyLeaves(global, index, "global-settings.");
+        }
+
+        String content = index.saveToString();
+        if (!content.equals(writtenIndex)) {
+            write(indexFile, content);
+            writtenIndex = content;
+        }
+    }
+
+    private void write(File target, String content) throws IOException {
+        if (!shardFolder.exists()) {
+            shardFolder.mkdirs();
+        }
+        File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+        Files.write(temp.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        lastWrite = System.currentTimeMillis();
+    }
+
+    private File getShardFile(String id) {
+        return new File(shardFolder, id + ".yml");
+    }
+
+    private static void copyLeaves(ConfigurationSection from, ConfigurationSection to, String prefix) {
+        for (String key : from.getKeys(true)) {
+            if (!from.isConfigurationSection(key)) {
+                to.set(prefix + key, from.get(key));
+            }
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.EntityType;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// /npc export and /npc import. Files live in exports/ and are line oriented:
+//
+//   #npcplugin-export 1
+//   npc <id>
+//   <path>\t<type>\t<value>      one line per setting, e.g. location.x  d  12.5
+//   end
+//
+// Types are s(tring), i(nteger), d(ecimal), b(oolean) and l(ist, elements
+// separated by tabs); tabs, newlines and backslashes in values are escaped.
+// Both directions run as a task handling npc-transfer.batch-size NPCs per tick
+// with the file open, so only one NPC is held in memory at a time. Imported
+// NPCs are validated as they are read, written to the NPC definitions and
+// handed to the NPCSpawnQueue.
+public class NPCTransfer {
+    public static final String EXTENSION = ".npcs";
+    private static final String HEADER = "#npcplugin-export 1";
+    private static final int MAX_REPORTED_ERRORS = 5;
+
+    private final JavaPlugin plugin;
+    private final ConfigManager config;
+    private final NPCManager npcManager;
+    private final TickProfiler.Section timing;
+    private final File folder;
+
+    private BukkitRunnable running;
+    private Closeable stream;
+
+    public NPCTransfer(JavaPlugin plugin, ConfigManager config, NPCManager npcManager, TickProfiler profiler) {
+        this.plugin = plugin;
+        this.config = config;
+        this.npcManager = npcManager;
+        this.timing = profiler.section("npc-transfer");
+        this.folder = new File(plugin.getDataFolder(), "exports");
+    }
+
+    public boolean isRunning() {
+        return running != null;
+    }
+
+    // On disable; NPCs imported so far are saved with the rest of the definitions
+    public void cancel() {
+        if (running != null) {
+            running.cancel();
+            running = null;
+            closeQuietly(stream);
+        }
+    }
+
+    // Export file names without the extension, for tab completion
+    public List<String> getExportNames() {
+        List<String> names = new ArrayList<>();
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                names.add(file.getName().substring(0, file.getName().length() - EXTENSION.length()));
+            }
+        }
+        return names;
+    }
+
+    // name may be null for a timestamped file; returns null if the name is not usable
+    public File resolveFile(String name) {
+        if (name == null) {
+            name = "npcs-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        }
+        if (name.endsWith(EXTENSION)) {
+            name = name.substring(0, name.length() - EXTENSION.length());
+        }
+        if (!name.matches("[a-zA-Z0-9_-]+")) {
+            return null;
+        }
+        return new File(folder, name + EXTENSION);
+    }
+
+    // Export
+    public void export(CommandSender sender, List<String> npcIds, File file) {
+        BufferedWriter writer;
+        try {
+            folder.mkdirs();
+            writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+            writer.write(HEADER);
+            writer.newLine();
+        } catch (IOException e) {
+            sender.sendMessage(ChatColor.RED + "Could not create " + file.getName() + ": " + e.getMessage());
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        stream = writer;
+        running = new BukkitRunnable() {
+            private final Runnable timedBatch = timing.wrap(this::writeBatch);
+            private int index;
+
+            @Override
+            public void run() {
+                timedBatch.run();
+            }
+
+            private void writeBatch() {
+                try {
+                    int batch = Math.max(1, config.getTransferBatchSize());
+                    for (int end = Math.min(npcIds.size(), index + batch); index < end; index++) {
+                        writeNPC(writer, npcIds.get(index));
+                    }
+                    if (index < npcIds.size()) {
+                        return;
+                    }
+                    writer.close();
+                    sender.sendMessage(ChatColor.GREEN + "Exported " + npcIds.size() + " NPCs to exports/" +
+                            file.getName() + " (" + (System.currentTimeMillis() - started) + "ms)");
+                } catch (IOException e) {
+                    closeQuietly(writer);
+                    sender.sendMessage(ChatColor.RED + "Export failed: " + e.getMessage());
+                    plugin.getLogger().warning("NPC export to " + file.getName() + " failed: " + e.getMessage());
+                }
+                finish(this);
+            }
+        };
+        running.runTaskTimer(plugin, 0L, 1L);
+    }
+
+    private void writeNPC(BufferedWriter writer, String npcId) throws IOException {
+        ConfigurationSection section = config.getNPCsConfig().getConfigurationSection("npcs." + npcId);
+        if (section == null) {
+            return;
+        }
+
+        writer.write("npc ");
+        writer.write(npcId);
+        writer.newLine();
+        for (String path : section.getKeys(true)) {
+            if (section.isConfigurationSection(path)) {
+                continue;
+            }
+            Object value = section.get(path);
+            writer.write(escape(path));
+            writer.write('\t');
+            writer.write(typeOf(value));
+            writer.write('\t');
+            writer.write(encode(value));
+            writer.newLine();
+        }
+        writer.write("end");
+        writer.newLine();
+    }
+
+    // Import
+    public void importFile(CommandSender sender, File file, boolean overwrite) {
+        BufferedReader reader;
+        try {
+            reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+            String header = reader.readLine();
+            if (!HEADER.equals(header)) {
+                reader.close();
+                sender.sendMessage(ChatColor.RED + file.getName() + " is not an NPC export file");
+                return;
+            }
+        } catch (IOException e) {
+            sender.sendMessage(ChatColor.RED + "Could not read " + file.getName() + ": " + e.getMessage());
+            return;
+        }
+
+        Importer importer = new Importer(sender, file, reader, overwrite);
+        stream = reader;
+        running = importer;
+        importer.runTaskTimer(plugin, 0L, 1L);
+    }
+
+    private class Importer extends BukkitRunnable {
+        private final CommandSender sender;
+        private final File file;
+        private final BufferedReader reader;
+        private final boolean overwrite;
+        private final long started = System.currentTimeMillis();
+        private final Runnable timedBatch = timing.wrap(this::readBatch);
+
+        private final List<String> errors = new ArrayList<>();
+        private int errorCount;
+        private int imported;
+        private int skipped;
+        private int lineNumber = 1;
+
+        // NPC being read
+        private String npcId;
+        private int npcLine;
+        private final Map<String, Object> values = new LinkedHashMap<>();
+        private String npcError;
+
+        private Importer(CommandSender sender, File file, BufferedReader reader, boolean overwrite) {
+            this.sender = sender;
+            this.file = file;
+            this.reader = reader;
+            this.overwrite = overwrite;
+        }
+
+        @Override
+        public void run() {
+            timedBatch.run();
+        }
+
+        private void readBatch() {
+            try {
+                int budget = Math.max(1, config.getTransferBatchSize());
+                String line;
+                while (budget > 0 && (line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (readLine(line)) {
+                        budget--;
+                    }
+                }
+                if (budget > 0) {
+                    // End of file
+                    if (npcId != null) {
+                        error(npcLine, "NPC '" + npcId + "' is missing its 'end' line");
+                    }
+                    complete();
+                }
+            } catch (IOException e) {
+                closeQuietly(reader);
+                sender.sendMessage(ChatColor.RED + "Import failed at line " + lineNumber + ": " + e.getMessage());
+                saveImported();
+                finish(this);
+            }
+        }
+
+        // Returns true when an NPC block was completed
+        private boolean readLine(String line) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                return false;
+            }
+
+            if (line.startsWith("npc ")) {
+                if (npcId != null) {
+                    error(npcLine, "NPC '" + npcId + "' is missing its 'end' line");
+                }
+                npcId = line.substring(4).trim();
+                npcLine = lineNumber;
+                npcError = npcId.matches("[a-zA-Z0-9_]+") ? null : "invalid NPC ID '" + npcId + "'";
+                values.clear();
+                return false;
+            }
+
+            if (npcId == null) {
+                error(lineNumber, "setting outside of an NPC block");
+                return false;
+            }
+
+            if (line.equals("end")) {
+                String problem = npcError != null ? npcError : validate();
+                if (problem != null) {
+                    error(npcLine, "NPC '" + npcId + "' skipped: " + problem);
+                } else {
+                    apply();
+                }
+                npcId = null;
+                values.clear();
+                return true;
+            }
+
+            if (npcError == null) {
+                String[] parts = line.split("\t", 3);
+                if (parts.length < 3) {
+                    npcError = "malformed line " + lineNumber;
+                } else {
+                    try {
+                        values.put(unescape(parts[0]), decode(parts[1], parts[2]));
+                    } catch (IllegalArgumentException e) {
+                        npcError = "line " + lineNumber + ": " + e.getMessage();
+                    }
+                }
+            }
+            return false;
+        }
+
+        private String validate() {
+            if (!(values.get("location.world") instanceof String)) {
+                return "location.world is missing";
+            }
+            for (String axis : new String[]{"location.x", "location.y", "location.z"}) {
+                if (!(values.get(axis) instanceof Number)) {
+                    return axis + " is missing or not a number";
+                }
+            }
+
+            Object entityType = values.get("entity-type");
+            if (entityType != null) {
+                try {
+                    EntityType.valueOf(entityType.toString().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    return "unknown entity type '" + entityType + "'";
+                }
+            }
+
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                if (!entry.getKey().startsWith("item-prices.")) {
+                    continue;
+                }
+                String materialName = entry.getKey().substring("item-prices.".length());
+                if (Material.getMaterial(materialName.toUpperCase()) == null) {
+                    return "unknown material '" + materialName + "' in item-prices";
+                }
+                if (!(entry.getValue() instanceof Number) || ((Number) entry.getValue()).doubleValue() < 0) {
+                    return "price of " + materialName + " must be a non-negative number";
+                }
+            }
+            return null;
+        }
+
+        private void apply() {
+            FileConfiguration npcsConfig = config.getNPCsConfig();
+            String path = "npcs." + npcId;
+            if (npcsConfig.isConfigurationSection(path)) {
+                if (!overwrite) {
+                    skipped++;
+                    return;
+                }
+                npcManager.despawnNPC(npcId);
+                npcsConfig.set(path, null);
+            }
+
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                npcsConfig.set(path + "." + entry.getKey(), entry.getValue());
+            }
+            if (config.isNPCEnabled(npcId)) {
+                npcManager.queueSpawn(npcId);
+            }
+            imported++;
+        }
+
+        private void error(int line, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Line " + line + ": " + message);
+            }
+        }
+
+        private void complete() {
+            closeQuietly(reader);
+            saveImported();
+
+            sender.sendMessage(ChatColor.GREEN + "Imported " + imported + " NPCs from exports/" + file.getName() +
+                    " (" + (System.currentTimeMillis() - started) + "ms)" +
+                    (skipped > 0 ? ChatColor.YELLOW + ", " + skipped + " already existed" : "") +
+                    (errorCount > 0 ? ChatColor.RED + ", " + errorCount + " errors" : ""));
+            for (String error : errors) {
+                sender.sendMessage(ChatColor.RED + "  " + error);
+            }
+            if (errorCount > errors.size()) {
+                sender.sendMessage(ChatColor.GRAY + "  ... and " + (errorCount - errors.size()) + " more");
+            }
+            if (imported > 0) {
+                sender.sendMessage(ChatColor.GRAY + "Spawning " + npcManager.getPendingSpawns() + " NPCs over the next ticks");
+            }
+            finish(this);
+        }
+
+        private void saveImported() {
+            if (imported > 0) {
+                // One save at the end; sharded storage only writes the new shards and the index
+                config.saveNPCsConfig();
+            }
+        }
+    }
+
+    private void finish(BukkitRunnable task) {
+        task.cancel();
+        if (running == task) {
+            running = null;
+            stream = null;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    // Value encoding
+    private static String typeOf(Object value) {
+        if (value instanceof Boolean) {
+            return "b";
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return "i";
+        }
+        if (value instanceof Number) {
+            return "d";
+        }
+        if (value instanceof List) {
+            return "l";
+        }
+        return "s";
+    }
+
+    private static String encode(Object value) {
+        if (value instanceof List) {
+            StringBuilder builder = new StringBuilder();
+            for (Object element : (List<?>) value) {
+                if (builder.length() > 0) {
+                    builder.append('\t');
+                }
+                builder.append(escape(String.valueOf(element)));
+            }
+            return builder.toString();
+        }
+        return escape(String.valueOf(value));
+    }
+
+    private static Object decode(String type, String value) {
+        switch (type) {
+            case "s":
+                return unescape(value);
+            case "i":
+                long number = Long.parseLong(value);
+                return number == (int) number ? (Object) (int) number : (Object) number;
+            case "d":
+                return Double.parseDouble(value);
+            case "b":
+                if (!value.equals("true") && !value.equals("false")) {
+                    throw new IllegalArgumentException("'" + value + "' is not a boolean");
+                }
+                return Boolean.parseBoolean(value);
+            case "l":
+                List<String> list = new ArrayList<>();
+                if (!value.isEmpty()) {
+                    for (String element : value.split("\t", -1)) {
+                        list.add(unescape(element));
+                    }
+                }
+                return list;
+            default:
+                throw new IllegalArgumentException("unknown value type '" + type + "'");
+        }
+    }
+
+    private static String escape(String text) {
+        if (text.indexOf('\\') < 0 && text.indexOf('\t') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        StringBuilder builder = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\': builder.append("\\\\"); break;
+                case '\t': builder.append("\\t"); break;
+                case '\n': builder.append("\\n"); break;
+                case '\r': builder.append("\\r"); break;
+                default: builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != '\\' || i + 1 == text.length()) {
+                builder.append(c);
+                continue;
+            }
+            char next = text.charAt(++i);
+            switch (next) {
+                case 't': builder.append('\t'); break;
+                case 'n': builder.append('\n'); break;
+                case 'r': builder.append('\r'); break;
+                default: builder.append(next);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public class PlayerDataListener implements Listener {
+    private final PlayerDataManager playerDataManager;
+
+    public PlayerDataListener(PlayerDataManager playerDataManager) {
+        this.playerDataManager = playerDataManager;
+    }
+
+    // Runs on the async login thread, so loading from disk here is free for the main thread
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        playerDataManager.preloadPlayerData(event.getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        playerDataManager.unloadPlayerData(event.getPlayer());
+    }
+}
@@ -1,73 +1,119 @@
 package online.zeptra.npcplugin;
 
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public class PlayerDataManager {
     private final JavaPlugin plugin;
+    private final TickProfiler profiler;
 
     // Player data storage
-    private final Map<UUID, PlayerSellData> playerData = new ConcurrentHashMap<>();
-    private final Map<UUID, Long> cooldownMap = new ConcurrentHashMap<>();
+    // Online (and pre-login) players are pinned; everyone else sits in a bounded
+    // LRU cache and spills to playerdata/<uuid>.yml when evicted
+    private final Map<UUID, PlayerSellData> onlineData = new ConcurrentHashMap<>();
+    // Data whose write is queued on the IO thread; until it lands, the file on disk is stale
+    private final Map<UUID, PlayerSellData> pendingWrites = new ConcurrentHashMap<>();
+    private final LinkedHashMap<UUID, PlayerSellData> recentData;
+    private final int cacheSize;
+    private final File dataFolder;
+    private final ExecutorService ioExecutor;
+    private final CooldownService cooldowns = new CooldownService(256);
+    private final LongAdder serverSoldAmount = new LongAdder();
 
     // Daily reset tracking
     private LocalDate lastResetDate;
-    private BukkitRunnable dailyResetTask;
+    private BukkitTask dailyResetTask;
+    private BukkitTask cooldownTask;
 
-    public PlayerDataManager(JavaPlugin plugin) {
+    public PlayerDataManager(JavaPlugin plugin, TickProfiler profiler) {
         this.plugin = plugin;
+        this.profiler = profiler;
+        this.cacheSize = Math.max(16, plugin.getConfig().getInt("player-data.cache-size", 1000));
+        this.dataFolder = new File(plugin.getDataFolder(), "playerdata");
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NPCPlugin-PlayerData");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.recentData = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, PlayerSellData> eldest) {
+                if (size() <= cacheSize) {
+                    return false;
+                }
+                spill(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
         this.lastResetDate = LocalDate.now();
         startDailyResetTask();
+        startCooldownTask();
     }
 
     // Cooldown Management
     public boolean isOnCooldown(Player player) {
-        Long cooldownEnd = cooldownMap.get(player.getUniqueId());
-        if (cooldownEnd == null) {
-            return false;
-        }
-
-        long currentTime = System.currentTimeMillis();
-        if (currentTime >= cooldownEnd) {
-            cooldownMap.remove(player.getUniqueId());
-            return false;
-        }
+        return isOnCooldown(player, CooldownService.Scope.PLAYER, null);
+    }
 
-        return true;
+    public boolean isOnCooldown(Player player, CooldownService.Scope scope, String key) {
+        return cooldowns.isActive(player.getUniqueId(), scope, key);
     }
 
     public void setCooldown(Player player, int seconds) {
-        if (seconds <= 0) return;
+        setCooldown(player, CooldownService.Scope.PLAYER, null, seconds * 1000L);
+    }
+
+    public void setCooldown(Player player, CooldownService.Scope scope, String key, long millis) {
+        if (millis <= 0) return;
 
-        long cooldownEnd = System.currentTimeMillis() + (seconds * 1000L);
-        cooldownMap.put(player.getUniqueId(), cooldownEnd);
+        cooldowns.set(player.getUniqueId(), scope, key, millis);
     }
 
     public long getRemainingCooldown(Player player) {
-        Long cooldownEnd = cooldownMap.get(player.getUniqueId());
-        if (cooldownEnd == null) {
-            return 0;
-        }
+        return getRemainingCooldown(player, CooldownService.Scope.PLAYER, null);
+    }
 
-        long remaining = (cooldownEnd - System.currentTimeMillis()) / 1000;
-        return Math.max(0, remaining);
+    // Remaining time in whole seconds, rounded up
+    public long getRemainingCooldown(Player player, CooldownService.Scope scope, String key) {
+        long remaining = cooldowns.getRemainingMillis(player.getUniqueId(), scope, key);
+        return (remaining + 999) / 1000;
     }
 
     public void removeCooldown(Player player) {
-        cooldownMap.remove(player.getUniqueId());
+        cooldowns.clearAll(player.getUniqueId());
     }
 
-    // Daily Limit Management
-    public double getDailySoldAmount(Player player) {
+    public CooldownService getCooldowns() {
+        return cooldowns;
+    }
+
+    // Daily Limit Management (amounts are Money minor units)
+    public long getDailySoldAmount(Player player) {
         PlayerSellData data = getPlayerData(player);
 
         // Check if data is from today
@@ -78,7 +124,12 @@ public class PlayerDataManager {
         return data.getDailySoldAmount();
     }
 
-    public void addSoldAmount(Player player, double amount) {
+    public void addSoldAmount(Player player, long amount) {
+        tryAddSoldAmount(player, amount, Long.MAX_VALUE);
+    }
+
+    // Atomically records the sale only if it keeps the player within the daily limit
+    public boolean tryAddSoldAmount(Player player, long amount, long dailyLimit) {
         PlayerSellData data = getPlayerData(player);
 
         // Reset if new day
@@ -86,8 +137,19 @@ public class PlayerDataManager {
             data.reset();
         }
 
-        data.addSoldAmount(amount);
+        if (!data.addSoldAmount(amount, dailyLimit)) {
+            return false;
+        }
+
         data.incrementTransactionCount();
+        data.setLastSellTime(System.currentTimeMillis());
+        serverSoldAmount.add(amount);
+        return true;
+    }
+
+    // Total sold by all players since startup
+    public long getServerSoldAmount() {
+        return serverSoldAmount.sum();
     }
 
     public int getDailyTransactionCount(Player player) {
@@ -100,17 +162,17 @@ public class PlayerDataManager {
         return data.getTransactionCount();
     }
 
-    public double getRemainingDailyLimit(Player player, double dailyLimit) {
-        double sold = getDailySoldAmount(player);
+    public long getRemainingDailyLimit(Player player, long dailyLimit) {
+        long sold = getDailySoldAmount(player);
         return Math.max(0, dailyLimit - sold);
     }
 
-    public boolean canSell(Player player, double amount, double dailyLimit) {
+    public boolean canSell(Player player, long amount, long dailyLimit) {
         if (isOnCooldown(player)) {
             return false;
         }
 
-        double currentSold = getDailySoldAmount(player);
+        long currentSold = getDailySoldAmount(player);
         return currentSold + amount <= dailyLimit;
     }
 
@@ -128,48 +190,296 @@ public class PlayerDataManager {
         );
     }
 
-    public void updateBestSale(Player player, double amount) {
+    public void updateBestSale(Player player, long amount) {
+        getPlayerData(player).updateBestSingleSale(amount);
+    }
+
+    // Per-NPC totals feed the per-NPC leaderboards
+    public void addNPCSoldAmount(Player player, String npcId, long amount) {
+        getPlayerData(player).addNPCSoldAmount(npcId, amount);
+    }
+
+    public long getNPCDailySoldAmount(Player player, String npcId) {
         PlayerSellData data = getPlayerData(player);
-        if (amount > data.getBestSingleSale()) {
-            data.setBestSingleSale(amount);
+
+        if (!data.getDate().equals(LocalDate.now())) {
+            data.reset();
         }
+
+        return data.getNPCDailySoldAmount(npcId);
+    }
+
+    public long getNPCTotalSoldAmount(Player player, String npcId) {
+        return getPlayerData(player).getNPCTotalSoldAmount(npcId);
+    }
+
+    public long getTotalSoldAmount(Player player) {
+        return getPlayerData(player).getTotalSoldAmount();
+    }
+
+    // True while the player's file is read in the background (see getPlayerData);
+    // starts that read if the player's data is not in memory
+    public boolean isLoading(Player player) {
+        return getPlayerData(player).loading;
     }
 
     // Data Management
     private PlayerSellData getPlayerData(Player player) {
-        UUID uuid = player.getUniqueId();
-        return playerData.computeIfAbsent(uuid, k -> new PlayerSellData());
+        return getPlayerData(player.getUniqueId());
+    }
+
+    private PlayerSellData getPlayerData(UUID uuid) {
+        PlayerSellData data = onlineData.get(uuid);
+        if (data != null) {
+            return data;
+        }
+
+        synchronized (recentData) {
+            data = recentData.get(uuid);
+        }
+        if (data == null) {
+            data = pendingWrites.get(uuid);
+        }
+        if (data != null) {
+            return data;
+        }
+
+        // Not preloaded (e.g. plugin reloaded while the player was online). Rather than
+        // reading the file on the main thread, hand out empty data now and fold the
+        // file into it once the IO thread has read it (see applyLoaded)
+        plugin.getLogger().warning("Player data for " + uuid + " was not preloaded, loading it in the background");
+        data = new PlayerSellData();
+        data.loading = true;
+        PlayerSellData existing = onlineData.putIfAbsent(uuid, data);
+        if (existing != null) {
+            return existing;
+        }
+        scheduleLoad(uuid, data);
+        return data;
+    }
+
+    // Called from AsyncPlayerPreLoginEvent, so the disk read never blocks the main thread
+    public void preloadPlayerData(UUID uuid) {
+        if (onlineData.containsKey(uuid)) {
+            return;
+        }
+
+        PlayerSellData data;
+        synchronized (recentData) {
+            data = recentData.get(uuid);
+        }
+        if (data == null) {
+            // Checked before the file: a queued write means the file is not current yet
+            data = pendingWrites.get(uuid);
+        }
+        if (data == null) {
+            data = readFromDisk(uuid);
+        }
+
+        // Pinned before it leaves the cache, so it is never in neither
+        onlineData.putIfAbsent(uuid, data);
+        synchronized (recentData) {
+            recentData.remove(uuid, data);
+        }
     }
 
     public void savePlayerData(Player player) {
-        // In a real implementation, this would save to file/database
-        // For now, data is kept in memory
-        PlayerSellData data = getPlayerData(player);
-        data.setLastSellTime(System.currentTimeMillis());
+        PlayerSellData data = onlineData.get(player.getUniqueId());
+        if (data != null && data.isDirty()) {
+            writeAsync(player.getUniqueId(), data);
+        }
     }
 
     public void loadPlayerData(Player player) {
-        // In a real implementation, this would load from file/database
-        // For now, data is created on-demand
         getPlayerData(player);
     }
 
+    // Flushes the player's data and moves it from the pinned set into the LRU cache
     public void unloadPlayerData(Player player) {
-        // Keep data in memory but could be optimized to save and unload
-        savePlayerData(player);
+        UUID uuid = player.getUniqueId();
+        PlayerSellData data = onlineData.get(uuid);
+        if (data == null) {
+            return;
+        }
+
+        if (data.isDirty()) {
+            writeAsync(uuid, data);
+        }
+
+        // Cached before it is unpinned, so a quick re-login finds it in one of the two
+        synchronized (recentData) {
+            recentData.put(uuid, data);
+        }
+        onlineData.remove(uuid, data);
     }
 
-    // Daily Reset System
-    private void startDailyResetTask() {
-        dailyResetTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                checkDailyReset();
+    // Demotes entries that were preloaded for logins that never completed
+    public void demoteOfflinePlayers() {
+        List<UUID> offline = new ArrayList<>();
+        for (UUID uuid : onlineData.keySet()) {
+            if (Bukkit.getPlayer(uuid) == null) {
+                offline.add(uuid);
             }
-        };
+        }
 
+        for (UUID uuid : offline) {
+            PlayerSellData data = onlineData.remove(uuid);
+            if (data != null) {
+                synchronized (recentData) {
+                    recentData.put(uuid, data);
+                }
+            }
+        }
+    }
+
+    public int getCachedPlayerCount() {
+        synchronized (recentData) {
+            return onlineData.size() + recentData.size();
+        }
+    }
+
+    // Disk Store
+    private File getDataFile(UUID uuid) {
+        return new File(dataFolder, uuid + ".yml");
+    }
+
+    private PlayerSellData readFromDisk(UUID uuid) {
+        File file = getDataFile(uuid);
+        if (!file.exists()) {
+            return new PlayerSellData();
+        }
+
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        PlayerSellData data = new PlayerSellData();
+        // Amounts are stored as Money minor units
+        data.date = LocalDate.ofEpochDay(yaml.getLong("date", LocalDate.now().toEpochDay()));
+        data.dailySoldAmount.set(readAmount(yaml, "daily-sold"));
+        data.dailyTransactionCount = yaml.getInt("daily-transactions", 0);
+        data.totalSoldAmount.add(readAmount(yaml, "total-sold"));
+        data.totalTransactionCount = yaml.getInt("total-transactions", 0);
+        data.lastSellTime = yaml.getLong("last-sell-time", 0L);
+        data.bestSingleSale.set(readAmount(yaml, "best-sale"));
+        readNPCAmounts(yaml.getConfigurationSection("npc-daily-sold"), data.npcDailySold);
+        readNPCAmounts(yaml.getConfigurationSection("npc-total-sold"), data.npcTotalSold);
+        return data;
+    }
+
+    // Older files stored amounts as decimal currency
+    private long readAmount(YamlConfiguration yaml, String path) {
+        if (yaml.isDouble(path)) {
+            return Money.fromDouble(yaml.getDouble(path));
+        }
+        return yaml.getLong(path, 0L);
+    }
+
+    private void readNPCAmounts(ConfigurationSection section, Map<String, Long> target) {
+        if (section == null) {
+            return;
+        }
+        for (String npcId : section.getKeys(false)) {
+            target.put(npcId, section.getLong(npcId));
+        }
+    }
+
+    // Snapshot is taken on the calling thread, the file is written on the IO thread
+    private YamlConfiguration snapshot(PlayerSellData data) {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("date", data.getDate().toEpochDay());
+        yaml.set("daily-sold", data.getDailySoldAmount());
+        yaml.set("daily-transactions", data.getTransactionCount());
+        yaml.set("total-sold", data.getTotalSoldAmount());
+        yaml.set("total-transactions", data.getTotalTransactionCount());
+        yaml.set("last-sell-time", data.getLastSellTime());
+        yaml.set("best-sale", data.getBestSingleSale());
+        for (Map.Entry<String, Long> entry : data.npcDailySold.entrySet()) {
+            yaml.set("npc-daily-sold." + entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Long> entry : data.npcTotalSold.entrySet()) {
+            yaml.set("npc-total-sold." + entry.getKey(), entry.getValue());
+        }
+        data.markClean();
+        return yaml;
+    }
+
+    private void writeAsync(UUID uuid, PlayerSellData data) {
+        if (data.loading) {
+            // Still missing what is on disk; applyLoaded writes it once merged
+            return;
+        }
+
+        YamlConfiguration yaml = snapshot(data);
+        if (ioExecutor.isShutdown()) {
+            writeToDisk(uuid, yaml);
+            return;
+        }
+        pendingWrites.put(uuid, data);
+        ioExecutor.execute(() -> {
+            writeToDisk(uuid, yaml);
+            pendingWrites.remove(uuid, data);
+        });
+    }
+
+    private void writeToDisk(UUID uuid, YamlConfiguration yaml) {
+        try {
+            if (!dataFolder.exists()) {
+                dataFolder.mkdirs();
+            }
+
+            // Write next to the target and swap, so a reader never sees a truncated file
+            File target = getDataFile(uuid);
+            File temp = new File(dataFolder, uuid + ".yml.tmp");
+            Files.write(temp.toPath(), yaml.saveToString().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save player data for " + uuid + ": " + e.getMessage());
+        }
+    }
+
+    // Runs on the IO thread behind any queued write for the player, so the file is current
+    private void scheduleLoad(UUID uuid, PlayerSellData data) {
+        if (ioExecutor.isShutdown()) {
+            data.loaded = readFromDisk(uuid);
+            applyLoaded(uuid, data);
+            return;
+        }
+        ioExecutor.execute(() -> {
+            data.loaded = readFromDisk(uuid);
+            Bukkit.getScheduler().runTask(plugin, () -> applyLoaded(uuid, data));
+        });
+    }
+
+    // Main thread: adds what was on disk to what was recorded while it loaded
+    private void applyLoaded(UUID uuid, PlayerSellData data) {
+        PlayerSellData loaded = data.loaded;
+        if (loaded == null) {
+            return;
+        }
+        data.loaded = null;
+        data.mergeFrom(loaded);
+        data.loading = false;
+        if (data.isDirty()) {
+            writeAsync(uuid, data);
+        }
+    }
+
+    // Called by the LRU cache while its lock is held
+    private void spill(UUID uuid, PlayerSellData data) {
+        if (data.isDirty()) {
+            writeAsync(uuid, data);
+        }
+    }
+
+    // Daily Reset System
+    private void startDailyResetTask() {
         // Check every minute for daily reset
-        dailyResetTask.runTaskTimer(plugin, 0L, 1200L);
+        dailyResetTask = Bukkit.getScheduler().runTaskTimer(plugin,
+                profiler.wrap("player-daily-reset", this::checkDailyReset), 0L, 1200L);
+    }
+
+    private void startCooldownTask() {
+        // Expired cooldowns are purged a slot at a time every tick
+        cooldownTask = Bukkit.getScheduler().runTaskTimer(plugin,
+                profiler.wrap("cooldowns", cooldowns::tick), 1L, 1L);
     }
 
     private void checkDailyReset() {
@@ -184,8 +494,8 @@ public class PlayerDataManager {
     private void performDailyReset() {
         plugin.getLogger().info("Performing daily reset for player sell data...");
 
-        // Reset all player daily data
-        for (PlayerSellData data : playerData.values()) {
+        // Reset daily data of cached players; data on disk is reset lazily when loaded
+        for (PlayerSellData data : getCachedData().values()) {
             if (!data.getDate().equals(LocalDate.now())) {
                 data.resetDailyData();
             }
@@ -198,45 +508,100 @@ public class PlayerDataManager {
         performDailyReset();
     }
 
+    private Map<UUID, PlayerSellData> getCachedData() {
+        Map<UUID, PlayerSellData> cached;
+        synchronized (recentData) {
+            cached = new HashMap<>(recentData);
+        }
+        cached.putAll(onlineData);
+        return cached;
+    }
+
     // Cleanup
     public void shutdown() {
         if (dailyResetTask != null) {
             dailyResetTask.cancel();
         }
 
-        // Save all player data
-        playerData.clear();
-        cooldownMap.clear();
+        if (cooldownTask != null) {
+            cooldownTask.cancel();
+        }
+
+        // Stop accepting writes and flush everything that changed
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for pending player data writes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        pendingWrites.clear();
+        for (Map.Entry<UUID, PlayerSellData> entry : getCachedData().entrySet()) {
+            // Loads that finished after the last tick still need merging
+            applyLoaded(entry.getKey(), entry.getValue());
+            if (entry.getValue().isDirty() && !entry.getValue().loading) {
+                writeToDisk(entry.getKey(), snapshot(entry.getValue()));
+            }
+        }
+
+        onlineData.clear();
+        synchronized (recentData) {
+            recentData.clear();
+        }
+        cooldowns.clear();
     }
 
     // Inner Classes
     private static class PlayerSellData {
         private LocalDate date;
-        private double dailySoldAmount;
+        private final AtomicLong dailySoldAmount = new AtomicLong();
         private int dailyTransactionCount;
-        private double totalSoldAmount;
+        private final LongAdder totalSoldAmount = new LongAdder();
         private int totalTransactionCount;
         private long lastSellTime;
-        private double bestSingleSale;
+        private final AtomicLong bestSingleSale = new AtomicLong();
+        private final Map<String, Long> npcDailySold = new ConcurrentHashMap<>();
+        private final Map<String, Long> npcTotalSold = new ConcurrentHashMap<>();
+        private volatile boolean dirty;
+        // Set while the file is read in the background; loaded is handed over by the IO thread
+        private volatile boolean loading;
+        private volatile PlayerSellData loaded;
 
         public PlayerSellData() {
             this.date = LocalDate.now();
-            this.dailySoldAmount = 0.0;
             this.dailyTransactionCount = 0;
-            this.totalSoldAmount = 0.0;
             this.totalTransactionCount = 0;
             this.lastSellTime = 0L;
-            this.bestSingleSale = 0.0;
         }
 
-        public void addSoldAmount(double amount) {
-            this.dailySoldAmount += amount;
-            this.totalSoldAmount += amount;
+        public boolean addSoldAmount(long amount, long dailyLimit) {
+            if (!Money.addWithinLimit(dailySoldAmount, amount, dailyLimit)) {
+                return false;
+            }
+            totalSoldAmount.add(amount);
+            this.dirty = true;
+            return true;
+        }
+
+        public void updateBestSingleSale(long amount) {
+            if (amount > bestSingleSale.get()) {
+                Money.max(bestSingleSale, amount);
+                this.dirty = true;
+            }
+        }
+
+        public void addNPCSoldAmount(String npcId, long amount) {
+            npcDailySold.merge(npcId, amount, Long::sum);
+            npcTotalSold.merge(npcId, amount, Long::sum);
+            this.dirty = true;
         }
 
         public void incrementTransactionCount() {
             this.dailyTransactionCount++;
             this.totalTransactionCount++;
+            this.dirty = true;
         }
 
         public void reset() {
@@ -245,35 +610,57 @@ public class PlayerDataManager {
         }
 
         public void resetDailyData() {
-            this.dailySoldAmount = 0.0;
+            this.dailySoldAmount.set(0L);
             this.dailyTransactionCount = 0;
+            this.npcDailySold.clear();
             this.date = LocalDate.now();
+            this.dirty = true;
+        }
+
+        // This object holds only what happened since it was created; daily
+        // figures on disk count only if they are from the same day
+        public void mergeFrom(PlayerSellData disk) {
+            if (disk.date.equals(date)) {
+                dailySoldAmount.addAndGet(disk.getDailySoldAmount());
+                dailyTransactionCount += disk.dailyTransactionCount;
+                disk.npcDailySold.forEach((npcId, amount) -> npcDailySold.merge(npcId, amount, Long::sum));
+            }
+            totalSoldAmount.add(disk.getTotalSoldAmount());
+            totalTransactionCount += disk.totalTransactionCount;
+            lastSellTime = Math.max(lastSellTime, disk.lastSellTime);
+            Money.max(bestSingleSale, disk.getBestSingleSale());
+            disk.npcTotalSold.forEach((npcId, amount) -> npcTotalSold.merge(npcId, amount, Long::sum));
         }
 
+        public boolean isDirty() { return dirty; }
+        public void markClean() { this.dirty = false; }
+
         // Getters and Setters
         public LocalDate getDate() { return date; }
-        public double getDailySoldAmount() { return dailySoldAmount; }
+        public long getDailySoldAmount() { return dailySoldAmount.get(); }
         public int getTransactionCount() { return dailyTransactionCount; }
-        public double getTotalSoldAmount() { return totalSoldAmount; }
+        public long getTotalSoldAmount() { return totalSoldAmount.sum(); }
         public int getTotalTransactionCount() { return totalTransactionCount; }
         public long getLastSellTime() { return lastSellTime; }
-        public double getBestSingleSale() { return bestSingleSale; }
+        public long getBestSingleSale() { return bestSingleSale.get(); }
+        public long getNPCDailySoldAmount(String npcId) { return npcDailySold.getOrDefault(npcId, 0L); }
+        public long getNPCTotalSoldAmount(String npcId) { return npcTotalSold.getOrDefault(npcId, 0L); }
 
-        public void setLastSellTime(long lastSellTime) { this.lastSellTime = lastSellTime; }
-        public void setBestSingleSale(double bestSingleSale) { this.bestSingleSale = bestSingleSale; }
+        public void setLastSellTime(long lastSellTime) { this.lastSellTime = lastSellTime; this.dirty = true; }
+        public void setDailySoldAmount(long amount) { this.dailySoldAmount.set(amount); this.dirty = true; }
     }
 
     public static class PlayerSellStats {
-        private final double totalSoldAmount;
+        private final long totalSoldAmount;
         private final int totalTransactions;
-        private final double dailySoldAmount;
+        private final long dailySoldAmount;
         private final int dailyTransactions;
         private final long lastSellTime;
-        private final double bestSingleSale;
+        private final long bestSingleSale;
 
-        public PlayerSellStats(double totalSoldAmount, int totalTransactions,
-                               double dailySoldAmount, int dailyTransactions,
-                               long lastSellTime, double bestSingleSale) {
+        public PlayerSellStats(long totalSoldAmount, int totalTransactions,
+                               long dailySoldAmount, int dailyTransactions,
+                               long lastSellTime, long bestSingleSale) {
             this.totalSoldAmount = totalSoldAmount;
             this.totalTransactions = totalTransactions;
             this.dailySoldAmount = dailySoldAmount;
@@ -283,15 +670,15 @@ public class PlayerDataManager {
         }
 
         // Getters
-        public double getTotalSoldAmount() { return totalSoldAmount; }
+        public long getTotalSoldAmount() { return totalSoldAmount; }
         public int getTotalTransactions() { return totalTransactions; }
-        public double getDailySoldAmount() { return dailySoldAmount; }
+        public long getDailySoldAmount() { return dailySoldAmount; }
         public int getDailyTransactions() { return dailyTransactions; }
         public long getLastSellTime() { return lastSellTime; }
-        public double getBestSingleSale() { return bestSingleSale; }
+        public long getBestSingleSale() { return bestSingleSale; }
 
-        public double getAveragePerTransaction() {
-            return totalTransactions > 0 ? totalSoldAmount / totalTransactions : 0.0;
+        public long getAveragePerTransaction() {
+            return totalTransactions > 0 ? totalSoldAmount / totalTransactions : 0L;
         }
     }
 
@@ -306,8 +693,8 @@ public class PlayerDataManager {
         }
     }
 
-    public String formatCurrency(double amount) {
-        return String.format("$%.2f", amount);
+    public String formatCurrency(long amount) {
+        return "$" + Money.format(amount);
     }
 
     // Admin Commands Support
@@ -317,15 +704,15 @@ public class PlayerDataManager {
         removeCooldown(player);
     }
 
-    public void setPlayerDailyAmount(Player player, double amount) {
-        PlayerSellData data = getPlayerData(player);
-        data.dailySoldAmount = amount;
+    public void setPlayerDailyAmount(Player player, long amount) {
+        getPlayerData(player).setDailySoldAmount(amount);
     }
 
+    // Only covers players currently held in memory
     public Map<UUID, PlayerSellStats> getAllPlayerStats() {
         Map<UUID, PlayerSellStats> stats = new HashMap<>();
 
-        for (Map.Entry<UUID, PlayerSellData> entry : playerData.entrySet()) {
+        for (Map.Entry<UUID, PlayerSellData> entry : getCachedData().entrySet()) {
             PlayerSellData data = entry.getValue();
             stats.put(entry.getKey(), new PlayerSellStats(
                     data.getTotalSoldAmount(),
@@ -0,0 +1,217 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Paged price list opened from the sell GUI's price info button. Pages are
+// built once per NPC, category and message language and reused until prices or the NPC
+// set change (ConfigManager price version / NPCManager modification count),
+// a scheduled price event starts or ends, or - with dynamic pricing on - the
+// refresh interval passes. Flipping a page only swaps in prebuilt contents.
+public class PriceCatalog {
+    private static final int SIZE = 54;
+    private static final int ITEMS_PER_PAGE = 45;
+    private static final int SLOT_PREVIOUS = 45;
+    private static final int SLOT_BACK = 48;
+    private static final int SLOT_PAGE = 49;
+    private static final int SLOT_NEXT = 53;
+
+    // Marks catalog inventories and remembers what is shown in them
+    public static class Holder implements InventoryHolder {
+        private final String npcId;
+        private final String category;
+        private final ItemStack[][] pages;
+        private int page;
+        private Inventory inventory;
+
+        private Holder(String npcId, String category, ItemStack[][] pages) {
+            this.npcId = npcId;
+            this.category = category;
+            this.pages = pages;
+        }
+
+        public String getNpcId() { return npcId; }
+        public String getCategory() { return category; }
+        public int getPage() { return page; }
+
+        @Override
+        public Inventory getInventory() {
+            return inventory;
+        }
+    }
+
+    private static final class Pages {
+        private final ItemStack[][] contents;
+        private final long validUntil;
+
+        private Pages(ItemStack[][] contents, long validUntil) {
+            this.contents = contents;
+            this.validUntil = validUntil;
+        }
+    }
+
+    private final ConfigManager config;
+    private final NPCManager npcManager;
+    private final BestPriceIndex bestPrices;
+    private final DynamicPricing dynamicPricing;
+
+    private final Map<String, Pages> cache = new HashMap<>();
+    private int npcVersion = -1;
+    private int priceVersion = -1;
+
+    public PriceCatalog(ConfigManager config, NPCManager npcManager, BestPriceIndex bestPrices,
+                        DynamicPricing dynamicPricing) {
+        this.config = config;
+        this.npcManager = npcManager;
+        this.bestPrices = bestPrices;
+        this.dynamicPricing = dynamicPricing;
+    }
+
+    // Returns the catalog inventory that was opened
+    public Inventory open(Player player, TraderNPC npc, String category) {
+        MessageCatalog messages = config.getMessages(player);
+        ItemStack[][] pages = getPages(npc, category, messages);
+
+        Holder holder = new Holder(npc.getId(), category, pages);
+        String title = messages.get("catalog-title").format("npc_name", ChatColor.stripColor(npc.getName()));
+        holder.inventory = Bukkit.createInventory(holder, SIZE, title);
+        holder.inventory.setContents(pages[0]);
+        player.openInventory(holder.inventory);
+        return holder.inventory;
+    }
+
+    // Returns true when the player asked to go back to the sell GUI
+    public boolean handleClick(Holder holder, int rawSlot) {
+        switch (rawSlot) {
+            case SLOT_PREVIOUS:
+                showPage(holder, holder.page - 1);
+                return false;
+            case SLOT_NEXT:
+                showPage(holder, holder.page + 1);
+                return false;
+            case SLOT_BACK:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void showPage(Holder holder, int page) {
+        if (page < 0 || page >= holder.pages.length || page == holder.page) {
+            return;
+        }
+        holder.page = page;
+        holder.inventory.setContents(holder.pages[page]);
+    }
+
+    public void invalidate() {
+        cache.clear();
+    }
+
+    public int getCachedCatalogs() {
+        return cache.size();
+    }
+
+    private ItemStack[][] getPages(TraderNPC npc, String category, MessageCatalog messages) {
+        if (npcVersion != npcManager.getModCount() || priceVersion != config.getPriceVersion()) {
+            cache.clear();
+            npcVersion = npcManager.getModCount();
+            priceVersion = config.getPriceVersion();
+        }
+
+        long now = System.currentTimeMillis();
+        String key = npc.getId() + '|' + category + '|' + messages.getLanguage();
+        Pages pages = cache.get(key);
+        if (pages == null || now >= pages.validUntil) {
+            long validUntil = config.getPriceScheduleNextChange(now);
+            if (dynamicPricing.isEnabled()) {
+                validUntil = Math.min(validUntil, now + config.getCatalogRefreshSeconds() * 1000L);
+            }
+            pages = new Pages(build(npc, category, messages), validUntil);
+            cache.put(key, pages);
+            config.debugLog("Built price catalog {} ({} pages)", key, pages.contents.length);
+        }
+        return pages.contents;
+    }
+
+    private ItemStack[][] build(TraderNPC npc, String category, MessageCatalog messages) {
+        List<Material> materials = new ArrayList<>();
+        if ("all".equals(category)) {
+            materials.addAll(bestPrices.getMaterials());
+        } else {
+            for (String name : config.getItemCategory(category)) {
+                Material material = Material.getMaterial(name);
+                if (material != null) {
+                    materials.add(material);
+                }
+            }
+        }
+
+        List<ItemStack> entries = new ArrayList<>();
+        Message priceLine = messages.get("catalog-price");
+        for (Material material : materials) {
+            long price = npc.getItemPrice(material);
+            if (price <= 0 || !material.isItem()) {
+                continue;
+            }
+            entries.add(createItem(material, ChatColor.AQUA + messages.getItemName(material),
+                    Arrays.asList(priceLine.format("price", Money.format(price)))));
+        }
+
+        int pageCount = Math.max(1, (entries.size() + ITEMS_PER_PAGE - 1) / ITEMS_PER_PAGE);
+        ItemStack[][] pages = new ItemStack[pageCount][];
+        ItemStack filler = createItem(Material.GRAY_STAINED_GLASS_PANE, " ", null);
+        ItemStack back = createItem(Material.BARRIER, messages.get("catalog-back").getText(), null);
+        ItemStack previous = createItem(Material.ARROW, messages.get("catalog-previous").getText(), null);
+        ItemStack next = createItem(Material.ARROW, messages.get("catalog-next").getText(), null);
+
+        for (int page = 0; page < pageCount; page++) {
+            ItemStack[] contents = new ItemStack[SIZE];
+            int start = page * ITEMS_PER_PAGE;
+            for (int i = start; i < Math.min(entries.size(), start + ITEMS_PER_PAGE); i++) {
+                contents[i - start] = entries.get(i);
+            }
+
+            for (int slot = ITEMS_PER_PAGE; slot < SIZE; slot++) {
+                contents[slot] = filler;
+            }
+            if (page > 0) {
+                contents[SLOT_PREVIOUS] = previous;
+            }
+            if (page + 1 < pageCount) {
+                contents[SLOT_NEXT] = next;
+            }
+            contents[SLOT_BACK] = back;
+            contents[SLOT_PAGE] = createItem(Material.PAPER, messages.get("catalog-page")
+                    .format("page", page + 1, "pages", pageCount), null);
+            pages[page] = contents;
+        }
+
+        return pages;
+    }
+
+    private ItemStack createItem(Material material, String name, List<String> lore) {
+        ItemStack item = new ItemStack(material);
+        ItemMeta meta = item.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName(name);
+            if (lore != null) {
+                meta.setLore(lore);
+            }
+            item.setItemMeta(meta);
+        }
+        return item;
+    }
+}
@@ -0,0 +1,320 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+// Scheduled price events (price-schedule in config.yml) compiled into a sorted
+// timeline of segments. Each segment holds the events active during it, so a
+// lookup only compares the clock against the current segment's end; moving to
+// the next segment is an index increment. Weekly events are expanded a week
+// ahead and the timeline is recompiled once that horizon has passed.
+public class PriceSchedule {
+    private static final long HORIZON_DAYS = 8;
+    private static final Event[] NO_EVENTS = new Event[0];
+
+    // A compiled price-schedule entry
+    private static final class Event {
+        private final String name;
+        private final Set<String> npcs;          // empty = every NPC
+        private final boolean[] materials;       // null = every material
+        private final double multiplier;
+        private final PriceTable overrides;
+        private final EnumSet<DayOfWeek> days;
+        private final LocalTime start;
+        private final LocalTime end;
+        private final LocalDateTime from;        // one-off events
+        private final LocalDateTime to;
+
+        private Event(String name, Set<String> npcs, boolean[] materials, double multiplier, PriceTable overrides,
+                      EnumSet<DayOfWeek> days, LocalTime start, LocalTime end,
+                      LocalDateTime from, LocalDateTime to) {
+            this.name = name;
+            this.npcs = npcs;
+            this.materials = materials;
+            this.multiplier = multiplier;
+            this.overrides = overrides;
+            this.days = days;
+            this.start = start;
+            this.end = end;
+            this.from = from;
+            this.to = to;
+        }
+
+        private boolean appliesTo(String npcId) {
+            return npcs.isEmpty() || (npcId != null && npcs.contains(npcId));
+        }
+    }
+
+    private final List<Event> events;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Timeline: segment i covers [boundaries[i], boundaries[i + 1])
+    private long[] boundaries = new long[0];
+    private Event[][] layers = new Event[0][];
+    private long horizonEnd = Long.MIN_VALUE;
+
+    private int segment = -1;
+    private long segmentStart = Long.MAX_VALUE;
+    private long segmentEnd = Long.MIN_VALUE;
+    private Event[] active = NO_EVENTS;
+
+    private PriceSchedule(List<Event> events) {
+        this.events = events;
+    }
+
+    public static PriceSchedule empty() {
+        return new PriceSchedule(new ArrayList<>());
+    }
+
+    public static PriceSchedule compile(ConfigurationSection section, Function<String, List<String>> categories,
+                                        Logger logger) {
+        if (section == null || !section.getBoolean("enabled", true)) {
+            return empty();
+        }
+
+        ConfigurationSection eventsSection = section.getConfigurationSection("events");
+        if (eventsSection == null) {
+            return empty();
+        }
+
+        List<Event> events = new ArrayList<>();
+        for (String name : eventsSection.getKeys(false)) {
+            ConfigurationSection eventSection = eventsSection.getConfigurationSection(name);
+            if (eventSection == null) {
+                continue;
+            }
+            try {
+                events.add(parseEvent(name, eventSection, categories, logger));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                logger.warning("Invalid price-schedule event '" + name + "': " + e.getMessage());
+            }
+        }
+
+        return new PriceSchedule(events);
+    }
+
+    private static Event parseEvent(String name, ConfigurationSection section,
+                                    Function<String, List<String>> categories, Logger logger) {
+        Set<String> npcs = new HashSet<>(section.getStringList("npcs"));
+
+        // Materials and categories narrow the multiplier; without either it applies to everything
+        boolean[] materials = null;
+        List<String> materialNames = new ArrayList<>(section.getStringList("materials"));
+        for (String category : section.getStringList("categories")) {
+            materialNames.addAll(categories.apply(category));
+        }
+        if (!materialNames.isEmpty()) {
+            materials = new boolean[Material.values().length];
+            for (String materialName : materialNames) {
+                Material material = Material.getMaterial(materialName.toUpperCase(Locale.ROOT));
+                if (material == null) {
+                    logger.warning("Unknown material '" + materialName + "' in price-schedule event '" + name + "'");
+                    continue;
+                }
+                materials[material.ordinal()] = true;
+            }
+        }
+
+        double multiplier = section.getDouble("multiplier", 1.0);
+        if (multiplier < 0) {
+            throw new IllegalArgumentException("multiplier must not be negative");
+        }
+
+        PriceTable overrides = PriceTable.compile(section.getConfigurationSection("prices"), logger,
+                "price-schedule event '" + name + "'");
+
+        String from = section.getString("from");
+        String to = section.getString("to");
+        if (from != null || to != null) {
+            if (from == null || to == null) {
+                throw new IllegalArgumentException("one-off events need both 'from' and 'to'");
+            }
+            return new Event(name, npcs, materials, multiplier, overrides, null, null, null,
+                    LocalDateTime.parse(from), LocalDateTime.parse(to));
+        }
+
+        EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : section.getStringList("days")) {
+            days.add(DayOfWeek.valueOf(day.toUpperCase(Locale.ROOT)));
+        }
+        if (days.isEmpty()) {
+            days = EnumSet.allOf(DayOfWeek.class);
+        }
+
+        LocalTime start = parseTime(section.getString("start", "00:00"));
+        LocalTime end = parseTime(section.getString("end", "24:00"));
+        return new Event(name, npcs, materials, multiplier, overrides, days, start, end, null, null);
+    }
+
+    // "24:00" is accepted as the end of the day
+    private static LocalTime parseTime(String value) {
+        return "24:00".equals(value) ? LocalTime.MIDNIGHT : LocalTime.parse(value);
+    }
+
+    public boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    // Applies the active layer to a configured price. npcId may be null for global lookups.
+    public long apply(String npcId, Material material, long basePrice, long now) {
+        if (events.isEmpty()) {
+            return basePrice;
+        }
+
+        Event[] layer = activeLayer(now);
+        if (layer.length == 0) {
+            return basePrice;
+        }
+
+        long price = basePrice;
+        double multiplier = 1.0;
+        int ordinal = material.ordinal();
+
+        for (Event event : layer) {
+            if (!event.appliesTo(npcId)) {
+                continue;
+            }
+            if (event.overrides.contains(material)) {
+                price = event.overrides.get(material);
+            }
+            if (event.materials == null || event.materials[ordinal]) {
+                multiplier *= event.multiplier;
+            }
+        }
+
+        return multiplier == 1.0 ? price : Money.scale(price, multiplier);
+    }
+
+    // End of the segment containing now; Long.MAX_VALUE without events
+    public long getNextChange(long now) {
+        if (events.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        activeLayer(now);
+        return segmentEnd;
+    }
+
+    // Materials given a fixed price by any event
+    public List<Material> getOverrideMaterials() {
+        List<Material> materials = new ArrayList<>();
+        for (Event event : events) {
+            materials.addAll(event.overrides.getMaterials());
+        }
+        return materials;
+    }
+
+    // Names of the events active right now
+    public List<String> getActiveEvents(long now) {
+        List<String> names = new ArrayList<>();
+        for (Event event : activeLayer(now)) {
+            names.add(event.name);
+        }
+        return names;
+    }
+
+    private Event[] activeLayer(long now) {
+        if (now >= segmentStart && now < segmentEnd) {
+            return active;
+        }
+
+        // Past the expanded horizon, or the clock went backwards
+        if (now >= horizonEnd || now < segmentStart) {
+            rebuild(now);
+        }
+
+        // Usually just the next segment
+        while (segment + 1 < boundaries.length && now >= boundaries[segment + 1]) {
+            segment++;
+        }
+
+        if (segment < 0) {
+            segmentStart = Long.MIN_VALUE;
+            segmentEnd = boundaries.length > 0 ? boundaries[0] : horizonEnd;
+            active = NO_EVENTS;
+        } else {
+            segmentStart = boundaries[segment];
+            segmentEnd = segment + 1 < boundaries.length ? boundaries[segment + 1] : horizonEnd;
+            active = layers[segment];
+        }
+        return active;
+    }
+
+    private void rebuild(long now) {
+        LocalDate today = LocalDate.ofInstant(Instant.ofEpochMilli(now), zone);
+        long windowStart = toMillis(today.minusDays(1).atStartOfDay());
+        long windowEnd = toMillis(today.plusDays(HORIZON_DAYS).atStartOfDay());
+
+        // Expand every event into concrete intervals inside the window
+        List<long[]> intervals = new ArrayList<>();
+        List<Event> owners = new ArrayList<>();
+        for (Event event : events) {
+            if (event.from != null) {
+                addInterval(intervals, owners, event, toMillis(event.from), toMillis(event.to), windowStart, windowEnd);
+                continue;
+            }
+            for (LocalDate date = today.minusDays(1); date.isBefore(today.plusDays(HORIZON_DAYS)); date = date.plusDays(1)) {
+                if (!event.days.contains(date.getDayOfWeek())) {
+                    continue;
+                }
+                LocalDateTime start = date.atTime(event.start);
+                LocalDateTime end = event.end.isAfter(event.start) ? date.atTime(event.end) : date.plusDays(1).atTime(event.end);
+                addInterval(intervals, owners, event, toMillis(start), toMillis(end), windowStart, windowEnd);
+            }
+        }
+
+        TreeSet<Long> points = new TreeSet<>();
+        for (long[] interval : intervals) {
+            points.add(interval[0]);
+            points.add(interval[1]);
+        }
+
+        boundaries = new long[points.size()];
+        layers = new Event[points.size()][];
+        int index = 0;
+        for (long point : points) {
+            boundaries[index] = point;
+            List<Event> layer = new ArrayList<>();
+            for (int i = 0; i < intervals.size(); i++) {
+                long[] interval = intervals.get(i);
+                if (interval[0] <= point && point < interval[1] && !layer.contains(owners.get(i))) {
+                    layer.add(owners.get(i));
+                }
+            }
+            layers[index++] = layer.isEmpty() ? NO_EVENTS : layer.toArray(new Event[0]);
+        }
+
+        horizonEnd = windowEnd;
+        segment = -1;
+    }
+
+    private static void addInterval(List<long[]> intervals, List<Event> owners, Event event,
+                                    long start, long end, long windowStart, long windowEnd) {
+        start = Math.max(start, windowStart);
+        end = Math.min(end, windowEnd);
+        if (start < end) {
+            intervals.add(new long[] { start, end });
+            owners.add(event);
+        }
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(zone).toInstant().toEpochMilli();
+    }
+}
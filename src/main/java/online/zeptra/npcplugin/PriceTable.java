@@ -0,0 +1,69 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+// Prices compiled from an item-prices section into an array indexed by
+// Material ordinal. Values are Money minor units.
+public class PriceTable {
+    private static final Material[] MATERIALS = Material.values();
+
+    private final long[] prices = new long[MATERIALS.length];
+    private final boolean[] present = new boolean[MATERIALS.length];
+    private final List<Material> materials;
+
+    private PriceTable(List<Material> materials) {
+        this.materials = materials;
+    }
+
+    public static PriceTable empty() {
+        return new PriceTable(Collections.emptyList());
+    }
+
+    public static PriceTable compile(ConfigurationSection section, Logger logger, String sourceName) {
+        if (section == null) {
+            return empty();
+        }
+
+        List<Material> materials = new ArrayList<>();
+        PriceTable table = new PriceTable(materials);
+
+        for (String key : section.getKeys(false)) {
+            Material material = Material.getMaterial(key.toUpperCase());
+            if (material == null) {
+                logger.warning("Unknown material '" + key + "' in " + sourceName + ", ignoring");
+                continue;
+            }
+
+            int index = material.ordinal();
+            table.prices[index] = Money.fromDouble(section.getDouble(key, 0.0));
+            if (!table.present[index]) {
+                table.present[index] = true;
+                materials.add(material);
+            }
+        }
+
+        return table;
+    }
+
+    public long get(Material material) {
+        return prices[material.ordinal()];
+    }
+
+    public boolean contains(Material material) {
+        return present[material.ordinal()];
+    }
+
+    public List<Material> getMaterials() {
+        return Collections.unmodifiableList(materials);
+    }
+
+    public int size() {
+        return materials.size();
+    }
+}
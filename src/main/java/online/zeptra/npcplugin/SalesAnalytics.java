@@ -0,0 +1,329 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Material;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Rolling per-material sales counters for one NPC.
+// Every material that was ever sold gets a row; each window keeps its rows in
+// flat long arrays (row * buckets + bucket) stamped with the bucket epoch, so a
+// stale bucket is detected and reset on write. Recording a sale never allocates
+// unless a new material needs a row. Main thread only.
+public class SalesAnalytics {
+
+    public enum Window {
+        MINUTE(60_000L, 60),        // last hour, one bucket per minute
+        HOUR(3_600_000L, 24),       // last day, one bucket per hour
+        DAY(86_400_000L, 30);       // last 30 days, one bucket per day
+
+        private final long bucketMillis;
+        private final int buckets;
+
+        Window(long bucketMillis, int buckets) {
+            this.bucketMillis = bucketMillis;
+            this.buckets = buckets;
+        }
+
+        public long getBucketMillis() { return bucketMillis; }
+        public int getBuckets() { return buckets; }
+        public long getSpanMillis() { return bucketMillis * buckets; }
+    }
+
+    private static final int SNAPSHOT_MAGIC = 0x4E504353; // "NPCS"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final Material[] MATERIALS = Material.values();
+    private static final Window[] WINDOWS = Window.values();
+
+    private final int[] rowByOrdinal = new int[MATERIALS.length];
+    private Material[] rowMaterials;
+    private int rows;
+
+    // Indexed by window ordinal
+    private final long[][] stamps = new long[WINDOWS.length][];
+    private final long[][] items = new long[WINDOWS.length][];
+    private final long[][] revenue = new long[WINDOWS.length][];
+
+    private boolean dirty;
+
+    public SalesAnalytics() {
+        Arrays.fill(rowByOrdinal, -1);
+        allocate(8);
+    }
+
+    public void record(Material material, int amount, long price, long now) {
+        int row = getOrCreateRow(material);
+
+        for (int w = 0; w < WINDOWS.length; w++) {
+            Window window = WINDOWS[w];
+            long epoch = now / window.bucketMillis;
+            int index = row * window.buckets + (int) (epoch % window.buckets);
+
+            if (stamps[w][index] != epoch) {
+                stamps[w][index] = epoch;
+                items[w][index] = 0L;
+                revenue[w][index] = 0L;
+            }
+            items[w][index] += amount;
+            revenue[w][index] += price;
+        }
+
+        dirty = true;
+    }
+
+    public long getItems(Material material, Window window, long now) {
+        int row = rowByOrdinal[material.ordinal()];
+        return row < 0 ? 0L : sumRow(items, row, window, now);
+    }
+
+    public long getRevenue(Material material, Window window, long now) {
+        int row = rowByOrdinal[material.ordinal()];
+        return row < 0 ? 0L : sumRow(revenue, row, window, now);
+    }
+
+    public long getTotalItems(Window window, long now) {
+        long total = 0L;
+        for (int row = 0; row < rows; row++) {
+            total += sumRow(items, row, window, now);
+        }
+        return total;
+    }
+
+    public long getTotalRevenue(Window window, long now) {
+        long total = 0L;
+        for (int row = 0; row < rows; row++) {
+            total += sumRow(revenue, row, window, now);
+        }
+        return total;
+    }
+
+    // Materials with revenue in the window, best first
+    public Material[] getTopMaterials(Window window, long now, int limit) {
+        Material[] top = new Material[Math.min(limit, rows)];
+        long[] topRevenue = new long[top.length];
+        int count = 0;
+
+        for (int row = 0; row < rows; row++) {
+            long value = sumRow(revenue, row, window, now);
+            if (value <= 0) {
+                continue;
+            }
+
+            int position = count < top.length ? count++ : top.length;
+            while (position > 0 && topRevenue[position - 1] < value) {
+                if (position < top.length) {
+                    top[position] = top[position - 1];
+                    topRevenue[position] = topRevenue[position - 1];
+                }
+                position--;
+            }
+            if (position < top.length) {
+                top[position] = rowMaterials[row];
+                topRevenue[position] = value;
+            }
+        }
+
+        return Arrays.copyOf(top, count);
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void clear() {
+        for (int w = 0; w < WINDOWS.length; w++) {
+            Arrays.fill(stamps[w], -1L);
+            Arrays.fill(items[w], 0L);
+            Arrays.fill(revenue[w], 0L);
+        }
+        dirty = true;
+    }
+
+    // Adds a snapshot loaded after this object started recording: per bucket the
+    // newer epoch wins and equal epochs are summed
+    public void mergeFrom(SalesAnalytics other) {
+        for (int otherRow = 0; otherRow < other.rows; otherRow++) {
+            int row = getOrCreateRow(other.rowMaterials[otherRow]);
+            for (int w = 0; w < WINDOWS.length; w++) {
+                int buckets = WINDOWS[w].buckets;
+                for (int bucket = 0; bucket < buckets; bucket++) {
+                    int from = otherRow * buckets + bucket;
+                    int to = row * buckets + bucket;
+                    long stamp = other.stamps[w][from];
+                    if (stamp > stamps[w][to]) {
+                        stamps[w][to] = stamp;
+                        items[w][to] = other.items[w][from];
+                        revenue[w][to] = other.revenue[w][from];
+                    } else if (stamp == stamps[w][to] && stamp >= 0) {
+                        items[w][to] += other.items[w][from];
+                        revenue[w][to] += other.revenue[w][from];
+                    }
+                }
+            }
+        }
+        dirty = true;
+    }
+
+    private long sumRow(long[][] values, int row, Window window, long now) {
+        int w = window.ordinal();
+        long current = now / window.bucketMillis;
+        long oldest = current - window.buckets + 1;
+        int base = row * window.buckets;
+
+        long sum = 0L;
+        for (int bucket = 0; bucket < window.buckets; bucket++) {
+            long stamp = stamps[w][base + bucket];
+            if (stamp >= oldest && stamp <= current) {
+                sum += values[w][base + bucket];
+            }
+        }
+        return sum;
+    }
+
+    private int getOrCreateRow(Material material) {
+        int row = rowByOrdinal[material.ordinal()];
+        if (row >= 0) {
+            return row;
+        }
+
+        if (rows == rowMaterials.length) {
+            allocate(rows * 2);
+        }
+        row = rows++;
+        rowByOrdinal[material.ordinal()] = row;
+        rowMaterials[row] = material;
+        return row;
+    }
+
+    private void allocate(int capacity) {
+        rowMaterials = rowMaterials == null ? new Material[capacity] : Arrays.copyOf(rowMaterials, capacity);
+
+        for (int w = 0; w < WINDOWS.length; w++) {
+            int length = capacity * WINDOWS[w].buckets;
+            int previous = stamps[w] == null ? 0 : stamps[w].length;
+
+            stamps[w] = stamps[w] == null ? new long[length] : Arrays.copyOf(stamps[w], length);
+            items[w] = items[w] == null ? new long[length] : Arrays.copyOf(items[w], length);
+            revenue[w] = revenue[w] == null ? new long[length] : Arrays.copyOf(revenue[w], length);
+            Arrays.fill(stamps[w], previous, length, -1L);
+        }
+    }
+
+    // Binary snapshot: header, then per row with live buckets the material name
+    // and, per window, the number of live buckets followed by stamp/items/revenue
+    // of each. Unused and expired buckets are left out; the bucket a stamp belongs
+    // to is stamp % buckets.
+    public void write(DataOutputStream out, long now) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeShort(SNAPSHOT_VERSION);
+        out.writeShort(WINDOWS.length);
+        for (Window window : WINDOWS) {
+            out.writeInt(window.buckets);
+        }
+
+        int liveRows = 0;
+        for (int row = 0; row < rows; row++) {
+            if (hasLiveBuckets(row, now)) {
+                liveRows++;
+            }
+        }
+        out.writeInt(liveRows);
+
+        for (int row = 0; row < rows; row++) {
+            if (!hasLiveBuckets(row, now)) {
+                continue;
+            }
+            out.writeUTF(rowMaterials[row].name());
+            for (int w = 0; w < WINDOWS.length; w++) {
+                int base = row * WINDOWS[w].buckets;
+                out.writeShort(countLiveBuckets(w, row, now));
+                for (int bucket = 0; bucket < WINDOWS[w].buckets; bucket++) {
+                    if (isLive(w, base + bucket, now)) {
+                        out.writeLong(stamps[w][base + bucket]);
+                        out.writeLong(items[w][base + bucket]);
+                        out.writeLong(revenue[w][base + bucket]);
+                    }
+                }
+            }
+        }
+
+        dirty = false;
+    }
+
+    private boolean hasLiveBuckets(int row, long now) {
+        for (int w = 0; w < WINDOWS.length; w++) {
+            if (countLiveBuckets(w, row, now) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int countLiveBuckets(int w, int row, long now) {
+        int base = row * WINDOWS[w].buckets;
+        int count = 0;
+        for (int bucket = 0; bucket < WINDOWS[w].buckets; bucket++) {
+            if (isLive(w, base + bucket, now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Stamped within the window ending now
+    private boolean isLive(int w, int index, long now) {
+        long current = now / WINDOWS[w].bucketMillis;
+        long stamp = stamps[w][index];
+        return stamp > current - WINDOWS[w].buckets && stamp <= current;
+    }
+
+    // Reads version 2 and the version 1 layout, which stored every bucket
+    public static SalesAnalytics read(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Unsupported analytics snapshot");
+        }
+        int version = in.readUnsignedShort();
+        if (version != 1 && version != SNAPSHOT_VERSION) {
+            throw new IOException("Unsupported analytics snapshot version " + version);
+        }
+
+        int windowCount = in.readUnsignedShort();
+        int[] bucketCounts = new int[windowCount];
+        for (int w = 0; w < windowCount; w++) {
+            bucketCounts[w] = in.readInt();
+        }
+        for (int w = 0; w < WINDOWS.length; w++) {
+            if (w >= windowCount || bucketCounts[w] != WINDOWS[w].buckets) {
+                throw new IOException("Analytics snapshot has a different window layout");
+            }
+        }
+
+        SalesAnalytics analytics = new SalesAnalytics();
+        int rowCount = in.readInt();
+
+        for (int i = 0; i < rowCount; i++) {
+            Material material = Material.getMaterial(in.readUTF());
+            int row = material != null ? analytics.getOrCreateRow(material) : -1;
+
+            for (int w = 0; w < windowCount; w++) {
+                int entries = version == 1 ? bucketCounts[w] : in.readUnsignedShort();
+                for (int entry = 0; entry < entries; entry++) {
+                    long stamp = in.readLong();
+                    long itemCount = in.readLong();
+                    long revenueAmount = in.readLong();
+                    if (row >= 0 && stamp >= 0) {
+                        int bucket = version == 1 ? entry : (int) (stamp % bucketCounts[w]);
+                        int index = row * bucketCounts[w] + bucket;
+                        analytics.stamps[w][index] = stamp;
+                        analytics.items[w][index] = itemCount;
+                        analytics.revenue[w][index] = revenueAmount;
+                    }
+                }
+            }
+        }
+
+        return analytics;
+    }
+}
@@ -0,0 +1,220 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Owns the per-NPC SalesAnalytics and their binary snapshots in analytics/<npc>.bin.
+// Snapshots are read and written on a background thread, never on the sale path:
+// an NPC starts out with empty analytics that record right away, and the
+// snapshot is merged into them on the main thread once it has been read.
+// Snapshots are serialized on the main thread.
+public class SalesAnalyticsManager {
+    private final JavaPlugin plugin;
+    private final File dataFolder;
+    private final Map<String, SalesAnalytics> analytics = new HashMap<>();
+    private final ExecutorService ioExecutor;
+    // Analytics whose snapshot is still being read; they are not saved meanwhile
+    private final Set<SalesAnalytics> loading = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Snapshots read by the IO thread, waiting for the main thread
+    private final Queue<LoadedSnapshot> loaded = new ConcurrentLinkedQueue<>();
+
+    public SalesAnalyticsManager(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.dataFolder = new File(plugin.getDataFolder(), "analytics");
+        this.ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NPCPlugin-Analytics");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void recordSale(String npcId, Material material, int amount, long price) {
+        getAnalytics(npcId).record(material, amount, price, System.currentTimeMillis());
+    }
+
+    public SalesAnalytics getAnalytics(String npcId) {
+        SalesAnalytics npcAnalytics = analytics.get(npcId);
+        if (npcAnalytics == null) {
+            npcAnalytics = new SalesAnalytics();
+            analytics.put(npcId, npcAnalytics);
+            scheduleLoad(npcId, npcAnalytics);
+        }
+        return npcAnalytics;
+    }
+
+    // Starts reading the snapshots of these NPCs, so they are usually in place
+    // before the first sale
+    public void preload(Collection<String> npcIds) {
+        for (String npcId : npcIds) {
+            getAnalytics(npcId);
+        }
+    }
+
+    public void removeNPC(String npcId) {
+        SalesAnalytics removed = analytics.remove(npcId);
+        if (removed != null) {
+            loading.remove(removed);
+        }
+        // Queued behind any snapshot write for this NPC, which would otherwise recreate the file
+        if (ioExecutor.isShutdown()) {
+            deleteFromDisk(npcId);
+        } else {
+            ioExecutor.execute(() -> deleteFromDisk(npcId));
+        }
+    }
+
+    private void deleteFromDisk(String npcId) {
+        File file = getFile(npcId);
+        if (file.exists() && !file.delete()) {
+            plugin.getLogger().warning("Could not delete analytics for " + npcId);
+        }
+    }
+
+    public void save() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, SalesAnalytics> entry : analytics.entrySet()) {
+            // A snapshot still being read would be overwritten with partial data
+            if (!entry.getValue().isDirty() || loading.contains(entry.getValue())) {
+                continue;
+            }
+
+            String npcId = entry.getKey();
+            byte[] snapshot = serialize(npcId, entry.getValue(), now);
+            if (snapshot == null) {
+                continue;
+            }
+
+            if (ioExecutor.isShutdown()) {
+                writeToDisk(npcId, snapshot);
+            } else {
+                ioExecutor.execute(() -> writeToDisk(npcId, snapshot));
+            }
+        }
+    }
+
+    public void shutdown() {
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for pending analytics writes");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Reads that finished after the last tick still need merging
+        applyLoaded();
+        save();
+        analytics.clear();
+        loading.clear();
+    }
+
+    private File getFile(String npcId) {
+        return new File(dataFolder, npcId + ".bin");
+    }
+
+    // Queued behind any pending write or delete of the same file, so it reads the current state
+    private void scheduleLoad(String npcId, SalesAnalytics target) {
+        loading.add(target);
+        if (ioExecutor.isShutdown()) {
+            loaded.add(new LoadedSnapshot(npcId, target, load(npcId)));
+            applyLoaded();
+            return;
+        }
+        ioExecutor.execute(() -> {
+            loaded.add(new LoadedSnapshot(npcId, target, load(npcId)));
+            Bukkit.getScheduler().runTask(plugin, this::applyLoaded);
+        });
+    }
+
+    // Main thread: merges read snapshots into the analytics they were read for,
+    // unless the NPC was removed (or removed and re-created) meanwhile
+    private void applyLoaded() {
+        LoadedSnapshot snapshot;
+        while ((snapshot = loaded.poll()) != null) {
+            if (analytics.get(snapshot.npcId) != snapshot.target) {
+                continue;
+            }
+            loading.remove(snapshot.target);
+            if (snapshot.data != null) {
+                snapshot.target.mergeFrom(snapshot.data);
+            }
+        }
+    }
+
+    // IO thread; null when there is no snapshot
+    private SalesAnalytics load(String npcId) {
+        File file = getFile(npcId);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return SalesAnalytics.read(in);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not load analytics for " + npcId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] serialize(String npcId, SalesAnalytics npcAnalytics, long now) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 * 1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            npcAnalytics.write(out, now);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not serialize analytics for " + npcId + ": " + e.getMessage());
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeToDisk(String npcId, byte[] snapshot) {
+        try {
+            if (!dataFolder.exists()) {
+                dataFolder.mkdirs();
+            }
+
+            // Write next to the target and swap, so a crash never leaves a torn snapshot
+            File target = getFile(npcId);
+            File temp = new File(dataFolder, npcId + ".bin.tmp");
+            Files.write(temp.toPath(), snapshot);
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save analytics for " + npcId + ": " + e.getMessage());
+        }
+    }
+
+    private static final class LoadedSnapshot {
+        private final String npcId;
+        private final SalesAnalytics target;
+        private final SalesAnalytics data;
+
+        private LoadedSnapshot(String npcId, SalesAnalytics target, SalesAnalytics data) {
+            this.npcId = npcId;
+            this.target = target;
+            this.data = data;
+        }
+    }
+}
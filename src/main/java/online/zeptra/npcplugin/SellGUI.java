@@ -3,9 +3,9 @@ package online.zeptra.npcplugin;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
-import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -15,55 +15,99 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class SellGUI {
+    // Marks sell GUI inventories
+    public static class Holder implements InventoryHolder {
+        private final String npcId;
+        private final String category;
+        private Inventory inventory;
+
+        private Holder(String npcId, String category) {
+            this.npcId = npcId;
+            this.category = category;
+        }
+
+        public String getNpcId() { return npcId; }
+        public String getCategory() { return category; }
+
+        @Override
+        public Inventory getInventory() {
+            return inventory;
+        }
+    }
+
     private final JavaPlugin plugin;
     private final ConfigManager config;
     private final NPCManager npcManager;
     private final PlayerDataManager playerDataManager;
+    private final SellService sellService;
+    private final BestPriceIndex bestPrices;
+    private final PriceCatalog priceCatalog;
+    private final TickProfiler profiler;
+    private final TickProfiler.Section previewTiming;
+    private final MetricsRegistry.Counter guiOpens;
 
     // Player tracking
     private final Map<Player, String> playerNPCMap = new WeakHashMap<>();
     private final Map<Player, String> playerCategoryMap = new WeakHashMap<>();
-    private final Map<Player, Double> playerPreviewMap = new WeakHashMap<>();
     private final Map<Player, Long> playerConfirmationMap = new WeakHashMap<>();
     private final Set<Player> playersInConfirmation = new HashSet<>();
 
+    // Sell GUIs and price catalogs currently open, by inventory identity. Inventory
+    // events for everything else on the server are rejected with one lookup here,
+    // before any holder, title or item is read.
+    private final Map<Inventory, Player> openMenus = new IdentityHashMap<>();
+
     // GUI update tasks
     private final Map<Player, BukkitRunnable> previewTasks = new WeakHashMap<>();
 
-    public SellGUI(JavaPlugin plugin, ConfigManager config, NPCManager npcManager) {
+    // Sales at or above this total ask for confirmation
+    private static final long CONFIRMATION_THRESHOLD = Money.of(100);
+
+    // Price comparison output limits
+    private static final int COMPARE_MAX_ITEMS = 8;
+    private static final int COMPARE_MAX_BUYERS = 3;
+
+    public SellGUI(JavaPlugin plugin, ConfigManager config, NPCManager npcManager,
+                   PlayerDataManager playerDataManager, SellService sellService, BestPriceIndex bestPrices,
+                   PriceCatalog priceCatalog, TickProfiler profiler, MetricsRegistry metrics) {
         this.plugin = plugin;
         this.config = config;
         this.npcManager = npcManager;
-        this.playerDataManager = new PlayerDataManager(plugin);
+        this.playerDataManager = playerDataManager;
+        this.sellService = sellService;
+        this.bestPrices = bestPrices;
+        this.priceCatalog = priceCatalog;
+        this.profiler = profiler;
+        this.previewTiming = profiler.section("sell-preview");
+        this.guiOpens = metrics.counter("npcplugin_gui_opens_total", "Sell GUIs opened");
     }
 
     public void openSellGUI(Player player, TraderNPC npc) {
         if (!config.isSellSystemEnabled()) {
-            player.sendMessage(config.getMessage("sell-system-disabled"));
+            player.sendMessage(config.getMessages(player).get("sell-system-disabled").getText());
             return;
         }
 
         if (!npc.isEnabled()) {
-            player.sendMessage(config.getNPCDisabledMessage());
+            player.sendMessage(config.getMessages(player).get("npc-disabled").getText());
             return;
         }
 
         // Check cooldown
-        if (config.areLimitsEnabled() && playerDataManager.isOnCooldown(player)) {
-            long remaining = playerDataManager.getRemainingCooldown(player);
-            String message = config.getCooldownActiveMessage()
-                    .replace("{cooldown}", String.valueOf(remaining));
-            player.sendMessage(message);
+        CooldownService.Scope cooldownScope = config.getSellCooldownScope();
+        String cooldownKey = sellService.getCooldownKey(cooldownScope, npc);
+        if (config.areLimitsEnabled() && playerDataManager.isOnCooldown(player, cooldownScope, cooldownKey)) {
+            long remaining = playerDataManager.getRemainingCooldown(player, cooldownScope, cooldownKey);
+            player.sendMessage(config.getMessages(player).get("cooldown-active").format("cooldown", remaining));
             return;
         }
 
         // Check daily limit
         if (config.areLimitsEnabled()) {
-            double dailySold = playerDataManager.getDailySoldAmount(player);
+            long dailySold = playerDataManager.getDailySoldAmount(player);
             if (dailySold >= config.getDailyLimit()) {
-                String message = config.getDailyLimitReachedMessage()
-                        .replace("{daily_limit}", String.format("%.2f", config.getDailyLimit()));
-                player.sendMessage(message);
+                player.sendMessage(config.getMessages(player).get("daily-limit-reached")
+                        .format("daily_limit", Money.format(config.getDailyLimit())));
                 return;
             }
         }
@@ -72,15 +116,15 @@ public class SellGUI {
         playerCategoryMap.put(player, "all");
 
         openCategoryGUI(player, npc, "all");
+        guiOpens.inc();
 
         // Play sound
         if (config.areSoundsEnabled()) {
-            player.playSound(player.getLocation(),
-                    Sound.valueOf(config.getSound("gui-open")), 1.0f, 1.0f);
+            config.getSound("gui-open").play(player, 1.0f, 1.0f);
         }
 
         player.sendMessage(npc.getGreeting());
-        config.debugLog("Opened sell GUI for " + player.getName() + " with NPC " + npc.getId());
+        config.debugLog("Opened sell GUI for {} with NPC {}", player.getName(), npc.getId());
     }
 
     private void openCategoryGUI(Player player, TraderNPC npc, String category) {
@@ -88,11 +132,14 @@ public class SellGUI {
                 .replace("{npc_name}", ChatColor.stripColor(npc.getName()));
         title = ChatColor.translateAlternateColorCodes('&', title);
 
-        Inventory gui = Bukkit.createInventory(null, config.getSellGUISize(), title);
+        Holder holder = new Holder(npc.getId(), category);
+        Inventory gui = Bukkit.createInventory(holder, config.getSellGUISize(), title);
+        holder.inventory = gui;
 
         setupCategoryGUI(gui, npc, category);
 
         player.openInventory(gui);
+        trackMenu(player, gui);
 
         // Start real-time preview if enabled
         if (config.isRealTimePreviewEnabled()) {
@@ -221,76 +268,31 @@ public class SellGUI {
     public void handleSellClick(Player player, Inventory gui) {
         String npcId = playerNPCMap.get(player);
         if (npcId == null) {
-            player.sendMessage(config.getSellFailedMessage());
+            player.sendMessage(config.getMessages(player).get("sell-failed").getText());
             return;
         }
 
         TraderNPC npc = npcManager.getNPC(npcId);
-        if (npc == null || !npc.isEnabled()) {
-            player.sendMessage(config.getNPCDisabledMessage());
-            return;
-        }
-
-        // Check limits
-        if (config.areLimitsEnabled()) {
-            if (playerDataManager.isOnCooldown(player)) {
-                long remaining = playerDataManager.getRemainingCooldown(player);
-                String message = config.getCooldownActiveMessage()
-                        .replace("{cooldown}", String.valueOf(remaining));
-                player.sendMessage(message);
-                return;
-            }
-
-            double dailySold = playerDataManager.getDailySoldAmount(player);
-            if (dailySold >= config.getDailyLimit()) {
-                player.sendMessage(config.getDailyLimitReachedMessage());
-                return;
-            }
-        }
-
-        double totalPrice = 0;
-        int itemCount = 0;
         int sellSlots = 36; // 4 rows
-        List<ItemStack> soldItems = new ArrayList<>();
-
-        // Calculate total and collect items
-        for (int i = 0; i < sellSlots; i++) {
-            ItemStack item = gui.getItem(i);
-            if (item != null && item.getType() != Material.AIR) {
-                double price = calculateItemPrice(item, npc);
-                if (price > 0) {
-                    totalPrice += price;
-                    itemCount += item.getAmount();
-                    soldItems.add(item.clone());
-                }
-            }
-        }
 
-        if (totalPrice <= 0 || itemCount == 0) {
-            player.sendMessage(config.getNoItemsMessage());
+        // Price first so the confirmation dialog can show the total
+        boolean route = config.isBestBuyerRoutingEnabled();
+        SellResult quote = route
+                ? sellService.quoteToBestBuyers(player, npc, gui, 0, sellSlots)
+                : sellService.quoteInventory(player, npc, gui, 0, sellSlots);
+        if (quote.getStatus() != SellResult.Status.QUOTED) {
+            sendFailureMessage(player, quote);
             return;
         }
 
-        // Check daily limit with this sale
-        if (config.areLimitsEnabled()) {
-            double dailySold = playerDataManager.getDailySoldAmount(player);
-            if (dailySold + totalPrice > config.getDailyLimit()) {
-                double remaining = config.getDailyLimit() - dailySold;
-                player.sendMessage("&cThis sale would exceed your daily limit! Remaining: $" +
-                        String.format("%.2f", remaining));
-                return;
-            }
-        }
-
         // Confirmation dialog for expensive items
-        if (config.isConfirmationDialogEnabled() && totalPrice >= 100.0) {
+        if (config.isConfirmationDialogEnabled() && quote.getTotalPrice() >= CONFIRMATION_THRESHOLD) {
             if (!playersInConfirmation.contains(player)) {
                 playersInConfirmation.add(player);
                 playerConfirmationMap.put(player, System.currentTimeMillis());
 
-                String message = config.getConfirmationRequiredMessage()
-                        .replace("{total_price}", String.format("%.2f", totalPrice));
-                player.sendMessage(message);
+                player.sendMessage(config.getMessages(player).get("confirmation-required")
+                        .format("total_price", Money.format(quote.getTotalPrice())));
 
                 // Auto-cancel confirmation after 10 seconds
                 Bukkit.getScheduler().runTaskLater(plugin, () -> {
@@ -306,42 +308,22 @@ public class SellGUI {
         }
 
         // Process the sale
-        processSale(player, gui, npc, totalPrice, itemCount, soldItems, sellSlots);
-    }
-
-    private void processSale(Player player, Inventory gui, TraderNPC npc,
-                             double totalPrice, int itemCount, List<ItemStack> soldItems, int sellSlots) {
-
-        // Clear sold items from GUI
-        for (int i = 0; i < sellSlots; i++) {
-            ItemStack item = gui.getItem(i);
-            if (item != null && item.getType() != Material.AIR) {
-                double price = calculateItemPrice(item, npc);
-                if (price > 0) {
-                    gui.setItem(i, null);
-                }
-            }
-        }
-
-        // Update player data
-        if (config.areLimitsEnabled()) {
-            playerDataManager.addSoldAmount(player, totalPrice);
-            playerDataManager.setCooldown(player, config.getSellCooldown());
+        SellResult result = route
+                ? sellService.sellToBestBuyers(player, npc, gui, 0, sellSlots)
+                : sellService.sellInventory(player, npc, gui, 0, sellSlots);
+        if (!result.isSuccess()) {
+            sendFailureMessage(player, result);
+            return;
         }
 
-        // Run sell commands
-        runSellCommands(player, npc, totalPrice, itemCount);
-
         // Send success message
-        String message = config.getSellSuccessMessage()
-                .replace("{total_price}", String.format("%.2f", totalPrice))
-                .replace("{item_count}", String.valueOf(itemCount));
-        player.sendMessage(message);
+        player.sendMessage(config.getMessages(player).get("sell-success").format(
+                "total_price", Money.format(result.getTotalPrice()),
+                "item_count", result.getItemCount()));
 
         // Play effects
         if (config.areSoundsEnabled()) {
-            player.playSound(player.getLocation(),
-                    Sound.valueOf(config.getSound("sell-success")), 1.0f, 1.0f);
+            config.getSound("sell-success").play(player, 1.0f, 1.0f);
         }
 
         if (config.areParticlesEnabled()) {
@@ -350,8 +332,36 @@ public class SellGUI {
 
         // Update preview
         updatePreview(player, gui, npc);
+    }
 
-        config.debugLog(player.getName() + " sold items for $" + totalPrice + " to " + npc.getId());
+    private void sendFailureMessage(Player player, SellResult result) {
+        MessageCatalog messages = config.getMessages(player);
+        switch (result.getStatus()) {
+            case SELL_DISABLED:
+                player.sendMessage(messages.get("sell-system-disabled").getText());
+                break;
+            case NPC_DISABLED:
+                player.sendMessage(messages.get("npc-disabled").getText());
+                break;
+            case ON_COOLDOWN:
+                player.sendMessage(messages.get("cooldown-active").format("cooldown", result.getCooldownRemaining()));
+                break;
+            case DATA_LOADING:
+                player.sendMessage(messages.get("data-loading").getText());
+                break;
+            case DAILY_LIMIT:
+                if (result.getRemainingDailyLimit() > 0) {
+                    player.sendMessage(ChatColor.RED + "This sale would exceed your daily limit! Remaining: $" +
+                            Money.format(result.getRemainingDailyLimit()));
+                } else {
+                    player.sendMessage(messages.get("daily-limit-reached")
+                            .format("daily_limit", Money.format(config.getDailyLimit())));
+                }
+                break;
+            default:
+                player.sendMessage(messages.get("no-items").getText());
+                break;
+        }
     }
 
     public void handleCategorySellAllClick(Player player) {
@@ -363,47 +373,26 @@ public class SellGUI {
         TraderNPC npc = npcManager.getNPC(npcId);
         if (npc == null || !npc.isEnabled()) return;
 
-        double totalPrice = 0;
-        int itemCount = 0;
-        List<ItemStack> itemsToRemove = new ArrayList<>();
-
         // Find items in player inventory that match category
-        for (ItemStack item : player.getInventory().getContents()) {
-            if (item == null || item.getType() == Material.AIR) continue;
+        SellResult result = sellService.sellInventory(player, npc, player.getInventory(), item ->
+                category.equals("all") || category.equals(config.getItemCategoryName(item.getType().name())));
 
-            String itemCategory = config.getItemCategoryName(item.getType().name());
-            if (category.equals("all") || category.equals(itemCategory)) {
-                double price = calculateItemPrice(item, npc);
-                if (price > 0) {
-                    totalPrice += price;
-                    itemCount += item.getAmount();
-                    itemsToRemove.add(item);
-                }
-            }
-        }
-
-        if (totalPrice <= 0) {
-            player.sendMessage("&cNo sellable " + category + " items found in your inventory!");
+        if (result.getStatus() == SellResult.Status.NOTHING_TO_SELL) {
+            player.sendMessage(ChatColor.RED + "No sellable " + category + " items found in your inventory!");
             return;
         }
-
-        // Remove items from inventory
-        for (ItemStack item : itemsToRemove) {
-            player.getInventory().removeItem(item);
+        if (!result.isSuccess()) {
+            sendFailureMessage(player, result);
+            return;
         }
 
-        // Process sale
-        runSellCommands(player, npc, totalPrice, itemCount);
-
-        String message = config.getCategorySoldMessage()
-                .replace("{category}", category)
-                .replace("{total_price}", String.format("%.2f", totalPrice));
-        player.sendMessage(message);
+        player.sendMessage(config.getMessages(player).get("category-sold").format(
+                "category", category,
+                "total_price", Money.format(result.getTotalPrice())));
 
         // Play effects
         if (config.areSoundsEnabled()) {
-            player.playSound(player.getLocation(),
-                    Sound.valueOf(config.getSound("sell-success")), 1.0f, 1.0f);
+            config.getSound("sell-success").play(player, 1.0f, 1.0f);
         }
     }
 
@@ -418,8 +407,7 @@ public class SellGUI {
 
         // Play sound
         if (config.areSoundsEnabled()) {
-            player.playSound(player.getLocation(),
-                    Sound.valueOf(config.getSound("category-switch")), 1.0f, 1.0f);
+            config.getSound("category-switch").play(player, 1.0f, 1.0f);
         }
 
         // Reopen GUI with new category
@@ -433,60 +421,69 @@ public class SellGUI {
         TraderNPC npc = npcManager.getNPC(npcId);
         if (npc == null) return;
 
-        player.sendMessage(ChatColor.GOLD + "=== Price Information ===");
-        player.sendMessage(ChatColor.YELLOW + "Trading with: " + npc.getName());
-
-        String category = playerCategoryMap.get(player);
-        List<String> itemsToShow;
-
-        if ("all".equals(category)) {
-            itemsToShow = Arrays.asList("COBBLESTONE", "IRON_ORE", "DIAMOND", "WHEAT", "IRON_INGOT", "COAL");
-        } else {
-            itemsToShow = config.getItemCategory(category);
-        }
+        if (!tryActionCooldown(player, "price-info")) return;
 
-        for (String itemType : itemsToShow) {
-            double price = npc.getItemPrice(itemType);
-            if (price > 0) {
-                String itemName = formatItemName(itemType);
-                player.sendMessage(ChatColor.AQUA + itemName + ": " +
-                        ChatColor.GREEN + "$" + String.format("%.2f", price));
-            }
-        }
-
-        player.sendMessage(ChatColor.GRAY + "Put items in the GUI to see their exact prices!");
+        String category = playerCategoryMap.getOrDefault(player, "all");
+        // Inventories must not be swapped from inside the click event
+        Bukkit.getScheduler().runTask(plugin, profiler.wrap("price-catalog-open",
+                () -> trackMenu(player, priceCatalog.open(player, npc, category))));
     }
 
     public void handleComparePricesClick(Player player) {
+        if (!tryActionCooldown(player, "compare-prices")) return;
+
         player.sendMessage(ChatColor.GOLD + "=== Price Comparison ===");
 
-        Map<String, TraderNPC> allNPCs = npcManager.getAllNPCs();
-        String[] sampleItems = {"IRON_ORE", "DIAMOND", "WHEAT"};
+        // Items the player is carrying, or the first bought materials if none of them sell
+        Set<Material> materials = new LinkedHashSet<>();
+        for (ItemStack item : player.getInventory().getStorageContents()) {
+            if (item != null && bestPrices.getBestBuyer(item.getType()) != null) {
+                materials.add(item.getType());
+            }
+        }
+        if (materials.isEmpty()) {
+            materials.addAll(bestPrices.getMaterials());
+        }
 
-        for (String itemType : sampleItems) {
-            player.sendMessage(ChatColor.YELLOW + formatItemName(itemType) + ":");
+        if (materials.isEmpty()) {
+            player.sendMessage(ChatColor.GRAY + "  No NPCs buy any items");
+            return;
+        }
 
-            List<String> priceList = new ArrayList<>();
-            for (TraderNPC npc : allNPCs.values()) {
-                if (npc.isEnabled()) {
-                    double price = npc.getItemPrice(itemType);
-                    if (price > 0) {
-                        priceList.add(ChatColor.stripColor(npc.getName()) + ": $" +
-                                String.format("%.2f", price));
-                    }
-                }
+        String currentNPC = playerNPCMap.get(player);
+        MessageCatalog messages = config.getMessages(player);
+        int shown = 0;
+        for (Material material : materials) {
+            if (shown++ >= COMPARE_MAX_ITEMS) {
+                player.sendMessage(ChatColor.GRAY + "  ... and " + (materials.size() - COMPARE_MAX_ITEMS) + " more");
+                break;
             }
 
-            if (priceList.isEmpty()) {
-                player.sendMessage(ChatColor.GRAY + "  No NPCs buy this item");
-            } else {
-                for (String priceInfo : priceList) {
-                    player.sendMessage(ChatColor.AQUA + "  " + priceInfo);
-                }
+            player.sendMessage(ChatColor.YELLOW + messages.getItemName(material) + ":");
+
+            List<TraderNPC> buyers = bestPrices.getBuyers(material);
+            for (int i = 0; i < Math.min(COMPARE_MAX_BUYERS, buyers.size()); i++) {
+                TraderNPC npc = buyers.get(i);
+                ChatColor color = npc.getId().equals(currentNPC) ? ChatColor.GREEN : ChatColor.AQUA;
+                player.sendMessage(color + "  " + ChatColor.stripColor(npc.getName()) + ": $" +
+                        Money.format(npc.getItemPrice(material)));
             }
         }
     }
 
+    // Short per-action cooldowns keep chat-heavy buttons from being spammed
+    private boolean tryActionCooldown(Player player, String action) {
+        if (playerDataManager.isOnCooldown(player, CooldownService.Scope.ACTION, action)) {
+            long remaining = playerDataManager.getRemainingCooldown(player, CooldownService.Scope.ACTION, action);
+            player.sendMessage(config.getMessages(player).get("action-cooldown").format("cooldown", remaining));
+            return false;
+        }
+
+        playerDataManager.setCooldown(player, CooldownService.Scope.ACTION, action,
+                config.getActionCooldownMillis(action));
+        return true;
+    }
+
     private void startPreviewTask(Player player, Inventory gui, TraderNPC npc) {
         // Cancel existing task
         BukkitRunnable existingTask = previewTasks.get(player);
@@ -494,6 +491,7 @@ public class SellGUI {
             existingTask.cancel();
         }
 
+        Runnable update = previewTiming.wrap(() -> updatePreview(player, gui, npc));
         BukkitRunnable previewTask = new BukkitRunnable() {
             @Override
             public void run() {
@@ -503,7 +501,7 @@ public class SellGUI {
                     return;
                 }
 
-                updatePreview(player, gui, npc);
+                update.run();
             }
         };
 
@@ -512,13 +510,13 @@ public class SellGUI {
     }
 
     private void updatePreview(Player player, Inventory gui, TraderNPC npc) {
-        double totalValue = 0;
+        long totalValue = 0;
         int itemCount = 0;
 
         for (int i = 0; i < 36; i++) { // 4 rows for selling
             ItemStack item = gui.getItem(i);
             if (item != null && item.getType() != Material.AIR) {
-                double price = calculateItemPrice(item, npc);
+                long price = sellService.priceItem(npc, item);
                 if (price > 0) {
                     totalValue += price;
                     itemCount += item.getAmount();
@@ -535,7 +533,7 @@ public class SellGUI {
             lore.add(ChatColor.translateAlternateColorCodes('&', "&7and click here to sell them!"));
             lore.add("");
             lore.add(ChatColor.translateAlternateColorCodes('&',
-                    "&aTotal Value: &e$" + String.format("%.2f", totalValue)));
+                    "&aTotal Value: &e$" + Money.format(totalValue)));
             lore.add(ChatColor.translateAlternateColorCodes('&',
                     "&aItems: &e" + itemCount));
             lore.add("");
@@ -545,59 +543,6 @@ public class SellGUI {
             sellButton.setItemMeta(meta);
         }
 
-        playerPreviewMap.put(player, totalValue);
-    }
-
-    private double calculateItemPrice(ItemStack item, TraderNPC npc) {
-        if (item == null || item.getType() == Material.AIR) {
-            return 0;
-        }
-
-        double unitPrice = npc.getItemPrice(item.getType().name());
-        if (unitPrice <= 0) {
-            return 0;
-        }
-
-        double damageModifier = calculateDamageModifier(item);
-        return unitPrice * item.getAmount() * damageModifier;
-    }
-
-    private double calculateDamageModifier(ItemStack item) {
-        if (item.getType().getMaxDurability() <= 0) {
-            return 1.0;
-        }
-
-        if (item.getDurability() == 0) {
-            return 1.0;
-        }
-
-        double maxDurability = item.getType().getMaxDurability();
-        double currentDurability = maxDurability - item.getDurability();
-        double durabilityPercentage = currentDurability / maxDurability;
-
-        return Math.max(0.3, durabilityPercentage);
-    }
-
-    private void runSellCommands(Player player, TraderNPC npc, double totalPrice, int itemCount) {
-        List<String> commands;
-
-        if (npc.hasCustomCommands()) {
-            commands = npc.getCustomCommands();
-        } else {
-            commands = config.getSellCommands();
-        }
-
-        for (String command : commands) {
-            String processedCommand = command
-                    .replace("{player}", player.getName())
-                    .replace("{total_price}", String.format("%.2f", totalPrice))
-                    .replace("{item_count}", String.valueOf(itemCount))
-                    .replace("{npc_name}", ChatColor.stripColor(npc.getName()))
-                    .replace("{npc_id}", npc.getId());
-
-            Bukkit.dispatchCommand(Bukkit.getConsoleSender(), processedCommand);
-            config.debugLog("Executed command: " + processedCommand);
-        }
     }
 
     private ItemStack createButton(Material material, String name, List<String> lore) {
@@ -619,13 +564,6 @@ public class SellGUI {
         return item;
     }
 
-    private String formatItemName(String itemType) {
-        return Arrays.stream(itemType.toLowerCase().split("_"))
-                .map(word -> Character.toUpperCase(word.charAt(0)) + word.substring(1))
-                .reduce((a, b) -> a + " " + b)
-                .orElse(itemType);
-    }
-
     private int getItemCountInCategory(String category) {
         return config.getItemCategory(category).size();
     }
@@ -633,7 +571,6 @@ public class SellGUI {
     public void cleanupPlayer(Player player) {
         playerNPCMap.remove(player);
         playerCategoryMap.remove(player);
-        playerPreviewMap.remove(player);
         playersInConfirmation.remove(player);
         playerConfirmationMap.remove(player);
 
@@ -641,6 +578,38 @@ public class SellGUI {
         if (task != null) {
             task.cancel();
         }
+        openMenus.values().removeIf(viewer -> viewer.equals(player));
+    }
+
+    // Only once it is really open: another plugin may have cancelled the open event
+    private void trackMenu(Player player, Inventory menu) {
+        if (player.getOpenInventory().getTopInventory() == menu) {
+            openMenus.put(menu, player);
+        }
+    }
+
+    // True for sell GUIs and price catalogs this plugin has open; constant time, no allocation
+    public boolean isOpenMenu(Inventory inventory) {
+        return openMenus.containsKey(inventory);
+    }
+
+    // Forgets a menu that is being closed; false when it was not one of ours
+    public boolean closeMenu(Inventory inventory) {
+        return openMenus.remove(inventory) != null;
+    }
+
+    // For switching back from another menu's click handler
+    public void openSellGUILater(Player player, TraderNPC npc) {
+        Bukkit.getScheduler().runTask(plugin, profiler.wrap("sell-gui-open", () -> openSellGUI(player, npc)));
+    }
+
+    // Players with a sell GUI open
+    public int getOpenSessionCount() {
+        return playerNPCMap.size();
+    }
+
+    public PriceCatalog getPriceCatalog() {
+        return priceCatalog;
     }
 
     public TraderNPC getCurrentNPC(Player player) {
@@ -648,11 +617,6 @@ public class SellGUI {
         return npcId != null ? npcManager.getNPC(npcId) : null;
     }
 
-    public boolean isSellGUI(String title) {
-        String guiTitle = ChatColor.translateAlternateColorCodes('&', config.getSellGUITitle());
-        return title.contains("Sell Items to") || title.equals(guiTitle);
-    }
-
     // Getters for button identification
     public boolean isCategoryButton(ItemStack item, int slot) {
         return slot >= 36 && slot < 45 && item != null;
@@ -2,7 +2,6 @@ package online.zeptra.npcplugin;
 
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
-import org.bukkit.Sound;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -11,9 +10,10 @@ import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.Arrays;
 import java.util.List;
 
 public class SellGUIListener implements Listener {
@@ -29,14 +29,18 @@ public class SellGUIListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onInventoryClick(InventoryClickEvent event) {
-        if (!(event.getWhoClicked() instanceof Player)) {
+        // Clicks in chests, furnaces and other plugins' menus stop at this lookup
+        Inventory inventory = event.getInventory();
+        if (!sellGUI.isOpenMenu(inventory) || !(event.getWhoClicked() instanceof Player)) {
             return;
         }
 
         Player player = (Player) event.getWhoClicked();
-        String title = event.getView().getTitle();
 
-        if (!sellGUI.isSellGUI(title)) {
+        InventoryHolder holder = inventory.getHolder();
+        if (holder instanceof PriceCatalog.Holder) {
+            event.setCancelled(true);
+            handleCatalogClick(player, (PriceCatalog.Holder) holder, event.getRawSlot());
             return;
         }
 
@@ -66,6 +70,19 @@ public class SellGUIListener implements Listener {
         }
     }
 
+    private void handleCatalogClick(Player player, PriceCatalog.Holder holder, int rawSlot) {
+        if (!sellGUI.getPriceCatalog().handleClick(holder, rawSlot)) {
+            return;
+        }
+
+        TraderNPC npc = npcManager.getNPC(holder.getNpcId());
+        if (npc != null) {
+            sellGUI.openSellGUILater(player, npc);
+        } else {
+            player.closeInventory();
+        }
+    }
+
     private void handleSellAreaClick(InventoryClickEvent event, Player player, int slot,
                                      ItemStack clickedItem, ItemStack cursorItem) {
         // Allow normal inventory interactions in sell area
@@ -79,12 +96,10 @@ public class SellGUIListener implements Listener {
         if (cursorItem != null && cursorItem.getType() != Material.AIR) {
             if (!isItemSellable(cursorItem, npc)) {
                 event.setCancelled(true);
-                player.sendMessage(ChatColor.RED + "This NPC doesn't buy " +
-                        formatItemName(cursorItem.getType().name()) + "!");
+                sendNotSellable(player, cursorItem);
 
                 if (config.areSoundsEnabled()) {
-                    player.playSound(player.getLocation(),
-                            Sound.valueOf(config.getSound("sell-failed")), 1.0f, 1.0f);
+                    config.getSound("sell-failed").play(player, 1.0f, 1.0f);
                 }
                 return;
             }
@@ -95,8 +110,7 @@ public class SellGUIListener implements Listener {
             ItemStack shiftItem = event.getCurrentItem();
             if (shiftItem != null && !isItemSellable(shiftItem, npc)) {
                 event.setCancelled(true);
-                player.sendMessage(ChatColor.RED + "This NPC doesn't buy " +
-                        formatItemName(shiftItem.getType().name()) + "!");
+                sendNotSellable(player, shiftItem);
                 return;
             }
         }
@@ -106,8 +120,7 @@ public class SellGUIListener implements Listener {
                 ((cursorItem != null && cursorItem.getType() != Material.AIR) ||
                         (clickedItem != null && clickedItem.getType() != Material.AIR))) {
 
-            player.playSound(player.getLocation(),
-                    Sound.valueOf(config.getSound("button-click")), 0.5f, 1.2f);
+            config.getSound("button-click").play(player, 0.5f, 1.2f);
         }
     }
 
@@ -124,8 +137,7 @@ public class SellGUIListener implements Listener {
 
         // Play category switch sound
         if (config.areSoundsEnabled()) {
-            player.playSound(player.getLocation(),
-                    Sound.valueOf(config.getSound("category-switch")), 1.0f, 1.0f);
+            config.getSound("category-switch").play(player, 1.0f, 1.0f);
         }
 
         // Determine category from slot and item
@@ -148,8 +160,7 @@ public class SellGUIListener implements Listener {
 
         // Play button click sound
         if (config.areSoundsEnabled()) {
-            player.playSound(player.getLocation(),
-                    Sound.valueOf(config.getSound("button-click")), 1.0f, 1.0f);
+            config.getSound("button-click").play(player, 1.0f, 1.0f);
         }
 
         // Handle different button types
@@ -169,25 +180,25 @@ public class SellGUIListener implements Listener {
             player.closeInventory();
 
             if (config.areSoundsEnabled()) {
-                player.playSound(player.getLocation(),
-                        Sound.valueOf(config.getSound("gui-close")), 1.0f, 1.0f);
+                config.getSound("gui-close").play(player, 1.0f, 1.0f);
             }
         }
     }
 
     @EventHandler
     public void onInventoryDrag(InventoryDragEvent event) {
-        if (!(event.getWhoClicked() instanceof Player)) {
+        Inventory inventory = event.getInventory();
+        if (!sellGUI.isOpenMenu(inventory) || !(event.getWhoClicked() instanceof Player)) {
             return;
         }
 
-        Player player = (Player) event.getWhoClicked();
-        String title = event.getView().getTitle();
-
-        if (!sellGUI.isSellGUI(title)) {
+        if (inventory.getHolder() instanceof PriceCatalog.Holder) {
+            event.setCancelled(true);
             return;
         }
 
+        Player player = (Player) event.getWhoClicked();
+
         // Check if drag includes non-sell slots
         for (int slot : event.getRawSlots()) {
             if (slot >= 36) { // Outside sell area
@@ -202,8 +213,7 @@ public class SellGUIListener implements Listener {
             ItemStack draggedItem = event.getOldCursor();
             if (draggedItem != null && !isItemSellable(draggedItem, npc)) {
                 event.setCancelled(true);
-                player.sendMessage(ChatColor.RED + "This NPC doesn't buy " +
-                        formatItemName(draggedItem.getType().name()) + "!");
+                sendNotSellable(player, draggedItem);
                 return;
             }
         }
@@ -211,27 +221,26 @@ public class SellGUIListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGH)
     public void onInventoryClose(InventoryCloseEvent event) {
-        if (!(event.getPlayer() instanceof Player)) {
+        Inventory inventory = event.getInventory();
+        if (!sellGUI.closeMenu(inventory) || !(event.getPlayer() instanceof Player)) {
             return;
         }
 
         Player player = (Player) event.getPlayer();
-        String title = event.getView().getTitle();
 
-        if (sellGUI.isSellGUI(title)) {
+        if (inventory.getHolder() instanceof SellGUI.Holder) {
             // Return unsold items to player
-            returnUnsoldItems(player, event.getInventory());
+            returnUnsoldItems(player, inventory);
 
             // Cleanup player data
             sellGUI.cleanupPlayer(player);
 
             // Play close sound if not already played
             if (config.areSoundsEnabled()) {
-                player.playSound(player.getLocation(),
-                        Sound.valueOf(config.getSound("gui-close")), 0.8f, 1.0f);
+                config.getSound("gui-close").play(player, 0.8f, 1.0f);
             }
 
-            config.debugLog("Cleaned up sell GUI data for " + player.getName());
+            config.debugLog("Cleaned up sell GUI data for {}", player.getName());
         }
     }
 
@@ -242,7 +251,7 @@ public class SellGUIListener implements Listener {
         // Cleanup any GUI data for disconnecting player
         sellGUI.cleanupPlayer(player);
 
-        config.debugLog("Cleaned up data for disconnecting player: " + player.getName());
+        config.debugLog("Cleaned up data for disconnecting player: {}", player.getName());
     }
 
     // Utility Methods
@@ -251,7 +260,7 @@ public class SellGUIListener implements Listener {
             return false;
         }
 
-        double price = npc.getItemPrice(item.getType().name());
+        long price = npc.getItemPrice(item.getType());
         return price > 0;
     }
 
@@ -275,7 +284,7 @@ public class SellGUIListener implements Listener {
         }
     }
 
-    private void returnUnsoldItems(Player player, org.bukkit.inventory.Inventory gui) {
+    private void returnUnsoldItems(Player player, Inventory gui) {
         // Return items from sell area (slots 0-35) to player inventory
         for (int i = 0; i < 36; i++) {
             ItemStack item = gui.getItem(i);
@@ -296,15 +305,8 @@ public class SellGUIListener implements Listener {
         }
     }
 
-    private String formatItemName(String itemType) {
-        return Arrays.stream(itemType.toLowerCase().split("_"))
-                .map(word -> Character.toUpperCase(word.charAt(0)) + word.substring(1))
-                .reduce((a, b) -> a + " " + b)
-                .orElse(itemType);
-    }
-
     // Advanced validation methods
-    private boolean isValidSellTransaction(Player player, org.bukkit.inventory.Inventory gui) {
+    private boolean isValidSellTransaction(Player player, Inventory gui) {
         TraderNPC npc = sellGUI.getCurrentNPC(player);
         if (npc == null || !npc.isEnabled()) {
             return false;
@@ -325,13 +327,16 @@ public class SellGUIListener implements Listener {
         return hasItems;
     }
 
+    private void sendNotSellable(Player player, ItemStack item) {
+        MessageCatalog messages = config.getMessages(player);
+        player.sendMessage(messages.get("item-not-sellable").format("item_name", messages.getItemName(item.getType())));
+    }
+
     private void handleInvalidItemPlacement(Player player, ItemStack item) {
-        player.sendMessage(ChatColor.RED + "You cannot sell " +
-                formatItemName(item.getType().name()) + " to this NPC!");
+        sendNotSellable(player, item);
 
         if (config.areSoundsEnabled()) {
-            player.playSound(player.getLocation(),
-                    Sound.valueOf(config.getSound("sell-failed")), 1.0f, 0.8f);
+            config.getSound("sell-failed").play(player, 1.0f, 0.8f);
         }
     }
 
@@ -350,7 +355,7 @@ public class SellGUIListener implements Listener {
 
     // Error handling
     private void handleGUIError(Player player, Exception e) {
-        config.debugLog("GUI Error for player " + player.getName() + ": " + e.getMessage());
+        config.debugLog("GUI Error for player {}: {}", player.getName(), e.getMessage());
         player.sendMessage(ChatColor.RED + "An error occurred with the sell GUI. Please try again.");
         player.closeInventory();
     }
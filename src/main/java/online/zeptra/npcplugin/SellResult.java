@@ -0,0 +1,83 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of a SellService call. Amounts are Money minor units.
+public class SellResult {
+
+    public enum Status {
+        SUCCESS,
+        QUOTED,            // priced only, nothing was sold
+        NOTHING_TO_SELL,
+        SELL_DISABLED,
+        NPC_DISABLED,
+        ON_COOLDOWN,
+        DAILY_LIMIT,
+        DATA_LOADING       // the player's data is still being read; try again shortly
+    }
+
+    public static class SoldItem {
+        private final ItemStack item;
+        private final TraderNPC buyer;
+        private final int slot;
+        private final long unitPrice;
+        private final long totalPrice;
+
+        public SoldItem(ItemStack item, TraderNPC buyer, int slot, long unitPrice, long totalPrice) {
+            this.item = item;
+            this.buyer = buyer;
+            this.slot = slot;
+            this.unitPrice = unitPrice;
+            this.totalPrice = totalPrice;
+        }
+
+        // The priced stack itself (not a copy)
+        public ItemStack getItem() { return item; }
+        // NPC the stack was sold to; differs from the selling NPC only with best-buyer routing
+        public TraderNPC getBuyer() { return buyer; }
+        // Inventory slot, or the index in the collection that was passed in
+        public int getSlot() { return slot; }
+        // Configured price for one item before durability/meta modifiers
+        public long getUnitPrice() { return unitPrice; }
+        public long getTotalPrice() { return totalPrice; }
+    }
+
+    private final Status status;
+    private final List<SoldItem> soldItems;
+    private final List<ItemStack> unsoldItems;
+    private final long totalPrice;
+    private final int itemCount;
+    private final long remainingDailyLimit;
+    private final long cooldownRemaining;
+
+    SellResult(Status status, List<SoldItem> soldItems, List<ItemStack> unsoldItems, long totalPrice,
+               int itemCount, long remainingDailyLimit, long cooldownRemaining) {
+        this.status = status;
+        this.soldItems = Collections.unmodifiableList(soldItems);
+        this.unsoldItems = Collections.unmodifiableList(unsoldItems);
+        this.totalPrice = totalPrice;
+        this.itemCount = itemCount;
+        this.remainingDailyLimit = remainingDailyLimit;
+        this.cooldownRemaining = cooldownRemaining;
+    }
+
+    static SellResult of(Status status) {
+        return new SellResult(status, Collections.emptyList(), Collections.emptyList(), 0L, 0, Long.MAX_VALUE, 0L);
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    public Status getStatus() { return status; }
+    public List<SoldItem> getSoldItems() { return soldItems; }
+    public List<ItemStack> getUnsoldItems() { return unsoldItems; }
+    public long getTotalPrice() { return totalPrice; }
+    public int getItemCount() { return itemCount; }
+    public long getRemainingDailyLimit() { return remainingDailyLimit; }
+    // Seconds, rounded up; only set for ON_COOLDOWN
+    public long getCooldownRemaining() { return cooldownRemaining; }
+}
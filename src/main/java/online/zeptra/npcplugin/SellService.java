@@ -0,0 +1,291 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// Prices and sells items against an NPC in one batch: checks the sell system,
+// cooldown and daily limit, records the sale everywhere (player data,
+// leaderboards, analytics, dynamic pricing) and runs the sell commands.
+// Used by the sell GUI and exposed to other plugins via NPCPlugin#getSellService.
+// Main thread only; sending messages and effects is up to the caller.
+public class SellService {
+    private final ConfigManager config;
+    private final PlayerDataManager playerDataManager;
+    private final LeaderboardManager leaderboards;
+    private final SalesAnalyticsManager analytics;
+    private final DynamicPricing dynamicPricing;
+    private final BestPriceIndex bestPrices;
+    private final MetricsRegistry.Counter salesCounter;
+    private final MetricsRegistry.Counter itemsSoldCounter;
+    private final MetricsRegistry.Histogram payoutLatency;
+
+    public SellService(ConfigManager config, PlayerDataManager playerDataManager, LeaderboardManager leaderboards,
+                       SalesAnalyticsManager analytics, DynamicPricing dynamicPricing, BestPriceIndex bestPrices,
+                       MetricsRegistry metrics) {
+        this.config = config;
+        this.playerDataManager = playerDataManager;
+        this.leaderboards = leaderboards;
+        this.analytics = analytics;
+        this.dynamicPricing = dynamicPricing;
+        this.bestPrices = bestPrices;
+        this.salesCounter = metrics.counter("npcplugin_sales_total", "Completed sales (one per sell action)");
+        this.itemsSoldCounter = metrics.counter("npcplugin_items_sold_total", "Items sold to NPCs");
+        this.payoutLatency = metrics.histogram("npcplugin_payout_dispatch_seconds",
+                "Time spent dispatching the sell (payout) commands of one sale", MetricsRegistry.LATENCY_BUCKETS);
+    }
+
+    // Price of a whole stack including durability and meta modifiers
+    public long priceItem(TraderNPC npc, ItemStack item) {
+        if (item == null || item.getType() == Material.AIR) {
+            return 0L;
+        }
+
+        long unitPrice = npc.getItemPrice(item.getType());
+        if (unitPrice <= 0) {
+            return 0L;
+        }
+
+        double modifier = getDamageModifier(item) * config.getMetaPriceRules().getMultiplier(item);
+        return Money.scale(Money.times(unitPrice, item.getAmount()), modifier);
+    }
+
+    // Prices the items without selling; status is QUOTED unless a check fails
+    public SellResult quote(Player player, TraderNPC npc, Collection<ItemStack> items) {
+        return process(player, npc, toArray(items), 0, items.size(), null, false, Integer.MAX_VALUE, false, false);
+    }
+
+    // Sells the items; the caller owns the stacks and must remove the ones listed as sold
+    public SellResult sell(Player player, TraderNPC npc, Collection<ItemStack> items) {
+        return process(player, npc, toArray(items), 0, items.size(), null, true, Integer.MAX_VALUE, false, false);
+    }
+
+    public SellResult sellInventory(Player player, TraderNPC npc, Inventory inventory) {
+        return sellInventory(player, npc, inventory, null);
+    }
+
+    // Sells matching stacks from the inventory's storage slots and clears those slots
+    public SellResult sellInventory(Player player, TraderNPC npc, Inventory inventory, Predicate<ItemStack> filter) {
+        ItemStack[] contents = inventory.getStorageContents();
+        return sellSlots(player, npc, inventory, contents, 0, contents.length, filter, Integer.MAX_VALUE, false, false);
+    }
+
+    // Sells stacks in [fromSlot, toSlot) of the inventory and clears those slots
+    public SellResult sellInventory(Player player, TraderNPC npc, Inventory inventory, int fromSlot, int toSlot) {
+        return sellSlots(player, npc, inventory, inventory.getContents(), fromSlot, toSlot, null,
+                Integer.MAX_VALUE, false, false);
+    }
+
+    public SellResult quoteInventory(Player player, TraderNPC npc, Inventory inventory, int fromSlot, int toSlot) {
+        return process(player, npc, inventory.getContents(), fromSlot, toSlot, null, false, Integer.MAX_VALUE, false, false);
+    }
+
+    // Automated selling (linked containers): sells at most maxStacks stacks, ignores the
+    // sell cooldown and fills up to the remaining daily limit instead of failing the batch
+    public SellResult sellBatch(Player owner, TraderNPC npc, Inventory inventory, int maxStacks) {
+        return sellSlots(owner, npc, inventory, inventory.getContents(), 0, inventory.getSize(), null,
+                maxStacks, true, false);
+    }
+
+    // Best-buyer routing: each stack goes to the best-paying NPC within range of the player
+    // (falling back to npc), all in one sale with one limit check and one cooldown for npc
+    public SellResult quoteToBestBuyers(Player player, TraderNPC npc, Inventory inventory, int fromSlot, int toSlot) {
+        return process(player, npc, inventory.getContents(), fromSlot, toSlot, null, false, Integer.MAX_VALUE,
+                false, true);
+    }
+
+    public SellResult sellToBestBuyers(Player player, TraderNPC npc, Inventory inventory, int fromSlot, int toSlot) {
+        return sellSlots(player, npc, inventory, inventory.getContents(), fromSlot, toSlot, null,
+                Integer.MAX_VALUE, false, true);
+    }
+
+    private SellResult sellSlots(Player player, TraderNPC npc, Inventory inventory, ItemStack[] contents,
+                                 int fromSlot, int toSlot, Predicate<ItemStack> filter,
+                                 int maxStacks, boolean automated, boolean route) {
+        SellResult result = process(player, npc, contents, fromSlot, toSlot, filter, true, maxStacks, automated,
+                route);
+        if (result.isSuccess()) {
+            for (SellResult.SoldItem sold : result.getSoldItems()) {
+                inventory.setItem(sold.getSlot(), null);
+            }
+        }
+        return result;
+    }
+
+    private SellResult process(Player player, TraderNPC npc, ItemStack[] items, int from, int to,
+                               Predicate<ItemStack> filter, boolean commit, int maxStacks, boolean automated,
+                               boolean route) {
+        if (!config.isSellSystemEnabled()) {
+            return SellResult.of(SellResult.Status.SELL_DISABLED);
+        }
+        if (npc == null || !npc.isEnabled()) {
+            return SellResult.of(SellResult.Status.NPC_DISABLED);
+        }
+
+        // Limits checked against data that is missing today's earlier sales could be exceeded
+        if (playerDataManager.isLoading(player)) {
+            return SellResult.of(SellResult.Status.DATA_LOADING);
+        }
+
+        boolean limitsEnabled = config.areLimitsEnabled();
+        CooldownService.Scope cooldownScope = config.getSellCooldownScope();
+        String cooldownKey = getCooldownKey(cooldownScope, npc);
+
+        if (limitsEnabled && !automated && playerDataManager.isOnCooldown(player, cooldownScope, cooldownKey)) {
+            long remaining = playerDataManager.getRemainingCooldown(player, cooldownScope, cooldownKey);
+            return new SellResult(SellResult.Status.ON_COOLDOWN, new ArrayList<>(), new ArrayList<>(),
+                    0L, 0, Long.MAX_VALUE, remaining);
+        }
+
+        long dailyLimit = limitsEnabled ? config.getDailyLimit() : Long.MAX_VALUE;
+        long remainingLimit = limitsEnabled ? playerDataManager.getRemainingDailyLimit(player, dailyLimit) : Long.MAX_VALUE;
+
+        // Price every stack once
+        List<SellResult.SoldItem> sold = new ArrayList<>();
+        List<ItemStack> unsold = new ArrayList<>();
+        long totalPrice = 0L;
+        int itemCount = 0;
+        Location origin = route ? player.getLocation() : null;
+        double range = route ? config.getBestBuyerRoutingRange() : 0.0;
+
+        for (int slot = from; slot < to && sold.size() < maxStacks; slot++) {
+            ItemStack item = items[slot];
+            if (item == null || item.getType() == Material.AIR || (filter != null && !filter.test(item))) {
+                continue;
+            }
+
+            TraderNPC buyer = npc;
+            if (route) {
+                TraderNPC best = bestPrices.getBestBuyer(item.getType(), origin, range);
+                if (best != null && best.getItemPrice(item.getType()) > npc.getItemPrice(item.getType())) {
+                    buyer = best;
+                }
+            }
+
+            long price = priceItem(buyer, item);
+            if (price <= 0 || (automated && totalPrice + price > remainingLimit)) {
+                unsold.add(item);
+                continue;
+            }
+
+            sold.add(new SellResult.SoldItem(item, buyer, slot, buyer.getItemPrice(item.getType()), price));
+            totalPrice += price;
+            itemCount += item.getAmount();
+        }
+
+        if (sold.isEmpty()) {
+            if (automated && remainingLimit <= 0) {
+                return new SellResult(SellResult.Status.DAILY_LIMIT, sold, unsold, 0L, 0, remainingLimit, 0L);
+            }
+            return new SellResult(SellResult.Status.NOTHING_TO_SELL, sold, unsold, 0L, 0, remainingLimit, 0L);
+        }
+        if (totalPrice > remainingLimit) {
+            return new SellResult(SellResult.Status.DAILY_LIMIT, sold, unsold, totalPrice, itemCount, remainingLimit, 0L);
+        }
+        if (!commit) {
+            return new SellResult(SellResult.Status.QUOTED, sold, unsold, totalPrice, itemCount, remainingLimit, 0L);
+        }
+
+        // The limit is enforced again atomically while recording
+        if (!playerDataManager.tryAddSoldAmount(player, totalPrice, dailyLimit)) {
+            return new SellResult(SellResult.Status.DAILY_LIMIT, sold, unsold, totalPrice, itemCount,
+                    playerDataManager.getRemainingDailyLimit(player, dailyLimit), 0L);
+        }
+
+        playerDataManager.updateBestSale(player, totalPrice);
+
+        // Per-buyer totals: {price, item count}; a single entry unless routed
+        Map<TraderNPC, long[]> buyers = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        for (SellResult.SoldItem item : sold) {
+            Material type = item.getItem().getType();
+            int amount = item.getItem().getAmount();
+            analytics.recordSale(item.getBuyer().getId(), type, amount, item.getTotalPrice());
+            dynamicPricing.recordSale(type, amount, now);
+
+            long[] buyerTotals = buyers.computeIfAbsent(item.getBuyer(), k -> new long[2]);
+            buyerTotals[0] += item.getTotalPrice();
+            buyerTotals[1] += amount;
+        }
+
+        if (limitsEnabled && !automated) {
+            playerDataManager.setCooldown(player, cooldownScope, cooldownKey, config.getSellCooldown() * 1000L);
+        }
+
+        for (Map.Entry<TraderNPC, long[]> entry : buyers.entrySet()) {
+            TraderNPC buyer = entry.getKey();
+            long[] buyerTotals = entry.getValue();
+            playerDataManager.addNPCSoldAmount(player, buyer.getId(), buyerTotals[0]);
+            leaderboards.recordSale(player, buyer.getId(), buyerTotals[0]);
+            long dispatchStart = System.nanoTime();
+            runSellCommands(player, buyer, buyerTotals[0], (int) buyerTotals[1]);
+            payoutLatency.observeSince(dispatchStart);
+        }
+        salesCounter.inc();
+        itemsSoldCounter.add(itemCount);
+
+        long remainingAfter = limitsEnabled ? remainingLimit - totalPrice : Long.MAX_VALUE;
+        SellResult result = new SellResult(SellResult.Status.SUCCESS, sold, unsold, totalPrice, itemCount,
+                remainingAfter, 0L);
+        config.debugLog(() -> player.getName() + " sold " + result.getItemCount() + " items for $"
+                + Money.format(result.getTotalPrice()) + " to " + npc.getId());
+        return result;
+    }
+
+    public String getCooldownKey(CooldownService.Scope scope, TraderNPC npc) {
+        return scope == CooldownService.Scope.NPC ? npc.getId() : null;
+    }
+
+    private double getDamageModifier(ItemStack item) {
+        if (item.getType().getMaxDurability() <= 0) {
+            return 1.0;
+        }
+
+        if (item.getDurability() == 0) {
+            return 1.0;
+        }
+
+        double maxDurability = item.getType().getMaxDurability();
+        double currentDurability = maxDurability - item.getDurability();
+        double durabilityPercentage = currentDurability / maxDurability;
+
+        return Math.max(0.3, durabilityPercentage);
+    }
+
+    private void runSellCommands(Player player, TraderNPC npc, long totalPrice, int itemCount) {
+        List<String> commands;
+
+        if (npc.hasCustomCommands()) {
+            commands = npc.getCustomCommands();
+        } else {
+            commands = config.getSellCommands();
+        }
+
+        for (String command : commands) {
+            String processedCommand = command
+                    .replace("{player}", player.getName())
+                    .replace("{total_price}", Money.format(totalPrice))
+                    .replace("{item_count}", String.valueOf(itemCount))
+                    .replace("{npc_name}", ChatColor.stripColor(npc.getName()))
+                    .replace("{npc_id}", npc.getId());
+
+            Bukkit.dispatchCommand(Bukkit.getConsoleSender(), processedCommand);
+            config.debugLog("Executed command: {}", processedCommand);
+        }
+    }
+
+    private static ItemStack[] toArray(Collection<ItemStack> items) {
+        return items.toArray(new ItemStack[0]);
+    }
+}
@@ -0,0 +1,42 @@
+package online.zeptra.npcplugin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Wall-clock time spent in each startup phase. Phases are closed by the next
+// begin() or end(); repeated phases add up.
+public class StartupTimer {
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private String current;
+    private long currentStart;
+
+    public void begin(String phase) {
+        end();
+        current = phase;
+        currentStart = System.nanoTime();
+    }
+
+    public void end() {
+        if (current != null) {
+            phases.merge(current, System.nanoTime() - currentStart, Long::sum);
+            current = null;
+        }
+    }
+
+    public long getMillis(String phase) {
+        return phases.getOrDefault(phase, 0L) / 1_000_000L;
+    }
+
+    // "parse 12ms, compile 3ms, ..."
+    public String summary() {
+        end();
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Long> entry : phases.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(entry.getKey()).append(' ').append(entry.getValue() / 1_000_000L).append("ms");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,212 @@
+package online.zeptra.npcplugin;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Main-thread time used by each scheduled task and event handler, per tick.
+// A section adds the System.nanoTime() duration of each run to the current
+// tick's slot in a fixed ring of one minute of ticks, so recording is two
+// nanoTime calls and an array write, and never allocates. /npc perf reads the
+// rings: p50/p99/max are over the ticks in which the component ran.
+public class TickProfiler {
+    public static final int WINDOW_TICKS = 20 * 60;
+
+    private final JavaPlugin plugin;
+    private final Map<String, Section> sections = new LinkedHashMap<>();
+    private BukkitRunnable clock;
+    private int tick;
+    private int windowStart;
+
+    public TickProfiler(JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        stop();
+        clock = new BukkitRunnable() {
+            @Override
+            public void run() {
+                tick++;
+            }
+        };
+        clock.runTaskTimer(plugin, 1L, 1L);
+    }
+
+    public void stop() {
+        if (clock != null) {
+            clock.cancel();
+            clock = null;
+        }
+    }
+
+    // Sections are kept for the plugin's lifetime; look them up once and keep them
+    public Section section(String name) {
+        return sections.computeIfAbsent(name, Section::new);
+    }
+
+    // Wrap once when the task is created, not on every run
+    public Runnable wrap(String name, Runnable task) {
+        return section(name).wrap(task);
+    }
+
+    // Registers the listener's @EventHandler methods, each timed as "Listener.method".
+    // Async events run off the main thread and are not counted against the tick.
+    public void registerEvents(Listener listener) {
+        for (Method method : listener.getClass().getDeclaredMethods()) {
+            EventHandler handler = method.getAnnotation(EventHandler.class);
+            if (handler == null || method.getParameterCount() != 1
+                    || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                continue;
+            }
+
+            Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+            Section section = section(listener.getClass().getSimpleName() + "." + method.getName());
+            method.setAccessible(true);
+            EventExecutor executor = (target, event) -> {
+                if (!eventClass.isInstance(event)) {
+                    return;
+                }
+                boolean timed = !event.isAsynchronous();
+                long start = timed ? System.nanoTime() : 0L;
+                try {
+                    method.invoke(target, event);
+                } catch (InvocationTargetException e) {
+                    throw new EventException(e.getCause());
+                } catch (IllegalAccessException e) {
+                    throw new EventException(e);
+                } finally {
+                    if (timed) {
+                        section.record(start);
+                    }
+                }
+            };
+            plugin.getServer().getPluginManager().registerEvent(eventClass, listener, handler.priority(),
+                    executor, plugin, handler.ignoreCancelled());
+        }
+    }
+
+    // Starts a new window: stats only cover ticks from now on
+    public void reset() {
+        windowStart = tick;
+        for (Section section : sections.values()) {
+            section.clear();
+        }
+    }
+
+    // Components that ran in the window, busiest first
+    public List<Stats> getStats() {
+        int from = Math.max(windowStart, tick - WINDOW_TICKS + 1);
+        List<Stats> stats = new ArrayList<>();
+        for (Section section : sections.values()) {
+            Stats stat = section.stats(from, tick);
+            if (stat != null) {
+                stats.add(stat);
+            }
+        }
+        stats.sort((a, b) -> Long.compare(b.total, a.total));
+        return stats;
+    }
+
+    // Ticks covered by getStats()
+    public int getWindowTicks() {
+        return Math.min(WINDOW_TICKS, tick - windowStart + 1);
+    }
+
+    public final class Section {
+        private final String name;
+        private final long[] nanos = new long[WINDOW_TICKS];
+        // The tick each slot was last written in; older slots count as empty
+        private final int[] ticks = new int[WINDOW_TICKS];
+
+        private Section(String name) {
+            this.name = name;
+            Arrays.fill(ticks, -1);
+        }
+
+        // Main thread; start is the System.nanoTime() taken when the work began
+        public void record(long start) {
+            long elapsed = System.nanoTime() - start;
+            int now = tick;
+            int slot = now % WINDOW_TICKS;
+            if (ticks[slot] != now) {
+                ticks[slot] = now;
+                nanos[slot] = 0L;
+            }
+            nanos[slot] += elapsed;
+        }
+
+        // The task, timed under this section
+        public Runnable wrap(Runnable task) {
+            return () -> {
+                long start = System.nanoTime();
+                try {
+                    task.run();
+                } finally {
+                    record(start);
+                }
+            };
+        }
+
+        private void clear() {
+            Arrays.fill(ticks, -1);
+            Arrays.fill(nanos, 0L);
+        }
+
+        private Stats stats(int from, int to) {
+            long[] values = new long[WINDOW_TICKS];
+            int count = 0;
+            long total = 0L;
+            for (int slot = 0; slot < WINDOW_TICKS; slot++) {
+                if (ticks[slot] >= from && ticks[slot] <= to) {
+                    values[count++] = nanos[slot];
+                    total += nanos[slot];
+                }
+            }
+            if (count == 0) {
+                return null;
+            }
+
+            Arrays.sort(values, 0, count);
+            return new Stats(name, count, total, values[(count - 1) / 2],
+                    values[(count - 1) * 99 / 100], values[count - 1]);
+        }
+    }
+
+    public static final class Stats {
+        private final String name;
+        private final int ticks;
+        private final long total;
+        private final long p50;
+        private final long p99;
+        private final long max;
+
+        private Stats(String name, int ticks, long total, long p50, long p99, long max) {
+            this.name = name;
+            this.ticks = ticks;
+            this.total = total;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public String getName() { return name; }
+        public int getTicks() { return ticks; }
+        public double getTotalMillis() { return total / 1_000_000.0; }
+        public double getP50Millis() { return p50 / 1_000_000.0; }
+        public double getP99Millis() { return p99 / 1_000_000.0; }
+        public double getMaxMillis() { return max / 1_000_000.0; }
+    }
+}
@@ -8,15 +8,24 @@ import org.bukkit.scheduler.BukkitTask;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class TraderNPC {
+    // Scoreboard tag on every NPC entity
+    public static final String ENTITY_TAG = "npcplugin_trader";
+
     private final String id;
     private final String name;
     private final Location location;
     private LivingEntity entity;
     private boolean enabled;
     private final ConfigManager config;
+    private final LeaderboardManager leaderboards;
+    private final DynamicPricing dynamicPricing;
+    private final TickProfiler profiler;
+    // Entity UUID -> NPC, shared with NPCManager; kept current by spawn and remove
+    private final Map<UUID, TraderNPC> entityIndex;
 
     // **แก้ไข: เพิ่มการตรวจสอบ UUID เพื่อป้องกัน spawn ซ้ำ**
     private UUID entityUUID;
@@ -24,11 +33,17 @@ public class TraderNPC {
 
     // Hologram support
     private List<ArmorStand> hologramLines = new ArrayList<>();
+    private final List<ArmorStand> priceLines = new ArrayList<>();
+    private final List<String> priceLineItems = new ArrayList<>();
     private BukkitTask hologramUpdateTask;
 
     // Particle effects
     private BukkitTask particleTask;
 
+    // Compiled price overrides from npcs.yml
+    private PriceTable customPrices;
+    private boolean customPricesEnabled;
+
     // Player interaction tracking
     private int dailyInteractionCount = 0;
     private long lastInteractionTime = 0;
@@ -37,23 +52,41 @@ public class TraderNPC {
     private String skinTexture;
     private String skinSignature;
 
-    public TraderNPC(String id, String name, Location location, boolean enabled, ConfigManager config) {
+    public TraderNPC(String id, String name, Location location, boolean enabled, ConfigManager config,
+                     LeaderboardManager leaderboards, DynamicPricing dynamicPricing, TickProfiler profiler,
+                     Map<UUID, TraderNPC> entityIndex) {
         this.id = id;
         this.name = name;
         this.location = location;
         this.enabled = enabled;
         this.config = config;
+        this.leaderboards = leaderboards;
+        this.dynamicPricing = dynamicPricing;
+        this.profiler = profiler;
+        this.entityIndex = entityIndex;
+        loadPrices();
+    }
+
+    // Recompiles custom prices and refreshes the price lines without touching the entity
+    public void reloadPrices() {
+        loadPrices();
+        updatePriceLines();
+    }
+
+    private void loadPrices() {
+        this.customPricesEnabled = config.hasCustomPrices(id);
+        this.customPrices = customPricesEnabled ? config.compileNPCPriceTable(id) : PriceTable.empty();
     }
 
     public boolean spawn() {
         // **แก้ไข: ป้องกัน spawn ซ้ำ**
         if (isSpawning) {
-            config.debugLog("NPC " + id + " is already spawning, skipping...");
+            config.debugLog("NPC {} is already spawning, skipping...", id);
             return false;
         }
 
         if (entity != null && entity.isValid()) {
-            config.debugLog("NPC " + id + " already exists and is valid, skipping spawn");
+            config.debugLog("NPC {} already exists and is valid, skipping spawn", id);
             return true;
         }
 
@@ -64,27 +97,20 @@ public class TraderNPC {
             if (entity != null) {
                 entity.remove();
                 entity = null;
-                entityUUID = null;
             }
+            clearEntityUUID();
 
-            String entityTypeStr = config.getNPCEntityType(id);
-            EntityType entityType;
-
-            try {
-                entityType = EntityType.valueOf(entityTypeStr.toUpperCase());
-            } catch (IllegalArgumentException e) {
-                config.debugLog("Invalid entity type " + entityTypeStr + " for NPC " + id + ", using VILLAGER");
-                entityType = EntityType.VILLAGER;
-            }
+            EntityType entityType = config.getEffects().getEntityType(config.getNPCEntityType(id));
 
             // **แก้ไข: ตรวจสอบให้แน่ใจว่า location ถูกต้อง**
             if (location.getWorld() == null) {
-                config.debugLog("World is null for NPC " + id);
+                config.debugLog("World is null for NPC {}", id);
                 return false;
             }
 
             entity = (LivingEntity) location.getWorld().spawnEntity(location, entityType);
             entityUUID = entity.getUniqueId();
+            entityIndex.put(entityUUID, this);
 
             setupNPCProperties();
             applySkin();
@@ -98,11 +124,11 @@ public class TraderNPC {
                 startParticleEffects();
             }
 
-            config.debugLog("Successfully spawned NPC: " + id + " with UUID: " + entityUUID);
+            config.debugLog("Successfully spawned NPC: {} with UUID: {}", id, entityUUID);
             return true;
 
         } catch (Exception e) {
-            config.debugLog("Failed to spawn NPC " + id + ": " + e.getMessage());
+            config.debugLog("Failed to spawn NPC {}: {}", id, e.getMessage());
             e.printStackTrace();
             return false;
         } finally {
@@ -124,6 +150,9 @@ public class TraderNPC {
         // **แก้ไข: เพิ่ม persistent เพื่อไม่ให้หายเวลา chunk unload**
         entity.setPersistent(true);
 
+        // Lets listeners tell NPC entities apart without looking them up
+        entity.addScoreboardTag(ENTITY_TAG);
+
         if (entity instanceof Villager) {
             Villager villager = (Villager) entity;
 
@@ -156,7 +185,7 @@ public class TraderNPC {
         // For player-type entities, apply skin
         if (entity instanceof Player) {
             // This would require additional skin API implementation
-            config.debugLog("Player skin application not implemented for " + id);
+            config.debugLog("Player skin application not implemented for {}", id);
         }
 
         // For other entities, we can change equipment or properties
@@ -235,20 +264,41 @@ public class TraderNPC {
 
         for (int i = 0; i < Math.min(sampleItems.size(), config.getHologramMaxItems()); i++) {
             String itemType = sampleItems.get(i);
-            double price = getItemPrice(itemType);
+            long price = getItemPrice(itemType);
 
             if (price > 0) {
-                String itemName = formatItemName(itemType);
-                String priceText = format
-                        .replace("{item}", itemName)
-                        .replace("{price}", String.format("%.2f", price));
-
                 double y = startY - (i * 0.25);
                 Location priceLoc = new Location(location.getWorld(), location.getX(), y, location.getZ());
 
                 ArmorStand priceHolo = location.getWorld().spawn(priceLoc, ArmorStand.class);
-                setupHologramProperties(priceHolo, priceText);
+                setupHologramProperties(priceHolo, formatPriceLine(format, itemType, price));
                 hologramLines.add(priceHolo);
+                priceLines.add(priceHolo);
+                priceLineItems.add(itemType);
+            }
+        }
+    }
+
+    private String formatPriceLine(String format, String itemType, long price) {
+        // Holograms are shared by everyone, so they use plugin.language
+        Material material = Material.getMaterial(itemType);
+        return format
+                .replace("{item}", material != null ? config.getItemName(material) : itemType)
+                .replace("{price}", Money.format(price));
+    }
+
+    // Static prices never change between rebuilds; dynamic and scheduled ones are refreshed with the hologram
+    private void updatePriceLines() {
+        if (!(dynamicPricing.isEnabled() || config.hasPriceSchedule()) || priceLines.isEmpty()) {
+            return;
+        }
+
+        String format = config.getHologramPriceFormat();
+        for (int i = 0; i < priceLines.size(); i++) {
+            ArmorStand priceHolo = priceLines.get(i);
+            if (priceHolo != null && priceHolo.isValid()) {
+                String priceText = formatPriceLine(format, priceLineItems.get(i), getItemPrice(priceLineItems.get(i)));
+                priceHolo.setCustomName(ChatColor.translateAlternateColorCodes('&', processHologramText(priceText)));
             }
         }
     }
@@ -274,11 +324,20 @@ public class TraderNPC {
     }
 
     private String processHologramText(String text) {
-        return text
+        text = text
                 .replace("{npc_name}", ChatColor.stripColor(name))
                 .replace("{npc_id}", id)
                 .replace("{daily_count}", String.valueOf(dailyInteractionCount))
                 .replace("{world}", location.getWorld().getName());
+
+        if (text.contains("{top_seller") || text.contains("{daily_sold}")) {
+            Leaderboard.Entry<UUID> top = leaderboards.getTopSeller(id, LeaderboardManager.Period.DAILY);
+            text = text
+                    .replace("{top_seller}", top != null ? top.getName() : "-")
+                    .replace("{top_seller_amount}", top != null ? Money.format(top.getScore()) : Money.format(0L))
+                    .replace("{daily_sold}", Money.format(leaderboards.getNPCSoldAmount(id, LeaderboardManager.Period.DAILY)));
+        }
+        return text;
     }
 
     private void startHologramUpdateTask() {
@@ -287,12 +346,8 @@ public class TraderNPC {
         }
 
         int interval = config.getHologramUpdateInterval();
-        hologramUpdateTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                updateHologramContent();
-            }
-        }.runTaskTimer(Bukkit.getPluginManager().getPlugin("NPCPlugin"), 0L, interval * 20L);
+        hologramUpdateTask = Bukkit.getScheduler().runTaskTimer(Bukkit.getPluginManager().getPlugin("NPCPlugin"),
+                profiler.wrap("npc-holograms", this::updateHologramContent), 0L, interval * 20L);
     }
 
     private void updateHologramContent() {
@@ -309,6 +364,8 @@ public class TraderNPC {
                 hologram.setCustomName(ChatColor.translateAlternateColorCodes('&', processedText));
             }
         }
+
+        updatePriceLines();
     }
 
     private void startParticleEffects() {
@@ -316,8 +373,13 @@ public class TraderNPC {
             particleTask.cancel();
         }
 
-        int interval = config.getParticleInterval("npc-idle");
+        EffectSpec idle = config.getParticle("npc-idle");
+        if (idle.isEmpty()) {
+            particleTask = null;
+            return;
+        }
 
+        Runnable particles = profiler.wrap("npc-particles", this::playIdleParticles);
         particleTask = new BukkitRunnable() {
             @Override
             public void run() {
@@ -326,9 +388,9 @@ public class TraderNPC {
                     return;
                 }
 
-                playIdleParticles();
+                particles.run();
             }
-        }.runTaskTimer(Bukkit.getPluginManager().getPlugin("NPCPlugin"), 0L, interval);
+        }.runTaskTimer(Bukkit.getPluginManager().getPlugin("NPCPlugin"), 0L, idle.getInterval());
     }
 
     private void playIdleParticles() {
@@ -336,19 +398,7 @@ public class TraderNPC {
             return;
         }
 
-        try {
-            Location particleLoc = entity.getLocation().add(0, 1, 0);
-            World world = particleLoc.getWorld();
-
-            Particle particleType = Particle.valueOf(config.getParticleType("npc-idle"));
-            int count = config.getParticleCount("npc-idle");
-            double offset = config.getParticleOffset("npc-idle");
-
-            world.spawnParticle(particleType, particleLoc, count, offset, offset, offset, 0);
-
-        } catch (Exception e) {
-            config.debugLog("Error playing idle particles for " + id + ": " + e.getMessage());
-        }
+        config.getParticle("npc-idle").spawn(entity.getLocation().add(0, 1, 0));
     }
 
     public void playParticleEffect(String effectType) {
@@ -356,19 +406,7 @@ public class TraderNPC {
             return;
         }
 
-        try {
-            Location particleLoc = entity.getLocation().add(0, 1, 0);
-            World world = particleLoc.getWorld();
-
-            Particle particleType = Particle.valueOf(config.getParticleType(effectType));
-            int count = config.getParticleCount(effectType);
-            double offset = config.getParticleOffset(effectType);
-
-            world.spawnParticle(particleType, particleLoc, count, offset, offset, offset, 0);
-
-        } catch (Exception e) {
-            config.debugLog("Error playing " + effectType + " particles for " + id + ": " + e.getMessage());
-        }
+        config.getParticle(effectType).spawn(entity.getLocation().add(0, 1, 0));
     }
 
     public void playSound(String soundType) {
@@ -376,12 +414,7 @@ public class TraderNPC {
             return;
         }
 
-        try {
-            Sound sound = Sound.valueOf(config.getSound(soundType));
-            entity.getWorld().playSound(entity.getLocation(), sound, 1.0f, 1.0f);
-        } catch (Exception e) {
-            config.debugLog("Error playing " + soundType + " sound for " + id + ": " + e.getMessage());
-        }
+        config.getSound(soundType).play(entity.getLocation(), 1.0f, 1.0f);
     }
 
     public void onPlayerInteract(Player player) {
@@ -394,21 +427,28 @@ public class TraderNPC {
         // Play interaction particles
         playParticleEffect("sell-success");
 
-        config.debugLog("Player " + player.getName() + " interacted with NPC " + id);
+        config.debugLog("Player {} interacted with NPC {}", player.getName(), id);
     }
 
     public void remove() {
-        config.debugLog("Removing NPC: " + id);
+        config.debugLog("Removing NPC: {}", id);
 
         if (entity != null && entity.isValid()) {
             entity.remove();
-            config.debugLog("Removed NPC entity: " + id);
+            config.debugLog("Removed NPC entity: {}", id);
         }
 
         removeHologram();
         stopTasks();
         entity = null;
-        entityUUID = null;
+        clearEntityUUID();
+    }
+
+    private void clearEntityUUID() {
+        if (entityUUID != null) {
+            entityIndex.remove(entityUUID, this);
+            entityUUID = null;
+        }
     }
 
     private void removeHologram() {
@@ -418,6 +458,8 @@ public class TraderNPC {
             }
         }
         hologramLines.clear();
+        priceLines.clear();
+        priceLineItems.clear();
 
         if (hologramUpdateTask != null) {
             hologramUpdateTask.cancel();
@@ -470,14 +512,25 @@ public class TraderNPC {
         }
     }
 
-    public double getItemPrice(String itemType) {
-        if (config.hasCustomPrices(id)) {
-            double customPrice = config.getNPCItemPrice(id, itemType);
+    // Prices are Money minor units
+    public long getItemPrice(String itemType) {
+        Material material = Material.getMaterial(itemType);
+        return material != null ? getItemPrice(material) : 0L;
+    }
+
+    public long getItemPrice(Material material) {
+        return dynamicPricing.apply(material, getBaseItemPrice(material), System.currentTimeMillis());
+    }
+
+    // Configured price (including scheduled events) before any dynamic adjustment
+    public long getBaseItemPrice(Material material) {
+        if (customPricesEnabled) {
+            long customPrice = customPrices.get(material);
             if (customPrice > 0) {
-                return customPrice;
+                return config.applyPriceSchedule(id, material, customPrice);
             }
         }
-        return config.getItemPrice(itemType);
+        return config.getItemPrice(id, material);
     }
 
     public List<String> getCustomCommands() {
@@ -489,8 +542,12 @@ public class TraderNPC {
         return commands != null && !commands.isEmpty();
     }
 
+    public List<Material> getCustomPriceMaterials() {
+        return customPrices.getMaterials();
+    }
+
     public boolean hasCustomPrices() {
-        return config.hasCustomPrices(id);
+        return customPricesEnabled;
     }
 
     public String getGreeting() {
@@ -499,6 +556,7 @@ public class TraderNPC {
 
     public void updateFromConfig() {
         this.enabled = config.isNPCEnabled(id);
+        loadPrices();
 
         if (entity != null && entity.isValid()) {
             entity.setCustomName(ChatColor.translateAlternateColorCodes('&', config.getNPCName(id)));
@@ -533,18 +591,6 @@ public class TraderNPC {
         dailyInteractionCount = 0;
     }
 
-    // Utility methods
-    private String formatItemName(String itemType) {
-        String[] words = itemType.toLowerCase().split("_");
-        StringBuilder result = new StringBuilder();
-        for (int i = 0; i < words.length; i++) {
-            if (i > 0) result.append(" ");
-            result.append(Character.toUpperCase(words[i].charAt(0)))
-                    .append(words[i].substring(1));
-        }
-        return result.toString();
-    }
-
     // Getters
     public String getId() {
         return id;
@@ -578,7 +624,7 @@ public class TraderNPC {
 
         // ตรวจสอบ UUID ด้วย
         if (entityUUID != null && !entityUUID.equals(entity.getUniqueId())) {
-            config.debugLog("UUID mismatch for NPC " + id + ", entity may be corrupted");
+            config.debugLog("UUID mismatch for NPC {}, entity may be corrupted", id);
             return false;
         }
 
@@ -0,0 +1,312 @@
+package online.zeptra.npcplugin;
+
+import online.zeptra.npcplugin.fake.FakePlayer;
+import online.zeptra.npcplugin.fake.FakeServer;
+import online.zeptra.npcplugin.fake.TickScheduler;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+// Runs sell sessions for many synthetic players against the real listeners and
+// SellGUI on the fake server, one tick at a time, as fast as the machine allows.
+// Each tick every player acts with probability actions-per-second / 20 (its
+// click goes through the event bus like a client packet), then the scheduler
+// runs the tick's tasks (preview refreshes, catalog opens, NPC tasks). The tick
+// is timed as a whole, the profiler breaks it down per component, and the
+// allocation rate is read from the thread's allocation counter, which also
+// counts the fakes' own garbage: compare runs, not absolute numbers.
+//
+// ./gradlew simulate --args="--players 300 --npcs 6 --ticks 6000 --pattern seller:50,masher:30,browser:20"
+public class LoadSimulator {
+    private static final double TICK_BUDGET_MILLIS = 50.0;
+
+    private final Map<String, String> options;
+    private final int playerCount;
+    private final int npcCount;
+    private final int ticks;
+    private final int warmupTicks;
+    private final double actionsPerSecond;
+    private final long seed;
+    private final Map<SyntheticPlayer.Pattern, Integer> mix;
+
+    private LoadSimulator(Map<String, String> options) {
+        this.options = options;
+        this.playerCount = intOption("players", 200);
+        this.npcCount = intOption("npcs", 4);
+        this.ticks = intOption("ticks", 20 * 60);
+        this.warmupTicks = intOption("warmup", 20 * 10);
+        this.actionsPerSecond = Double.parseDouble(options.getOrDefault("actions-per-second", "3"));
+        this.seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        this.mix = parseMix(options.getOrDefault("pattern", "seller:60,masher:20,dragger:10,browser:10"));
+        if (playerCount < 1 || npcCount < 1 || ticks < 1 || warmupTicks < 0 || actionsPerSecond <= 0) {
+            throw new IllegalArgumentException("players, npcs, ticks and actions-per-second must be positive");
+        }
+    }
+
+    public static void main(String[] args) {
+        LoadSimulator simulator;
+        try {
+            simulator = new LoadSimulator(parseArgs(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: --players N --npcs N --ticks N --warmup N --actions-per-second X --seed N"
+                    + " --pattern seller:60,masher:20,dragger:10,browser:10");
+            System.exit(2);
+            return;
+        }
+        simulator.run();
+        System.exit(0);
+    }
+
+    private void run() {
+        HeadlessEnvironment env = new HeadlessEnvironment();
+        FakeServer server = env.getServer();
+        TickScheduler scheduler = server.getScheduler();
+        Random random = new Random(seed);
+
+        List<TraderNPC> npcs = new ArrayList<>();
+        for (int i = 0; i < npcCount; i++) {
+            npcs.add(env.spawnNPC("sim" + i, i * 16.0, 0.0));
+        }
+
+        List<SyntheticPlayer> players = new ArrayList<>();
+        List<SyntheticPlayer.Pattern> patterns = assignPatterns(random);
+        for (int i = 0; i < playerCount; i++) {
+            TraderNPC npc = npcs.get(i % npcs.size());
+            FakePlayer fake = server.addPlayer("sim" + i,
+                    env.location((i % npcs.size()) * 16.0 + random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2));
+            players.add(new SyntheticPlayer(fake, npc, patterns.get(i), server.getEvents(),
+                    new Random(random.nextLong())));
+        }
+
+        com.sun.management.ThreadMXBean threads = threadBean();
+        MetricsRegistry metrics = env.getMetrics();
+        double chance = actionsPerSecond / 20.0;
+
+        long[] tickNanos = new long[ticks];
+        long actions = 0L;
+        long allocatedStart = 0L;
+        long salesStart = 0L;
+        long itemsStart = 0L;
+        long opensStart = 0L;
+        long commandsStart = 0L;
+        long wallStart = 0L;
+        int peakSessions = 0;
+
+        for (int tick = -warmupTicks; tick < ticks; tick++) {
+            if (tick == 0) {
+                env.getProfiler().reset();
+                salesStart = counter(metrics, "npcplugin_sales_total");
+                itemsStart = counter(metrics, "npcplugin_items_sold_total");
+                opensStart = counter(metrics, "npcplugin_gui_opens_total");
+                commandsStart = server.getDispatchedCommands();
+                allocatedStart = threads.getCurrentThreadAllocatedBytes();
+                wallStart = System.nanoTime();
+            }
+
+            long start = System.nanoTime();
+            int acted = 0;
+            for (SyntheticPlayer player : players) {
+                if (random.nextDouble() < chance) {
+                    player.act();
+                    acted++;
+                }
+            }
+            scheduler.tick();
+            long elapsed = System.nanoTime() - start;
+
+            if (tick >= 0) {
+                tickNanos[tick] = elapsed;
+                actions += acted;
+                peakSessions = Math.max(peakSessions, env.getSellGUI().getOpenSessionCount());
+            }
+        }
+
+        long wallNanos = System.nanoTime() - wallStart;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedStart;
+
+        Report report = new Report();
+        report.section("Run");
+        report.line("players", playerCount + " (" + describeMix(patterns) + ")");
+        report.line("npcs", npcCount);
+        report.line("actions per player", format("%.1f/s", actionsPerSecond));
+        report.line("ticks", ticks + " (+" + warmupTicks + " warm-up), seed " + seed);
+        double simulatedSeconds = ticks / 20.0;
+        double wallSeconds = wallNanos / 1e9;
+        report.line("simulated", format("%.1f s in %.2f s wall (%.1fx real time)",
+                simulatedSeconds, wallSeconds, simulatedSeconds / wallSeconds));
+
+        report.section("Throughput (per simulated second)");
+        report.line("actions", rate(actions, simulatedSeconds));
+        report.line("GUI opens", rate(counter(metrics, "npcplugin_gui_opens_total") - opensStart, simulatedSeconds));
+        report.line("sales", rate(counter(metrics, "npcplugin_sales_total") - salesStart, simulatedSeconds));
+        report.line("items sold", rate(counter(metrics, "npcplugin_items_sold_total") - itemsStart, simulatedSeconds));
+        report.line("payout commands", rate(server.getDispatchedCommands() - commandsStart, simulatedSeconds));
+        report.line("peak open sessions", peakSessions);
+
+        long[] sorted = tickNanos.clone();
+        Arrays.sort(sorted);
+        long over = 0L;
+        long total = 0L;
+        for (long nanos : tickNanos) {
+            total += nanos;
+            if (nanos / 1e6 > TICK_BUDGET_MILLIS) {
+                over++;
+            }
+        }
+        report.section("Tick cost (actions + scheduled tasks)");
+        report.line("mean", millis(total / ticks) + format(" (%.1f%% of the %.0f ms budget)",
+                total / (double) ticks / 1e6 / TICK_BUDGET_MILLIS * 100, TICK_BUDGET_MILLIS));
+        report.line("p50 / p99 / max", millis(sorted[(ticks - 1) / 2]) + " / "
+                + millis(sorted[(ticks - 1) * 99 / 100]) + " / " + millis(sorted[ticks - 1]));
+        report.line("ticks over budget", over);
+        report.line("per action", format("%.1f µs", actions > 0 ? total / (double) actions / 1e3 : 0.0));
+
+        report.section("Allocation (main thread)");
+        report.line("rate", format("%.1f MB per simulated second, %.1f MB/s wall",
+                allocated / 1e6 / simulatedSeconds, allocated / 1e6 / wallSeconds));
+        report.line("per tick", format("%.1f KB", allocated / 1e3 / ticks));
+        report.line("per action", format("%.1f KB", actions > 0 ? allocated / 1e3 / actions : 0.0));
+
+        report.section("Components (last " + env.getProfiler().getWindowTicks() + " ticks, ms per tick it ran)");
+        for (TickProfiler.Stats stats : env.getProfiler().getStats()) {
+            report.line(stats.getName(), format("%5d ticks  total %8.2f  p50 %.3f  p99 %.3f  max %.3f",
+                    stats.getTicks(), stats.getTotalMillis(), stats.getP50Millis(), stats.getP99Millis(),
+                    stats.getMaxMillis()));
+        }
+        System.out.print(report);
+    }
+
+    private List<SyntheticPlayer.Pattern> assignPatterns(Random random) {
+        int weights = 0;
+        for (int weight : mix.values()) {
+            weights += weight;
+        }
+        List<SyntheticPlayer.Pattern> patterns = new ArrayList<>();
+        for (int i = 0; i < playerCount; i++) {
+            int roll = random.nextInt(weights);
+            for (Map.Entry<SyntheticPlayer.Pattern, Integer> entry : mix.entrySet()) {
+                roll -= entry.getValue();
+                if (roll < 0) {
+                    patterns.add(entry.getKey());
+                    break;
+                }
+            }
+        }
+        return patterns;
+    }
+
+    private static String describeMix(List<SyntheticPlayer.Pattern> patterns) {
+        Map<SyntheticPlayer.Pattern, Integer> counts = new EnumMap<>(SyntheticPlayer.Pattern.class);
+        for (SyntheticPlayer.Pattern pattern : patterns) {
+            counts.merge(pattern, 1, Integer::sum);
+        }
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<SyntheticPlayer.Pattern, Integer> entry : counts.entrySet()) {
+            if (out.length() > 0) {
+                out.append(", ");
+            }
+            out.append(entry.getValue()).append(' ').append(entry.getKey().name().toLowerCase(Locale.ROOT));
+        }
+        return out.toString();
+    }
+
+    private static Map<SyntheticPlayer.Pattern, Integer> parseMix(String value) {
+        Map<SyntheticPlayer.Pattern, Integer> mix = new EnumMap<>(SyntheticPlayer.Pattern.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split(":");
+            SyntheticPlayer.Pattern pattern;
+            try {
+                pattern = SyntheticPlayer.Pattern.valueOf(pair[0].trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown pattern: " + pair[0]);
+            }
+            int weight = pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1;
+            if (weight > 0) {
+                mix.put(pattern, weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The pattern mix is empty");
+        }
+        return mix;
+    }
+
+    // --name value or --name=value
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            int equals = name.indexOf('=');
+            if (equals >= 0) {
+                options.put(name.substring(0, equals), name.substring(equals + 1));
+            } else if (i + 1 < args.length) {
+                options.put(name, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for --" + name);
+            }
+        }
+        return options;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a whole number: " + value);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        return threads;
+    }
+
+    private static long counter(MetricsRegistry metrics, String name) {
+        return metrics.counter(name, "").get();
+    }
+
+    private static String rate(long count, double seconds) {
+        return format("%.1f (%d total)", count / seconds, count);
+    }
+
+    private static String millis(long nanos) {
+        return format("%.3f ms", nanos / 1e6);
+    }
+
+    private static String format(String pattern, Object... args) {
+        return String.format(Locale.ROOT, pattern, args);
+    }
+
+    private static final class Report {
+        private final StringBuilder out = new StringBuilder();
+
+        void section(String title) {
+            out.append('\n').append(title).append('\n');
+        }
+
+        void line(String name, Object value) {
+            out.append(format("  %-20s %s%n", name, value));
+        }
+
+        @Override
+        public String toString() {
+            return out.toString();
+        }
+    }
+}
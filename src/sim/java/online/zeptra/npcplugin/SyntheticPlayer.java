@@ -0,0 +1,356 @@
+package online.zeptra.npcplugin;
+
+import online.zeptra.npcplugin.fake.EventBus;
+import online.zeptra.npcplugin.fake.FakePlayer;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// One simulated player working through sell sessions with an NPC, one action
+// (one client packet's worth) per act() call. Every action is fired as the
+// event the server would fire and, when no listener cancels it, its effect on
+// the inventories is applied afterwards, as the server does after the event.
+public class SyntheticPlayer {
+    // Slots of the 54-slot sell GUI (SellGUI.setupCategoryGUI)
+    static final int SELL_SLOTS = 36;
+    static final int FIRST_CATEGORY_SLOT = 36;
+    static final int LAST_CATEGORY_SLOT = 41;
+    static final int PRICE_INFO_SLOT = 47;
+    static final int CATEGORY_SELL_SLOT = 48;
+    static final int SELL_SLOT = 49;
+    static final int COMPARE_SLOT = 50;
+    // Hotbar and main inventory of the player
+    static final int STORAGE_SLOTS = 36;
+
+    private static final Material[] SELLABLE = {
+            Material.DIAMOND, Material.IRON_INGOT, Material.GOLD_INGOT, Material.COAL,
+            Material.WHEAT, Material.CARROT, Material.COBBLESTONE
+    };
+    private static final Material[] UNSELLABLE = {Material.OAK_LOG, Material.STICK};
+
+    public enum Pattern {
+        // Deposits a few stacks (pick up and place, or shift-click), sells, closes
+        SELLER,
+        // Hammers the buttons: sell on an empty GUI, categories, category sell, compare
+        MASHER,
+        // Spreads a stack over several sell slots with one drag, then sells
+        DRAGGER,
+        // Flips through categories and the price catalog without selling
+        BROWSER
+    }
+
+    private final FakePlayer fake;
+    private final Player player;
+    private final TraderNPC npc;
+    private final Pattern pattern;
+    private final EventBus events;
+    private final Random random;
+
+    // Actions left in the current session; 0 means the GUI should be closed
+    private int remaining;
+    private boolean sold;
+    private long actions;
+    private long sessions;
+
+    public SyntheticPlayer(FakePlayer fake, TraderNPC npc, Pattern pattern, EventBus events, Random random) {
+        this.fake = fake;
+        this.player = fake.getPlayer();
+        this.npc = npc;
+        this.pattern = pattern;
+        this.events = events;
+        this.random = random;
+        refill();
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    public long getActions() {
+        return actions;
+    }
+
+    public long getSessions() {
+        return sessions;
+    }
+
+    public void act() {
+        actions++;
+        InventoryView view = fake.getOpenView();
+        if (view == null) {
+            open();
+            return;
+        }
+        if (!(view.getTopInventory().getHolder() instanceof SellGUI.Holder)) {
+            // The price catalog, opened from the info button: look and leave
+            player.closeInventory();
+            return;
+        }
+        if (remaining-- <= 0) {
+            player.closeInventory();
+            return;
+        }
+
+        switch (pattern) {
+            case SELLER:
+                actSeller(view);
+                break;
+            case MASHER:
+                actMasher(view);
+                break;
+            case DRAGGER:
+                actDragger(view);
+                break;
+            default:
+                actBrowser(view);
+                break;
+        }
+    }
+
+    private void open() {
+        if (countStacks() < 4) {
+            refill();
+        }
+        PlayerInteractEntityEvent event = new PlayerInteractEntityEvent(player, npc.getEntity());
+        events.call(event);
+        sessions++;
+        sold = false;
+        switch (pattern) {
+            case SELLER:
+                remaining = 4 + random.nextInt(8);
+                break;
+            case MASHER:
+                remaining = 10 + random.nextInt(20);
+                break;
+            case DRAGGER:
+                remaining = 3 + random.nextInt(3);
+                break;
+            default:
+                remaining = 3 + random.nextInt(6);
+                break;
+        }
+    }
+
+    private void actSeller(InventoryView view) {
+        // Deposit until a couple of actions are left, then sell (twice if asked to confirm)
+        if (remaining > 2 || !hasDeposit(view)) {
+            int index = randomStack();
+            if (index < 0) {
+                click(view, SELL_SLOT);
+            } else if (random.nextBoolean()) {
+                shiftClick(view, index);
+            } else if (pickUp(view, index)) {
+                place(view, firstEmptySellSlot(view));
+            }
+            return;
+        }
+        click(view, SELL_SLOT);
+    }
+
+    private void actMasher(InventoryView view) {
+        int roll = random.nextInt(10);
+        if (roll < 4) {
+            click(view, SELL_SLOT);
+        } else if (roll < 7) {
+            click(view, FIRST_CATEGORY_SLOT + random.nextInt(LAST_CATEGORY_SLOT - FIRST_CATEGORY_SLOT + 1));
+        } else if (roll < 8) {
+            click(view, CATEGORY_SELL_SLOT);
+        } else if (roll < 9) {
+            click(view, COMPARE_SLOT);
+        } else {
+            int index = randomStack();
+            if (index >= 0) {
+                shiftClick(view, index);
+            }
+        }
+    }
+
+    private void actDragger(InventoryView view) {
+        if (!sold && hasDeposit(view)) {
+            click(view, SELL_SLOT);
+            sold = true;
+            return;
+        }
+        int index = randomStack();
+        if (index >= 0 && pickUp(view, index)) {
+            drag(view, 2 + random.nextInt(5));
+        }
+    }
+
+    private void actBrowser(InventoryView view) {
+        if (random.nextInt(4) == 0) {
+            click(view, PRICE_INFO_SLOT);
+        } else {
+            click(view, FIRST_CATEGORY_SLOT + random.nextInt(LAST_CATEGORY_SLOT - FIRST_CATEGORY_SLOT + 1));
+        }
+    }
+
+    // A left click on a GUI slot; buttons are cancelled by the listener, so there is no effect to apply
+    private void click(InventoryView view, int rawSlot) {
+        events.call(new InventoryClickEvent(view, InventoryType.SlotType.CONTAINER, rawSlot,
+                ClickType.LEFT, InventoryAction.PICKUP_ALL));
+    }
+
+    // Picks a stack out of the player's own inventory onto the cursor
+    private boolean pickUp(InventoryView view, int index) {
+        InventoryClickEvent event = events.call(new InventoryClickEvent(view, slotType(index), rawSlot(view, index),
+                ClickType.LEFT, InventoryAction.PICKUP_ALL));
+        if (event.isCancelled()) {
+            return false;
+        }
+        PlayerInventory inventory = fake.getInventory();
+        player.setItemOnCursor(inventory.getItem(index));
+        inventory.setItem(index, null);
+        return true;
+    }
+
+    // Puts the cursor stack into a sell slot; a rejected stack goes back to the inventory
+    private void place(InventoryView view, int slot) {
+        ItemStack cursor = player.getItemOnCursor();
+        if (slot >= 0) {
+            InventoryClickEvent event = events.call(new InventoryClickEvent(view, InventoryType.SlotType.CONTAINER,
+                    slot, ClickType.LEFT, InventoryAction.PLACE_ALL));
+            if (!event.isCancelled()) {
+                view.getTopInventory().setItem(slot, cursor);
+                player.setItemOnCursor(null);
+                return;
+            }
+        }
+        returnCursor();
+    }
+
+    private void shiftClick(InventoryView view, int index) {
+        InventoryClickEvent event = events.call(new InventoryClickEvent(view, slotType(index), rawSlot(view, index),
+                ClickType.SHIFT_LEFT, InventoryAction.MOVE_TO_OTHER_INVENTORY));
+        int slot = firstEmptySellSlot(view);
+        if (event.isCancelled() || slot < 0) {
+            return;
+        }
+        PlayerInventory inventory = fake.getInventory();
+        view.getTopInventory().setItem(slot, inventory.getItem(index));
+        inventory.setItem(index, null);
+    }
+
+    // Splits the cursor stack evenly over empty sell slots, the remainder stays on the cursor
+    private void drag(InventoryView view, int slots) {
+        ItemStack cursor = player.getItemOnCursor();
+        Inventory top = view.getTopInventory();
+        int count = Math.min(slots, cursor.getAmount());
+        int each = cursor.getAmount() / Math.max(1, count);
+        Map<Integer, ItemStack> added = new HashMap<>();
+        for (int slot = 0; slot < SELL_SLOTS && added.size() < count; slot++) {
+            if (top.getItem(slot) == null) {
+                ItemStack part = cursor.clone();
+                part.setAmount(each);
+                added.put(slot, part);
+            }
+        }
+        if (added.isEmpty()) {
+            returnCursor();
+            return;
+        }
+
+        int left = cursor.getAmount() - each * added.size();
+        ItemStack newCursor = null;
+        if (left > 0) {
+            newCursor = cursor.clone();
+            newCursor.setAmount(left);
+        }
+        InventoryDragEvent event = events.call(new InventoryDragEvent(view, newCursor, cursor, false, added));
+        if (!event.isCancelled()) {
+            for (Map.Entry<Integer, ItemStack> entry : added.entrySet()) {
+                top.setItem(entry.getKey(), entry.getValue());
+            }
+            player.setItemOnCursor(newCursor);
+        }
+        returnCursor();
+    }
+
+    private void returnCursor() {
+        ItemStack cursor = player.getItemOnCursor();
+        if (cursor != null) {
+            fake.getInventory().addItem(cursor);
+            player.setItemOnCursor(null);
+        }
+    }
+
+    private boolean hasDeposit(InventoryView view) {
+        Inventory top = view.getTopInventory();
+        for (int slot = 0; slot < SELL_SLOTS; slot++) {
+            if (top.getItem(slot) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int firstEmptySellSlot(InventoryView view) {
+        Inventory top = view.getTopInventory();
+        for (int slot = 0; slot < SELL_SLOTS; slot++) {
+            if (top.getItem(slot) == null) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // Storage index 0-8 is the hotbar, shown below the other 27 slots
+    private static int rawSlot(InventoryView view, int index) {
+        int offset = view.getTopInventory().getSize();
+        return index < 9 ? offset + 27 + index : offset + index - 9;
+    }
+
+    private static InventoryType.SlotType slotType(int index) {
+        return index < 9 ? InventoryType.SlotType.QUICKBAR : InventoryType.SlotType.CONTAINER;
+    }
+
+    private int randomStack() {
+        PlayerInventory inventory = fake.getInventory();
+        int start = random.nextInt(STORAGE_SLOTS);
+        for (int i = 0; i < STORAGE_SLOTS; i++) {
+            int index = (start + i) % STORAGE_SLOTS;
+            if (inventory.getItem(index) != null) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private int countStacks() {
+        PlayerInventory inventory = fake.getInventory();
+        int count = 0;
+        for (int index = 0; index < STORAGE_SLOTS; index++) {
+            if (inventory.getItem(index) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Fills the free storage slots, mostly with items the NPC buys
+    private void refill() {
+        PlayerInventory inventory = fake.getInventory();
+        for (int index = 0; index < STORAGE_SLOTS; index++) {
+            if (inventory.getItem(index) != null) {
+                continue;
+            }
+            Material material = random.nextInt(10) == 0
+                    ? UNSELLABLE[random.nextInt(UNSELLABLE.length)]
+                    : SELLABLE[random.nextInt(SELLABLE.length)];
+            inventory.setItem(index, new ItemStack(material, 1 + random.nextInt(64)));
+        }
+    }
+}